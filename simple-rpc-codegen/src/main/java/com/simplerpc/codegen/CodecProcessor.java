@@ -0,0 +1,430 @@
+package com.simplerpc.codegen;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 编解码器注解处理器
+ * <p>
+ * 收集 @RpcCodec 服务接口（以及 @RpcService 实现类的接口）方法参数和返回值中的数据类，
+ * 递归收集它们字段中的数据类，为每个数据类生成 DtoCodec 实现，按字段声明顺序通过getter/setter读写，
+ * 并写入 META-INF/services 供 CodecSerializer 加载。
+ * <p>
+ * 字段按位置读写，没有字段名。生成的编解码器先写出由字段名和类型计算的摘要，
+ * 两端的数据类字段定义不一致时读取直接失败，不会把数据错位读进其他字段。
+ * <p>
+ * 数据类需要无参构造函数和非final的实例字段，字段通过JavaBean访问器（可以由Lombok生成）或公开字段访问。
+ * 不满足条件的类只给出警告，运行时由后备序列化器处理。
+ */
+@SupportedAnnotationTypes({CodecProcessor.RPC_CODEC, CodecProcessor.RPC_SERVICE})
+public class CodecProcessor extends AbstractProcessor {
+
+    static final String RPC_CODEC = "com.simplerpc.common.annotation.RpcCodec";
+    static final String RPC_SERVICE = "com.simplerpc.common.annotation.RpcService";
+
+    private static final String CODEC_PACKAGE = "com.simplerpc.serialize.codec";
+    private static final String SERVICE_FILE = "META-INF/services/" + CODEC_PACKAGE + ".DtoCodec";
+    private static final String CODEC_SUFFIX = "_RpcCodec";
+
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+
+    // 待生成的数据类
+    private final Map<String, TypeElement> pending = new LinkedHashMap<>();
+    // 已处理的数据类，包括被跳过的
+    private final Set<String> visited = new LinkedHashSet<>();
+    // 已生成的编解码器类名
+    private final Set<String> codecs = new LinkedHashSet<>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.filer = processingEnv.getFiler();
+        this.messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            boolean service = annotation.getQualifiedName().contentEquals(RPC_SERVICE);
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (!(element instanceof TypeElement)) {
+                    continue;
+                }
+                TypeElement type = (TypeElement) element;
+                if (type.getKind() == ElementKind.INTERFACE) {
+                    collectInterface(type);
+                } else if (service) {
+                    for (TypeMirror implemented : type.getInterfaces()) {
+                        collectInterface((TypeElement) types.asElement(implemented));
+                    }
+                } else {
+                    collectType(type.asType());
+                }
+            }
+        }
+
+        for (TypeElement type : new ArrayList<>(pending.values())) {
+            generate(type);
+        }
+        pending.clear();
+
+        if (roundEnv.processingOver() && !codecs.isEmpty()) {
+            writeServiceFile();
+        }
+        return false;
+    }
+
+    private void collectInterface(TypeElement type) {
+        if (isJdkType(type)) {
+            return;
+        }
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            if (method.getEnclosingElement().getKind() != ElementKind.INTERFACE
+                    || method.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+            collectType(method.getReturnType());
+            for (VariableElement parameter : method.getParameters()) {
+                collectType(parameter.asType());
+            }
+        }
+    }
+
+    /**
+     * 收集类型中的数据类，包括数组元素、泛型参数和数据类的字段
+     */
+    private void collectType(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            collectType(((ArrayType) type).getComponentType());
+            return;
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return;
+        }
+        DeclaredType declared = (DeclaredType) type;
+        for (TypeMirror argument : declared.getTypeArguments()) {
+            collectType(argument);
+        }
+        TypeElement element = (TypeElement) declared.asElement();
+        String name = element.getQualifiedName().toString();
+        if (element.getKind() != ElementKind.CLASS || isJdkType(element) || !visited.add(name)) {
+            return;
+        }
+        String problem = unsupported(element);
+        if (problem != null) {
+            messager.printMessage(Diagnostic.Kind.WARNING, "不生成编解码器，使用后备序列化器: " + problem, element);
+            return;
+        }
+        pending.put(name, element);
+        for (VariableElement field : fields(element)) {
+            collectType(field.asType());
+        }
+    }
+
+    /**
+     * 检查数据类能否生成编解码器
+     *
+     * @return 不能生成的原因，可以生成时返回null
+     */
+    private String unsupported(TypeElement element) {
+        Set<Modifier> modifiers = element.getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.PRIVATE)) {
+            return "抽象类或私有类";
+        }
+        if (!element.getTypeParameters().isEmpty()) {
+            return "泛型类";
+        }
+        if (element.getNestingKind() != NestingKind.TOP_LEVEL
+                && (element.getNestingKind() != NestingKind.MEMBER || !modifiers.contains(Modifier.STATIC))) {
+            return "非静态内部类";
+        }
+        if (!hasNoArgConstructor(element)) {
+            return "缺少无参构造函数";
+        }
+        for (VariableElement field : fields(element)) {
+            if (field.getModifiers().contains(Modifier.FINAL)) {
+                return "final字段 " + field.getSimpleName();
+            }
+            if (accessor(element, field, true) == null || accessor(element, field, false) == null) {
+                return "字段 " + field.getSimpleName() + " 没有getter/setter";
+            }
+        }
+        return null;
+    }
+
+    private boolean hasNoArgConstructor(TypeElement element) {
+        if (hasLombok(element, "NoArgsConstructor")) {
+            return true;
+        }
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(element.getEnclosedElements());
+        if (constructors.isEmpty()) {
+            // 编译器生成默认构造函数，除非Lombok会生成带参数的构造函数
+            return !hasLombok(element, "AllArgsConstructor") && !hasLombok(element, "RequiredArgsConstructor")
+                    && !hasLombok(element, "Value");
+        }
+        for (ExecutableElement constructor : constructors) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取字段的访问表达式
+     *
+     * @param getter true获取读取表达式，false获取写入的方法名或字段名
+     * @return 访问器名称，方法名以"()"结尾区分字段，无法访问时返回null
+     */
+    private String accessor(TypeElement owner, VariableElement field, boolean getter) {
+        String name = field.getSimpleName().toString();
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        String method = getter
+                ? (field.asType().getKind() == TypeKind.BOOLEAN ? "is" : "get") + capitalized
+                : "set" + capitalized;
+        for (ExecutableElement candidate : ElementFilter.methodsIn(elements.getAllMembers(owner))) {
+            if (candidate.getSimpleName().contentEquals(method)
+                    && candidate.getParameters().size() == (getter ? 0 : 1)
+                    && !candidate.getModifiers().contains(Modifier.PRIVATE)) {
+                return method + "()";
+            }
+        }
+        // Lombok生成的访问器在处理器运行时可能还不可见
+        Element enclosing = field.getEnclosingElement();
+        if (hasLombok(field, getter ? "Getter" : "Setter") || hasLombok(enclosing, getter ? "Getter" : "Setter")
+                || hasLombok(enclosing, "Data")) {
+            return method + "()";
+        }
+        if (!field.getModifiers().contains(Modifier.PRIVATE) && !field.getModifiers().contains(Modifier.PROTECTED)) {
+            return name;
+        }
+        return null;
+    }
+
+    private static boolean hasLombok(Element element, String annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            Element type = mirror.getAnnotationType().asElement();
+            if (((TypeElement) type).getQualifiedName().contentEquals("lombok." + annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取实例字段，父类字段在前
+     */
+    private List<VariableElement> fields(TypeElement element) {
+        List<VariableElement> result = new ArrayList<>();
+        TypeMirror superclass = element.getSuperclass();
+        if (superclass.getKind() == TypeKind.DECLARED) {
+            TypeElement parent = (TypeElement) types.asElement(superclass);
+            if (!isJdkType(parent)) {
+                result.addAll(fields(parent));
+            }
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (!modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.TRANSIENT)) {
+                result.add(field);
+            }
+        }
+        return result;
+    }
+
+    private boolean isJdkType(TypeElement element) {
+        String name = elements.getPackageOf(element).getQualifiedName().toString();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.")
+                || name.startsWith("sun.");
+    }
+
+    private void generate(TypeElement element) {
+        PackageElement packageElement = elements.getPackageOf(element);
+        String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String typeName = element.getQualifiedName().toString();
+        String simpleName = packageName.isEmpty() ? typeName : typeName.substring(packageName.length() + 1);
+        String codecName = simpleName.replace('.', '_') + CODEC_SUFFIX;
+        String qualifiedCodecName = packageName.isEmpty() ? codecName : packageName + "." + codecName;
+
+        StringBuilder write = new StringBuilder();
+        StringBuilder read = new StringBuilder();
+        StringBuilder schema = new StringBuilder();
+        for (VariableElement field : fields(element)) {
+            appendField(element, field, write, read);
+            schema.append(field.getSimpleName()).append(':').append(schemaType(field.asType())).append(';');
+        }
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * ").append(typeName).append(" 的编解码器，由 ")
+                .append(CodecProcessor.class.getName()).append(" 生成，请勿修改\n */\n")
+                .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("public final class ").append(codecName)
+                .append(" implements ").append(CODEC_PACKAGE).append(".DtoCodec<").append(typeName).append("> {\n\n")
+                .append("    // 字段名和类型的摘要：").append(schema).append("\n")
+                .append("    private static final int SCHEMA_HASH = ").append(schema.toString().hashCode()).append(";\n\n")
+                .append("    @Override\n")
+                .append("    public Class<").append(typeName).append("> getType() {\n")
+                .append("        return ").append(typeName).append(".class;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public void write(").append(CODEC_PACKAGE).append(".CodecOutput out, ")
+                .append(typeName).append(" value) {\n")
+                .append("        out.writeInt(SCHEMA_HASH);\n")
+                .append(write)
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public ").append(typeName).append(" read(").append(CODEC_PACKAGE)
+                .append(".CodecInput in) throws java.io.IOException {\n")
+                .append("        int $schemaHash = in.readInt();\n")
+                .append("        if ($schemaHash != SCHEMA_HASH) {\n")
+                .append("            throw new java.io.IOException(\"").append(typeName)
+                .append(" 的字段定义与对端不一致，本端摘要\" + SCHEMA_HASH + \"，对端摘要\" + $schemaHash);\n")
+                .append("        }\n")
+                .append("        ").append(typeName).append(" value = new ").append(typeName).append("();\n")
+                .append(read)
+                .append("        return value;\n")
+                .append("    }\n")
+                .append("}\n");
+
+        try (Writer writer = filer.createSourceFile(qualifiedCodecName, element).openWriter()) {
+            writer.write(source.toString());
+            codecs.add(qualifiedCodecName);
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "生成编解码器失败: " + e.getMessage(), element);
+        }
+    }
+
+    private void appendField(TypeElement owner, VariableElement field, StringBuilder write, StringBuilder read) {
+        TypeMirror type = field.asType();
+        String get = "value." + accessor(owner, field, true);
+        String set = accessor(owner, field, false);
+        String method;
+        String readExpression;
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+            case SHORT:
+            case CHAR:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE: {
+                String kind = type.getKind().name();
+                method = "write" + kind.charAt(0) + kind.substring(1).toLowerCase();
+                readExpression = "in.read" + kind.charAt(0) + kind.substring(1).toLowerCase() + "()";
+                break;
+            }
+            default:
+                if (isType(type, "java.lang.String")) {
+                    method = "writeString";
+                    readExpression = "in.readString()";
+                } else if (type.getKind() == TypeKind.ARRAY
+                        && ((ArrayType) type).getComponentType().getKind() == TypeKind.BYTE) {
+                    method = "writeBytes";
+                    readExpression = "in.readBytes()";
+                } else if (type.getKind() == TypeKind.DECLARED
+                        && ((DeclaredType) type).asElement().getKind() == ElementKind.ENUM) {
+                    // 枚举按名称写出，局部变量加$前缀避免与value、out、in重名
+                    String enumName = types.erasure(type).toString();
+                    String local = "$" + field.getSimpleName();
+                    write.append("        ").append(enumName).append(" ").append(local).append(" = ").append(get)
+                            .append(";\n        out.writeString(").append(local).append(" == null ? null : ")
+                            .append(local).append(".name());\n");
+                    read.append("        String ").append(local).append(" = in.readString();\n");
+                    appendSet(read, set, local + " == null ? null : " + enumName + ".valueOf(" + local + ")");
+                    return;
+                } else {
+                    method = "writeObject";
+                    readExpression = "(" + types.erasure(type) + ") in.readObject()";
+                }
+        }
+        write.append("        out.").append(method).append("(").append(get).append(");\n");
+        appendSet(read, set, readExpression);
+    }
+
+    private static void appendSet(StringBuilder read, String set, String expression) {
+        if (set.endsWith("()")) {
+            read.append("        value.").append(set, 0, set.length() - 2).append("(").append(expression).append(");\n");
+        } else {
+            read.append("        value.").append(set).append(" = ").append(expression).append(";\n");
+        }
+    }
+
+    /**
+     * 摘要中使用的类型名，去掉泛型参数和类型注解，保证两端编译结果一致
+     */
+    private String schemaType(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return schemaType(((ArrayType) type).getComponentType()) + "[]";
+            case DECLARED:
+                return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+            default:
+                return type.getKind().name().toLowerCase();
+        }
+    }
+
+    private boolean isType(TypeMirror type, String name) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(name);
+    }
+
+    private void writeServiceFile() {
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (String codec : codecs) {
+                    writer.write(codec);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "写入 " + SERVICE_FILE + " 失败: " + e.getMessage());
+        }
+    }
+}
@@ -1,17 +1,144 @@
 package com.simplerpc;
 
-//TIP 要<b>运行</b>代码，请按 <shortcut actionId="Run"/> 或
-// 点击装订区域中的 <icon src="AllIcons.Actions.Execute"/> 图标。
+import com.simplerpc.bench.EchoService;
+import com.simplerpc.bench.LoadGenerator;
+import com.simplerpc.bench.LoadGeneratorConfig;
+import com.simplerpc.bench.LoadResult;
+import com.simplerpc.bench.impl.EchoServiceImpl;
+import com.simplerpc.common.URL;
+import com.simplerpc.loadbalance.OutlierDetector;
+import com.simplerpc.loadbalance.impl.RandomLoadBalancer;
+import com.simplerpc.proxy.InJvmConfig;
+import com.simplerpc.proxy.RetryBudget;
+import com.simplerpc.proxy.RpcProxyFactory;
+import com.simplerpc.registry.local.LocalServiceRegistry;
+import com.simplerpc.serialize.Serializer;
+import com.simplerpc.serialize.impl.CodecSerializer;
+import com.simplerpc.serialize.impl.HessianSerializer;
+import com.simplerpc.serialize.impl.JsonSerializer;
+import com.simplerpc.transport.netty.NettyRpcClient;
+import com.simplerpc.transport.netty.NettyRpcServer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 压测命令行入口
+ * <p>
+ * local：在进程内启动回显服务并压测；server：只启动回显服务；client：压测远程回显服务。
+ */
 public class Main {
-    public static void main(String[] args) {
-        //TIP 当文本光标位于高亮显示的文本处时按 <shortcut actionId="ShowIntentionActions"/>
-        // 查看 IntelliJ IDEA 建议如何修正。
-        System.out.printf("Hello and welcome!");
-
-        for (int i = 1; i <= 5; i++) {
-            //TIP 按 <shortcut actionId="Debug"/> 开始调试代码。我们已经设置了一个 <icon src="AllIcons.Debugger.Db_set_breakpoint"/> 断点
-            // 但您始终可以通过按 <shortcut actionId="ToggleLineBreakpoint"/> 添加更多断点。
-            System.out.println("i = " + i);
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "用法: java com.simplerpc.Main [local|server|client] [选项]",
+            "  --host 目标主机            默认127.0.0.1，仅client模式",
+            "  --port 端口                默认9000",
+            "  --rate 每秒请求数          默认1000",
+            "  --duration 统计时长(秒)    默认10",
+            "  --warmup 预热时长(秒)      默认2",
+            "  --threads 调用线程数       默认64",
+            "  --payload 请求字节数       默认128",
+            "  --response 响应字节数      默认128，-1表示原样返回",
+            "  --service-time 处理耗时(微秒) 默认0",
+            "  --timeout 调用超时(毫秒)   默认1000",
+            "  --serializer hessian|json|codec 默认hessian");
+
+    public static void main(String[] args) throws Exception {
+        boolean hasMode = args.length > 0 && !args[0].startsWith("--");
+        String mode = hasMode ? args[0] : "local";
+        Map<String, String> options = parseOptions(args, hasMode ? 1 : 0);
+        if (options == null) {
+            System.err.println(USAGE);
+            System.exit(1);
+            return;
+        }
+
+        int port = Integer.parseInt(options.getOrDefault("port", "9000"));
+        Serializer serializer = serializer(options.getOrDefault("serializer", "hessian"));
+
+        switch (mode) {
+            case "server":
+                Runtime.getRuntime().addShutdownHook(new Thread(startServer(port, serializer, options)::stop));
+                // 阻塞直到进程被终止
+                new CountDownLatch(1).await();
+                break;
+            case "client":
+                runClient(new URL(options.getOrDefault("host", "127.0.0.1"), port), serializer, options);
+                break;
+            case "local":
+                NettyRpcServer server = startServer(port, serializer, options);
+                try {
+                    runClient(new URL("127.0.0.1", port), serializer, options);
+                } finally {
+                    server.stop();
+                }
+                break;
+            default:
+                System.err.println(USAGE);
+                System.exit(1);
+        }
+    }
+
+    private static NettyRpcServer startServer(int port, Serializer serializer, Map<String, String> options) {
+        NettyRpcServer server = new NettyRpcServer(serializer);
+        server.addService(EchoService.class.getName(), new EchoServiceImpl(
+                Integer.parseInt(options.getOrDefault("response", "128")),
+                Long.parseLong(options.getOrDefault("service-time", "0"))));
+        server.start(port);
+        return server;
+    }
+
+    private static void runClient(URL target, Serializer serializer, Map<String, String> options)
+            throws InterruptedException {
+        LoadGeneratorConfig config = new LoadGeneratorConfig();
+        config.setRate(Integer.parseInt(options.getOrDefault("rate", "1000")));
+        config.setDurationSeconds(Integer.parseInt(options.getOrDefault("duration", "10")));
+        config.setWarmupSeconds(Integer.parseInt(options.getOrDefault("warmup", "2")));
+        config.setThreads(Integer.parseInt(options.getOrDefault("threads", "64")));
+        config.setPayloadSize(Integer.parseInt(options.getOrDefault("payload", "128")));
+        long timeout = Long.parseLong(options.getOrDefault("timeout", "1000"));
+
+        LocalServiceRegistry registry = new LocalServiceRegistry();
+        registry.register(EchoService.class.getName(), target);
+        NettyRpcClient client = new NettyRpcClient(serializer);
+        try {
+            // local模式下服务端在同一进程，压测的必须是网络调用
+            InJvmConfig inJvmConfig = new InJvmConfig();
+            inJvmConfig.setEnabled(false);
+            EchoService service = new RpcProxyFactory(client, registry, new RandomLoadBalancer(), new RetryBudget(),
+                    new OutlierDetector(), inJvmConfig).create(EchoService.class, "", timeout);
+            LoadResult result = new LoadGenerator(service, config).run();
+            result.print(System.out);
+        } finally {
+            client.close();
+        }
+    }
+
+    private static Serializer serializer(String name) {
+        switch (name.toLowerCase()) {
+            case "json":
+                return new JsonSerializer();
+            case "codec":
+                return new CodecSerializer();
+            default:
+                return new HessianSerializer();
+        }
+    }
+
+    /**
+     * 解析 --key value 形式的选项
+     *
+     * @return 选项映射，格式错误时返回null
+     */
+    private static Map<String, String> parseOptions(String[] args, int from) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = from; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                return null;
+            }
+            options.put(args[i].substring(2), args[i + 1]);
         }
+        return options;
     }
-}
\ No newline at end of file
+}
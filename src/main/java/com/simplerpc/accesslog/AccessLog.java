@@ -0,0 +1,310 @@
+package com.simplerpc.accesslog;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 二进制访问日志
+ * <p>
+ * 每次调用记为一条32字节的定长记录，先写入无锁环形缓冲区，再由后台线程顺序写入内存映射文件，
+ * 文件写满后滚动。缓冲区满时直接丢弃记录并计数，不会阻塞调用线程。
+ * <p>
+ * 记录格式（大端）：
+ * | 时间戳毫秒(8) | 方法ID(4) | 耗时微秒(4) | 请求字节数(4) | 响应字节数(4) | 状态码(2) | 端(1) | 保留(5) |
+ * <p>
+ * 方法ID与"服务名#方法名"的对应关系追加写入同目录下的 {前缀}.methods 文件。启动时先读入已有的字典，
+ * 沿用其中的方法ID并从最大ID之后继续分配，之前运行留下的日志文件仍能对应到正确的方法名。
+ */
+@Slf4j
+public class AccessLog implements Closeable {
+
+    /**
+     * 单条记录的字节数
+     */
+    public static final int RECORD_SIZE = 32;
+
+    /**
+     * 日志文件扩展名
+     */
+    public static final String FILE_SUFFIX = ".alog";
+
+    /**
+     * 方法字典文件扩展名
+     */
+    public static final String METHODS_SUFFIX = ".methods";
+
+    /**
+     * 客户端记录
+     */
+    public static final byte SIDE_CLIENT = 1;
+
+    /**
+     * 服务端记录
+     */
+    public static final byte SIDE_SERVER = 2;
+
+    // 每条记录在环形缓冲区中占用的long个数
+    private static final int SLOT_LONGS = 4;
+
+    private final File directory;
+    private final String prefix;
+    private final long fileSize;
+    private final int maxFiles;
+
+    private final int mask;
+    private final long[] slots;
+    // 每个槽位已发布的序号+1，消费者据此判断记录是否写完
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    private final LongAdder dropped = new LongAdder();
+
+    // 服务名 -> 方法名 -> 方法ID
+    private final Map<String, Map<String, Integer>> methodIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextMethodId = new AtomicInteger(1);
+    private final Writer methodsWriter;
+
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    // 当前写入的文件映射和文件时间戳，只由写入线程访问
+    private MappedByteBuffer currentBuffer;
+    private long lastFileStamp;
+
+    /**
+     * 构造函数
+     *
+     * @param directory    日志目录
+     * @param prefix       文件名前缀
+     * @param ringCapacity 环形缓冲区容量（记录数），向上取整为2的幂
+     * @param fileSize     单个日志文件大小，单位字节
+     * @param maxFiles     保留的日志文件数
+     */
+    public AccessLog(File directory, String prefix, int ringCapacity, long fileSize, int maxFiles) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("无法创建访问日志目录: " + directory);
+        }
+        this.directory = directory;
+        this.prefix = prefix;
+        this.fileSize = fileSize - fileSize % RECORD_SIZE;
+        this.maxFiles = maxFiles;
+
+        int capacity = Integer.highestOneBit(Math.max(2, ringCapacity - 1)) << 1;
+        this.mask = capacity - 1;
+        this.slots = new long[capacity * SLOT_LONGS];
+        this.published = new AtomicLongArray(capacity);
+        loadMethods(new File(directory, prefix + METHODS_SUFFIX));
+        this.methodsWriter = new FileWriter(new File(directory, prefix + METHODS_SUFFIX), StandardCharsets.UTF_8, true);
+
+        this.writerThread = new Thread(this::drainLoop, "rpc-access-log");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * 构造函数，使用默认参数：64K条缓冲，单文件64MB，保留10个文件
+     *
+     * @param directory 日志目录
+     * @param prefix    文件名前缀
+     */
+    public AccessLog(File directory, String prefix) throws IOException {
+        this(directory, prefix, 64 * 1024, 64L * 1024 * 1024, 10);
+    }
+
+    /**
+     * 获取方法ID，首次出现时分配并写入方法字典
+     *
+     * @param service 服务名
+     * @param method  方法名
+     * @return 方法ID
+     */
+    public int methodId(String service, String method) {
+        Map<String, Integer> serviceMethods = methodIds.get(service);
+        if (serviceMethods == null) {
+            serviceMethods = methodIds.computeIfAbsent(service, key -> new ConcurrentHashMap<>());
+        }
+        Integer id = serviceMethods.get(method);
+        if (id == null) {
+            id = serviceMethods.computeIfAbsent(method, key -> registerMethod(service + "#" + key));
+        }
+        return id;
+    }
+
+    /**
+     * 追加一条记录，缓冲区满时丢弃
+     *
+     * @param methodId      方法ID
+     * @param latencyNanos  耗时，单位纳秒
+     * @param statusCode    状态码
+     * @param requestBytes  请求字节数
+     * @param responseBytes 响应字节数
+     * @param side          客户端或服务端
+     * @return 是否写入缓冲区
+     */
+    public boolean append(int methodId, long latencyNanos, int statusCode,
+                          int requestBytes, int responseBytes, byte side) {
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - consumed > mask) {
+                dropped.increment();
+                return false;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+
+        int index = (int) (seq & mask);
+        int base = index * SLOT_LONGS;
+        slots[base] = System.currentTimeMillis();
+        slots[base + 1] = ((long) methodId << 32) | (Math.min(latencyNanos / 1000, 0xFFFFFFFFL) & 0xFFFFFFFFL);
+        slots[base + 2] = ((long) requestBytes << 32) | (responseBytes & 0xFFFFFFFFL);
+        slots[base + 3] = ((long) (statusCode & 0xFFFF) << 8) | (side & 0xFF);
+        published.lazySet(index, seq + 1);
+        return true;
+    }
+
+    /**
+     * 获取因缓冲区满而丢弃的记录数
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * 读入已有的方法字典，同一方法出现多次时以最后一次为准，与 {@link AccessLogReader} 一致
+     */
+    private void loadMethods(File methodsFile) throws IOException {
+        if (!methodsFile.isFile()) {
+            return;
+        }
+        int maxId = 0;
+        for (String line : Files.readAllLines(methodsFile.toPath(), StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            int hash = line.lastIndexOf('#');
+            if (tab <= 0 || hash <= tab) {
+                continue;
+            }
+            int id;
+            try {
+                id = Integer.parseInt(line.substring(0, tab));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            methodIds.computeIfAbsent(line.substring(tab + 1, hash), key -> new ConcurrentHashMap<>())
+                    .put(line.substring(hash + 1), id);
+            maxId = Math.max(maxId, id);
+        }
+        nextMethodId.set(maxId + 1);
+    }
+
+    private Integer registerMethod(String name) {
+        int id = nextMethodId.getAndIncrement();
+        synchronized (methodsWriter) {
+            try {
+                methodsWriter.write(id + "\t" + name + "\n");
+                methodsWriter.flush();
+            } catch (IOException e) {
+                log.warn("写入访问日志方法字典失败: {}", name, e);
+            }
+        }
+        return id;
+    }
+
+    private void drainLoop() {
+        long seq = 0;
+        while (running || seq < claimed.get()) {
+            int index = (int) (seq & mask);
+            if (published.get(index) != seq + 1) {
+                if (!running && seq >= claimed.get()) {
+                    break;
+                }
+                LockSupport.parkNanos(100_000);
+                continue;
+            }
+            try {
+                writeRecord(index * SLOT_LONGS);
+            } catch (IOException e) {
+                log.warn("写入访问日志失败", e);
+            }
+            consumed = ++seq;
+        }
+        closeCurrentFile();
+    }
+
+    private void writeRecord(int base) throws IOException {
+        if (currentBuffer == null || currentBuffer.remaining() < RECORD_SIZE) {
+            rotate();
+        }
+        long packed = slots[base + 3];
+        currentBuffer.putLong(slots[base]);
+        currentBuffer.putInt((int) (slots[base + 1] >>> 32));
+        currentBuffer.putInt((int) slots[base + 1]);
+        currentBuffer.putInt((int) (slots[base + 2] >>> 32));
+        currentBuffer.putInt((int) slots[base + 2]);
+        currentBuffer.putShort((short) (packed >>> 8));
+        currentBuffer.put((byte) packed);
+        // 保留字段，文件创建时已填充为0
+        currentBuffer.position(currentBuffer.position() + 5);
+    }
+
+    private void rotate() throws IOException {
+        closeCurrentFile();
+        // 文件名中的时间戳保证递增，同一毫秒内多次滚动也不会覆盖
+        lastFileStamp = Math.max(System.currentTimeMillis(), lastFileStamp + 1);
+        File file = new File(directory, prefix + "." + lastFileStamp + FILE_SUFFIX);
+        // 映射建立后关闭文件不影响映射区域的读写
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(fileSize);
+            currentBuffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+        }
+        deleteExpiredFiles();
+    }
+
+    private void closeCurrentFile() {
+        if (currentBuffer != null) {
+            currentBuffer.force();
+            currentBuffer = null;
+        }
+    }
+
+    private void deleteExpiredFiles() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(prefix + ".") && name.endsWith(FILE_SUFFIX));
+        if (files == null || files.length <= maxFiles) {
+            return;
+        }
+        Arrays.sort(files);
+        for (int i = 0; i < files.length - maxFiles; i++) {
+            if (!files[i].delete()) {
+                log.warn("删除过期访问日志失败: {}", files[i]);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            writerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        methodsWriter.close();
+    }
+}
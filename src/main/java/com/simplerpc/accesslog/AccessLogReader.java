@@ -0,0 +1,111 @@
+package com.simplerpc.accesslog;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 访问日志读取工具，将二进制访问日志转换为文本
+ * <p>
+ * 用法：java com.simplerpc.accesslog.AccessLogReader 日志目录 文件名前缀
+ * <p>
+ * 输出列：时间 端 方法 状态码 耗时(微秒) 请求字节数 响应字节数
+ */
+public class AccessLogReader {
+
+    private final File directory;
+    private final String prefix;
+    private final Map<Integer, String> methods = new HashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param directory 日志目录
+     * @param prefix    文件名前缀
+     */
+    public AccessLogReader(File directory, String prefix) throws IOException {
+        this.directory = directory;
+        this.prefix = prefix;
+        File methodsFile = new File(directory, prefix + AccessLog.METHODS_SUFFIX);
+        if (methodsFile.isFile()) {
+            for (String line : Files.readAllLines(methodsFile.toPath(), StandardCharsets.UTF_8)) {
+                int tab = line.indexOf('\t');
+                if (tab > 0) {
+                    methods.put(Integer.parseInt(line.substring(0, tab)), line.substring(tab + 1));
+                }
+            }
+        }
+    }
+
+    /**
+     * 按时间顺序列出日志文件
+     */
+    public List<File> listFiles() {
+        File[] files = directory.listFiles((dir, name) ->
+                name.startsWith(prefix + ".") && name.endsWith(AccessLog.FILE_SUFFIX));
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+
+    /**
+     * 将日志文件中的记录逐条输出为文本，遇到未写入的区域即停止
+     *
+     * @param file 日志文件
+     * @param out  输出流
+     * @return 输出的记录数
+     */
+    public long print(File file, PrintStream out) throws IOException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        long count = 0;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            while (buffer.remaining() >= AccessLog.RECORD_SIZE) {
+                int start = buffer.position();
+                long timestamp = buffer.getLong();
+                if (timestamp == 0) {
+                    break;
+                }
+                int methodId = buffer.getInt();
+                long latencyMicros = buffer.getInt() & 0xFFFFFFFFL;
+                int requestBytes = buffer.getInt();
+                int responseBytes = buffer.getInt();
+                int statusCode = buffer.getShort() & 0xFFFF;
+                byte side = buffer.get();
+                buffer.position(start + AccessLog.RECORD_SIZE);
+
+                out.printf("%s %s %s %d %d %d %d%n", format.format(new Date(timestamp)),
+                        side == AccessLog.SIDE_CLIENT ? "CLIENT" : "SERVER",
+                        methods.getOrDefault(methodId, "#" + methodId),
+                        statusCode, latencyMicros, requestBytes, responseBytes);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: AccessLogReader <日志目录> <文件名前缀>");
+            System.exit(1);
+        }
+        AccessLogReader reader = new AccessLogReader(new File(args[0]), args[1]);
+        for (File file : reader.listFiles()) {
+            reader.print(file, System.out);
+        }
+    }
+}
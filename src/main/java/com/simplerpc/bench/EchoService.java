@@ -0,0 +1,15 @@
+package com.simplerpc.bench;
+
+/**
+ * 压测用的回显服务
+ */
+public interface EchoService {
+
+    /**
+     * 回显请求
+     *
+     * @param payload 请求负载
+     * @return 响应负载，长度由服务端配置决定
+     */
+    byte[] echo(byte[] payload);
+}
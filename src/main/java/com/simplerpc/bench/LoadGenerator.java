@@ -0,0 +1,90 @@
+package com.simplerpc.bench;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开环压测器
+ * <p>
+ * 按固定速率安排请求的计划开始时间，与响应快慢无关。第i个请求的计划开始时间为
+ * 开始时间 + i / 速率，由第 i % 线程数 个线程负责发送。某个请求变慢时，同一线程后续请求的发送会推迟，
+ * 但延迟仍从计划开始时间计算，因此排队造成的等待会体现在结果中，不会像闭环压测那样被掩盖。
+ */
+@Slf4j
+public class LoadGenerator {
+
+    private final EchoService service;
+    private final LoadGeneratorConfig config;
+
+    /**
+     * 构造函数
+     *
+     * @param service 被压测的服务代理
+     * @param config  压测配置
+     */
+    public LoadGenerator(EchoService service, LoadGeneratorConfig config) {
+        this.service = service;
+        this.config = config;
+    }
+
+    /**
+     * 执行压测，阻塞直到全部请求完成
+     *
+     * @return 统计阶段的结果，不含预热
+     */
+    public LoadResult run() throws InterruptedException {
+        int rate = config.getRate();
+        int threads = config.getThreads();
+        long intervalNanos = 1_000_000_000L / rate;
+        long warmupRequests = (long) rate * config.getWarmupSeconds();
+        long totalRequests = warmupRequests + (long) rate * config.getDurationSeconds();
+        byte[] payload = new byte[config.getPayloadSize()];
+
+        LoadResult result = new LoadResult(rate);
+        CountDownLatch done = new CountDownLatch(threads);
+        long startNanos = System.nanoTime() + 10_000_000;
+
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    for (long i = first; i < totalRequests; i += threads) {
+                        long intendedNanos = startNanos + i * intervalNanos;
+                        long waitNanos;
+                        while ((waitNanos = intendedNanos - System.nanoTime()) > 0) {
+                            LockSupport.parkNanos(waitNanos);
+                        }
+                        long sendNanos = System.nanoTime();
+                        boolean success;
+                        try {
+                            service.echo(payload);
+                            success = true;
+                        } catch (RuntimeException e) {
+                            success = false;
+                        }
+                        if (i < warmupRequests) {
+                            continue;
+                        }
+                        if (success) {
+                            result.record(intendedNanos, sendNanos, System.nanoTime());
+                        } else {
+                            result.recordError();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-generator-" + t);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        log.info("开始压测: 速率{}/s, 预热{}s, 统计{}s, 线程数{}",
+                rate, config.getWarmupSeconds(), config.getDurationSeconds(), threads);
+        done.await();
+        result.setDurationNanos(System.nanoTime() - (startNanos + warmupRequests * intervalNanos));
+        return result;
+    }
+}
@@ -0,0 +1,34 @@
+package com.simplerpc.bench;
+
+import lombok.Data;
+
+/**
+ * 压测配置
+ */
+@Data
+public class LoadGeneratorConfig {
+    /**
+     * 目标到达速率，每秒请求数
+     */
+    private int rate = 1000;
+
+    /**
+     * 统计阶段时长，单位秒
+     */
+    private int durationSeconds = 10;
+
+    /**
+     * 预热时长，单位秒，预热期间的请求不计入结果
+     */
+    private int warmupSeconds = 2;
+
+    /**
+     * 发起调用的线程数，应足以覆盖 速率 × 最大延迟，否则实际速率会低于目标速率
+     */
+    private int threads = 64;
+
+    /**
+     * 请求负载字节数
+     */
+    private int payloadSize = 128;
+}
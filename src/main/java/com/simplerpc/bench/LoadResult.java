@@ -0,0 +1,89 @@
+package com.simplerpc.bench;
+
+import com.simplerpc.metrics.LatencyHistogram;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 压测结果
+ * <p>
+ * 响应时间从请求的计划开始时间算起，包含因前面的请求变慢而推迟发送的时间；
+ * 服务时间从实际发送时间算起，即闭环压测通常报告的数值。两者差距越大，说明排队越严重。
+ */
+@Getter
+public class LoadResult {
+
+    private static final double[] PERCENTILES = {50, 75, 90, 95, 99, 99.9, 99.99, 100};
+
+    private final int targetRate;
+    private final LatencyHistogram responseTime = new LatencyHistogram();
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+    private final LatencyHistogram sendDelay = new LatencyHistogram();
+    @Getter(AccessLevel.NONE)
+    private final LongAdder errors = new LongAdder();
+    private long durationNanos;
+
+    /**
+     * 构造函数
+     *
+     * @param targetRate 目标到达速率
+     */
+    public LoadResult(int targetRate) {
+        this.targetRate = targetRate;
+    }
+
+    void record(long intendedNanos, long sendNanos, long endNanos) {
+        responseTime.record(endNanos - intendedNanos);
+        serviceTime.record(endNanos - sendNanos);
+        sendDelay.record(sendNanos - intendedNanos);
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    void setDurationNanos(long durationNanos) {
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * 获取失败的请求数
+     */
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * 获取实际完成速率，每秒请求数
+     */
+    public double getThroughput() {
+        return durationNanos == 0 ? 0 : responseTime.getCount() * 1e9 / durationNanos;
+    }
+
+    /**
+     * 输出百分位表和吞吐量
+     *
+     * @param out 输出流
+     */
+    public void print(PrintStream out) {
+        out.printf("目标速率: %d/s, 实际吞吐量: %.1f/s, 成功: %d, 失败: %d, 统计时长: %.1fs%n",
+                targetRate, getThroughput(), responseTime.getCount(), getErrors(), durationNanos / 1e9);
+        out.printf("%-10s %16s %16s %16s%n", "百分位", "响应时间(us)", "服务时间(us)", "发送推迟(us)");
+        for (double percentile : PERCENTILES) {
+            out.printf("%-10s %16d %16d %16d%n", percentile + "%",
+                    micros(responseTime.getValueAtPercentile(percentile)),
+                    micros(serviceTime.getValueAtPercentile(percentile)),
+                    micros(sendDelay.getValueAtPercentile(percentile)));
+        }
+        out.printf("%-10s %16.1f %16.1f %16.1f%n", "mean",
+                responseTime.getMean() / 1000, serviceTime.getMean() / 1000, sendDelay.getMean() / 1000);
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
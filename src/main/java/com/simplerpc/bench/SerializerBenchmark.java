@@ -0,0 +1,108 @@
+package com.simplerpc.bench;
+
+import com.caucho.hessian.io.Hessian2Input;
+import com.caucho.hessian.io.Hessian2Output;
+import com.simplerpc.common.RpcRequest;
+import com.simplerpc.common.RpcResponse;
+import com.simplerpc.serialize.Serializer;
+import com.simplerpc.serialize.impl.CodecSerializer;
+import com.simplerpc.serialize.impl.HessianSerializer;
+import com.simplerpc.serialize.impl.JsonSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 序列化器单线程基准，测量一次请求加响应往返（各序列化、反序列化一次）的耗时和分配字节数
+ * <p>
+ * UnpooledHessianSerializer 是复用流和SerializerFactory之前的Hessian实现，作为HessianSerializer的对比基线。
+ * <p>
+ * 用法: java com.simplerpc.bench.SerializerBenchmark [迭代次数] [负载字节数]
+ */
+public class SerializerBenchmark {
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int payloadSize = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+
+        RpcRequest request = new RpcRequest();
+        request.setRequestId(UUID.randomUUID().toString());
+        request.setInterfaceName(EchoService.class.getName());
+        request.setMethodName("echo");
+        request.setParameterTypes(new Class<?>[]{byte[].class});
+        request.setParameters(new Object[]{new byte[payloadSize]});
+        request.setVersion("");
+        request.setTimeout(1000);
+        Map<String, String> attachments = new HashMap<>();
+        attachments.put("traceparent", "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01");
+        request.setAttachments(attachments);
+        RpcResponse response = RpcResponse.success(request.getRequestId(), new byte[payloadSize]);
+
+        Serializer[] serializers = {new UnpooledHessianSerializer(), new HessianSerializer(), new JsonSerializer(),
+                new CodecSerializer()};
+        System.out.printf("%-20s %12s %14s%n", "序列化器", "耗时(ns/op)", "分配(B/op)");
+        for (Serializer serializer : serializers) {
+            // 预热
+            run(serializer, request, response, Math.max(1, iterations / 5));
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            run(serializer, request, response, iterations);
+            long elapsed = System.nanoTime() - start;
+            long allocated = allocatedBytes() - allocatedBefore;
+            System.out.printf("%-20s %12d %14s%n", serializer.getClass().getSimpleName(), elapsed / iterations,
+                    allocatedBefore < 0 ? "-" : String.valueOf(allocated / iterations));
+        }
+    }
+
+    private static void run(Serializer serializer, RpcRequest request, RpcResponse response, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            serializer.deserialize(serializer.serialize(request), RpcRequest.class);
+            serializer.deserialize(serializer.serialize(response), RpcResponse.class);
+        }
+    }
+
+    /**
+     * 当前线程累计分配的字节数，JVM不支持时返回-1
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * 每次调用都新建流和Hessian2Input/Hessian2Output，使用默认的SerializerFactory
+     */
+    private static final class UnpooledHessianSerializer implements Serializer {
+        @Override
+        public byte[] serialize(Object obj) {
+            try (ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
+                Hessian2Output output = new Hessian2Output(bos);
+                output.writeObject(obj);
+                output.flush();
+                return bos.toByteArray();
+            } catch (IOException e) {
+                throw new RuntimeException("Hessian序列化失败", e);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T deserialize(byte[] bytes, Class<T> clazz) {
+            try (ByteArrayInputStream bis = new ByteArrayInputStream(bytes)) {
+                Hessian2Input input = new Hessian2Input(bis);
+                return (T) input.readObject(clazz);
+            } catch (IOException e) {
+                throw new RuntimeException("Hessian反序列化失败", e);
+            }
+        }
+    }
+}
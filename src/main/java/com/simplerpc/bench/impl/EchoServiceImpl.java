@@ -0,0 +1,38 @@
+package com.simplerpc.bench.impl;
+
+import com.simplerpc.bench.EchoService;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 回显服务实现，可配置响应大小和模拟的处理耗时
+ */
+public class EchoServiceImpl implements EchoService {
+
+    private final int responseSize;
+    private final long serviceTimeNanos;
+
+    /**
+     * 构造函数
+     *
+     * @param responseSize      响应字节数，小于0时原样返回请求负载
+     * @param serviceTimeMicros 模拟的处理耗时，单位微秒
+     */
+    public EchoServiceImpl(int responseSize, long serviceTimeMicros) {
+        this.responseSize = responseSize;
+        this.serviceTimeNanos = TimeUnit.MICROSECONDS.toNanos(serviceTimeMicros);
+    }
+
+    @Override
+    public byte[] echo(byte[] payload) {
+        if (serviceTimeNanos > 0) {
+            long deadline = System.nanoTime() + serviceTimeNanos;
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+        return responseSize < 0 ? payload : new byte[responseSize];
+    }
+}
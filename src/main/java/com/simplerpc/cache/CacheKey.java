@@ -0,0 +1,27 @@
+package com.simplerpc.cache;
+
+import java.util.Arrays;
+
+/**
+ * 缓存键，按参数值比较，数组参数按内容比较
+ */
+final class CacheKey {
+
+    private final Object[] args;
+    private final int hash;
+
+    CacheKey(Object[] args) {
+        this.args = args == null ? new Object[0] : args.clone();
+        this.hash = Arrays.deepHashCode(this.args);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof CacheKey && Arrays.deepEquals(args, ((CacheKey) o).args));
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
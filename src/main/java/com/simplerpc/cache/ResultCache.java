@@ -0,0 +1,147 @@
+package com.simplerpc.cache;
+
+import com.simplerpc.common.annotation.RpcCacheable;
+import com.simplerpc.metrics.MethodMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 单个方法的调用结果缓存
+ * <p>
+ * 容量有限，按LRU淘汰，条目超过有效期后失效。开启提前刷新时，命中即将过期的条目会立即返回旧值，
+ * 同时在后台重新调用一次远程方法更新缓存，避免热点条目过期瞬间的调用全部打到服务端。
+ */
+@Slf4j
+public class ResultCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long refreshAheadNanos;
+    private final Executor refreshExecutor;
+    private final MethodMetrics metrics;
+    private final Map<CacheKey, CachedValue> entries;
+
+    /**
+     * 构造函数
+     *
+     * @param cacheable       缓存配置
+     * @param refreshExecutor 执行提前刷新的线程池
+     * @param metrics         方法指标，记录命中和未命中次数
+     */
+    public ResultCache(RpcCacheable cacheable, Executor refreshExecutor, MethodMetrics metrics) {
+        this.maxSize = cacheable.maxSize();
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(cacheable.ttl());
+        this.refreshAheadNanos = TimeUnit.MILLISECONDS.toNanos(cacheable.refreshAhead());
+        this.refreshExecutor = refreshExecutor;
+        this.metrics = metrics;
+        // 访问顺序的LinkedHashMap即LRU
+        this.entries = new LinkedHashMap<CacheKey, CachedValue>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedValue> eldest) {
+                if (size() > ResultCache.this.maxSize) {
+                    metrics.onCacheEviction();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存结果，未命中或已过期时调用loader并缓存结果
+     *
+     * @param args   调用参数
+     * @param loader 远程调用
+     * @return 调用结果
+     */
+    public Object get(Object[] args, Supplier<Object> loader) {
+        CacheKey key = new CacheKey(args);
+        long now = System.nanoTime();
+        CachedValue entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && now - entry.expireNanos < 0) {
+            metrics.onCacheHit();
+            if (refreshAheadNanos > 0 && entry.expireNanos - now < refreshAheadNanos && entry.markRefreshing()) {
+                refresh(key, loader);
+            }
+            return entry.value;
+        }
+
+        metrics.onCacheMiss();
+        Object value = loader.get();
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * 获取当前缓存的条目数
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void put(CacheKey key, Object value) {
+        CachedValue entry = new CachedValue(value, System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    private void refresh(CacheKey key, Supplier<Object> loader) {
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    put(key, loader.get());
+                } catch (RuntimeException e) {
+                    // 刷新失败时保留旧值直到过期，由后续调用重新加载
+                    log.debug("提前刷新缓存失败", e);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.debug("提前刷新任务提交失败", e);
+        }
+    }
+
+    /**
+     * 缓存条目，null结果同样缓存
+     */
+    private static final class CachedValue {
+        private final Object value;
+        private final long expireNanos;
+        private volatile boolean refreshing;
+
+        CachedValue(Object value, long expireNanos) {
+            this.value = value;
+            this.expireNanos = expireNanos;
+        }
+
+        /**
+         * 标记为刷新中，保证每个条目只触发一次刷新
+         */
+        synchronized boolean markRefreshing() {
+            if (refreshing) {
+                return false;
+            }
+            refreshing = true;
+            return true;
+        }
+    }
+}
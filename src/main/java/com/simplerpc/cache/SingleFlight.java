@@ -0,0 +1,73 @@
+package com.simplerpc.cache;
+
+import com.simplerpc.metrics.MethodMetrics;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 单个方法的请求合并
+ * <p>
+ * 第一个调用者负责发出远程请求，参数相同的后续调用者等待它完成。每个等待者按自己的超时时间等待，
+ * 超时只影响该等待者本身，不会取消共享的请求。请求结束后立即移除，不缓存结果。
+ */
+public class SingleFlight {
+
+    private final MethodMetrics metrics;
+    private final Map<CacheKey, CompletableFuture<Object>> inflight = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param metrics 方法指标，记录被合并的调用次数
+     */
+    public SingleFlight(MethodMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 执行调用，参数相同的请求正在进行时等待其结果
+     *
+     * @param args          调用参数
+     * @param timeoutMillis 等待的超时时间，单位毫秒，小于等于0表示不限制
+     * @param loader        远程调用
+     * @return 调用结果
+     */
+    public Object execute(Object[] args, long timeoutMillis, Supplier<Object> loader) {
+        CacheKey key = new CacheKey(args);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inflight.putIfAbsent(key, future);
+        if (existing == null) {
+            try {
+                Object value = loader.get();
+                future.complete(value);
+                return value;
+            } catch (Throwable e) {
+                // Error也要通知等待者，否则不限时的等待者会一直阻塞
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                inflight.remove(key, future);
+            }
+        }
+
+        metrics.onCoalesced();
+        try {
+            return timeoutMillis > 0 ? existing.get(timeoutMillis, TimeUnit.MILLISECONDS) : existing.get();
+        } catch (TimeoutException e) {
+            throw new RuntimeException("等待合并的请求超时: " + timeoutMillis + "ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待合并的请求被中断", e);
+        } catch (ExecutionException e) {
+            // 每个等待者抛出自己的异常，保留调用栈，原始异常作为cause
+            Throwable cause = e.getCause();
+            throw new RuntimeException(cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.simplerpc.capture;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 录制文件中的一条请求
+ */
+@Data
+@AllArgsConstructor
+public class CapturedRequest {
+
+    /**
+     * 距录制开始的纳秒数
+     */
+    private long offsetNanos;
+
+    /**
+     * 原始帧的消息类型，包括单向调用标志
+     */
+    private byte messageType;
+
+    /**
+     * 原始消息体
+     */
+    private byte[] body;
+}
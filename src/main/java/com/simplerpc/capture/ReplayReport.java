@@ -0,0 +1,43 @@
+package com.simplerpc.capture;
+
+import com.simplerpc.metrics.HistogramStats;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 回放结果
+ */
+@Data
+public class ReplayReport {
+
+    /**
+     * 发出的请求数
+     */
+    private long requests;
+
+    /**
+     * 状态码不为成功的请求数
+     */
+    private long errors;
+
+    /**
+     * 从第一个请求发出到最后一个响应返回的时长，单位毫秒
+     */
+    private long durationMillis;
+
+    /**
+     * 每秒完成的请求数
+     */
+    private double throughput;
+
+    /**
+     * 延迟分布，单位微秒，从请求的计划发送时间算起
+     */
+    private HistogramStats latency;
+
+    /**
+     * 各状态码的请求数
+     */
+    private Map<Integer, Long> statusCounts;
+}
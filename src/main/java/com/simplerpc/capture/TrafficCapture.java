@@ -0,0 +1,186 @@
+package com.simplerpc.capture;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 流量录制文件
+ * <p>
+ * 按采样率保存服务端收到的原始请求消息体、消息类型及其相对到达时间，用于之后通过 {@link TrafficReplayer} 回放。
+ * 普通请求、分段请求和单向调用都会录制。
+ * 文件大小固定，创建时以稀疏文件的方式预留空间。消息体超过单条上限或剩余空间放不下的请求跳过，
+ * 之后更小的请求仍会录制，剩余空间连一条最小的记录都放不下时停止录制。
+ * <p>
+ * 文件头（32字节）：| 魔数(4) | 版本(4) | 开始时间戳毫秒(8) | 保留(16) |
+ * <p>
+ * 记录：| 消息体长度(4) | 距开始的纳秒数(8) | 消息类型(1) | 消息体 |，长度为0表示文件结束。
+ * 版本1的记录没有消息类型，都是普通请求。
+ */
+@Slf4j
+public class TrafficCapture implements Closeable {
+
+    /**
+     * 文件魔数 "SRPC"
+     */
+    public static final int MAGIC = 0x53525043;
+
+    /**
+     * 文件格式版本
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * 文件头长度
+     */
+    public static final int HEADER_SIZE = 32;
+
+    /**
+     * 记录头长度
+     */
+    public static final int RECORD_HEADER_SIZE = 13;
+
+    /**
+     * 默认的单条消息体上限
+     */
+    public static final int DEFAULT_MAX_BODY_SIZE = 1024 * 1024;
+
+    private final double sampleRate;
+    private final int maxBodySize;
+    private final long startNanos;
+    private final MappedByteBuffer buffer;
+    private final AtomicInteger position = new AtomicInteger(HEADER_SIZE);
+    private final LongAdder captured = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean full;
+
+    /**
+     * 构造函数，单条消息体上限为 {@link #DEFAULT_MAX_BODY_SIZE}
+     *
+     * @param file       录制文件
+     * @param capacity   文件大小上限，单位字节
+     * @param sampleRate 采样率，取值0到1
+     */
+    public TrafficCapture(File file, int capacity, double sampleRate) throws IOException {
+        this(file, capacity, sampleRate, DEFAULT_MAX_BODY_SIZE);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param file        录制文件
+     * @param capacity    文件大小上限，单位字节
+     * @param sampleRate  采样率，取值0到1
+     * @param maxBodySize 单条消息体上限，单位字节，更大的请求不录制
+     */
+    public TrafficCapture(File file, int capacity, double sampleRate, int maxBodySize) throws IOException {
+        this.sampleRate = sampleRate;
+        this.maxBodySize = maxBodySize;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(0);
+            raf.setLength(capacity);
+            this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+        this.startNanos = System.nanoTime();
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, System.currentTimeMillis());
+    }
+
+    /**
+     * 判断是否录制下一个请求
+     *
+     * @return 需要录制时返回true
+     */
+    public boolean shouldSample() {
+        return !full && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /**
+     * 判断指定长度的消息体能否写入，不能写入时计入丢弃数
+     * <p>
+     * 消息体长度来自未经校验的帧头，录制处理器在分配缓冲区之前先调用本方法。
+     *
+     * @param bodyLength 消息体长度
+     * @return 未超过单条上限且剩余空间足够时返回true
+     */
+    public boolean accept(int bodyLength) {
+        if (full || bodyLength > maxBodySize || RECORD_HEADER_SIZE + (long) bodyLength > remaining()) {
+            dropped.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 追加一条请求记录，消息体超过单条上限或剩余空间不足时丢弃
+     *
+     * @param arrivalNanos 请求到达时的 {@link System#nanoTime()}
+     * @param messageType  帧头中的消息类型，包括单向调用标志
+     * @param body         消息体
+     * @return 是否写入
+     */
+    public boolean append(long arrivalNanos, byte messageType, byte[] body) {
+        if (full || body.length > maxBodySize) {
+            dropped.increment();
+            return false;
+        }
+        int size = RECORD_HEADER_SIZE + body.length;
+        int offset;
+        do {
+            offset = position.get();
+            // 放不下时只跳过这一条，不占用空间
+            if (size > buffer.capacity() - offset) {
+                dropped.increment();
+                return false;
+            }
+        } while (!position.compareAndSet(offset, offset + size));
+        // 各线程写入互不重叠的区域，使用独立的视图避免共享position
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.putInt(body.length);
+        view.putLong(arrivalNanos - startNanos);
+        view.put(messageType);
+        view.put(body);
+        captured.increment();
+        // 剩余空间连一条最小的记录都放不下时停止录制，之后的请求不再采样
+        if (remaining() <= RECORD_HEADER_SIZE && !full) {
+            full = true;
+            log.info("流量录制文件已写满，共录制{}个请求", captured.sum());
+        }
+        return true;
+    }
+
+    /**
+     * 获取已录制的请求数
+     */
+    public long getCaptured() {
+        return captured.sum();
+    }
+
+    /**
+     * 获取因消息体过大或剩余空间不足而丢弃的请求数
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private int remaining() {
+        return buffer.capacity() - position.get();
+    }
+
+    @Override
+    public void close() {
+        full = true;
+        buffer.force();
+    }
+}
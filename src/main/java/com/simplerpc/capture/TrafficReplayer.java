@@ -0,0 +1,257 @@
+package com.simplerpc.capture;
+
+import com.simplerpc.common.Blob;
+import com.simplerpc.common.RpcRequest;
+import com.simplerpc.common.RpcResponse;
+import com.simplerpc.common.RpcStatusCode;
+import com.simplerpc.common.URL;
+import com.simplerpc.metrics.LatencyHistogram;
+import com.simplerpc.metrics.RpcMetrics;
+import com.simplerpc.serialize.Serializer;
+import com.simplerpc.serialize.impl.HessianSerializer;
+import com.simplerpc.serialize.impl.JsonSerializer;
+import com.simplerpc.transport.RpcClient;
+import com.simplerpc.transport.netty.NettyRpcClient;
+import com.simplerpc.transport.netty.codec.MessageType;
+import com.simplerpc.transport.netty.codec.RpcDecoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 流量回放工具，将 {@link TrafficCapture} 录制的请求按原始时间间隔重新发送到目标服务器
+ * <p>
+ * 支持原速、N倍速和不限速回放。延迟从请求的计划发送时间开始计算，
+ * 目标服务器变慢导致发送推迟时，推迟的时间也会计入延迟。
+ * 录制的帧经过 {@link RpcDecoder} 还原，分段请求的数据段一并还原；单向调用仍以单向方式发送，延迟为写入连接的耗时。
+ * <p>
+ * 用法：java com.simplerpc.capture.TrafficReplayer 录制文件 主机:端口 [倍速|max] [录制序列化器] [发送序列化器]
+ */
+@Slf4j
+public class TrafficReplayer {
+
+    private final RpcClient client;
+    private final Serializer captureSerializer;
+    private final int maxInflight;
+
+    /**
+     * 构造函数
+     *
+     * @param client            发送请求的客户端
+     * @param captureSerializer 录制时服务端使用的序列化器
+     * @param maxInflight       最大在途请求数
+     */
+    public TrafficReplayer(RpcClient client, Serializer captureSerializer, int maxInflight) {
+        this.client = client;
+        this.captureSerializer = captureSerializer;
+        this.maxInflight = maxInflight;
+    }
+
+    /**
+     * 读取录制文件
+     *
+     * @param file 录制文件
+     * @return 按录制顺序排列的请求
+     */
+    public static List<CapturedRequest> read(File file) throws IOException {
+        List<CapturedRequest> requests = new ArrayList<>();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            if (buffer.getInt(0) != TrafficCapture.MAGIC) {
+                throw new IOException("不是流量录制文件: " + file);
+            }
+            // 版本1的记录没有消息类型
+            boolean typed = buffer.getInt(4) >= 2;
+            int recordHeaderSize = typed ? TrafficCapture.RECORD_HEADER_SIZE : TrafficCapture.RECORD_HEADER_SIZE - 1;
+            buffer.position(TrafficCapture.HEADER_SIZE);
+            while (buffer.remaining() >= recordHeaderSize) {
+                int length = buffer.getInt();
+                if (length <= 0 || buffer.remaining() < recordHeaderSize - 4 + length) {
+                    break;
+                }
+                long offsetNanos = buffer.getLong();
+                byte messageType = typed ? buffer.get() : MessageType.REQUEST;
+                byte[] body = new byte[length];
+                buffer.get(body);
+                requests.add(new CapturedRequest(offsetNanos, messageType, body));
+            }
+        }
+        // 多个IO线程并发写入，记录之间可能有少量乱序
+        requests.sort((a, b) -> Long.compare(a.getOffsetNanos(), b.getOffsetNanos()));
+        return requests;
+    }
+
+    /**
+     * 回放请求
+     *
+     * @param captured 录制的请求
+     * @param target   目标服务器
+     * @param speed    回放倍速，小于等于0表示不限速
+     * @return 回放结果
+     */
+    public ReplayReport replay(List<CapturedRequest> captured, URL target, double speed) throws InterruptedException {
+        // 预先解码，避免解码耗时干扰发送节奏
+        List<RpcRequest> requests = decode(captured);
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+        Semaphore inflight = new Semaphore(maxInflight);
+        AtomicLong lastCompleteNanos = new AtomicLong();
+        long startNanos = System.nanoTime();
+
+        int sent = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            RpcRequest request = requests.get(i);
+            if (request == null) {
+                continue;
+            }
+            sent++;
+            long intendedNanos = speed > 0
+                    ? startNanos + (long) (captured.get(i).getOffsetNanos() / speed) : System.nanoTime();
+            long waitNanos;
+            while ((waitNanos = intendedNanos - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(waitNanos);
+            }
+            inflight.acquire();
+
+            request.setRequestId(UUID.randomUUID().toString());
+            Runnable complete = () -> releaseBuffers(request);
+            if (request.oneway()) {
+                RpcResponse response = client.sendOneway(target, request);
+                long now = System.nanoTime();
+                histogram.record(now - intendedNanos);
+                statusCounts.computeIfAbsent(response.getStatusCode(), key -> new LongAdder()).increment();
+                lastCompleteNanos.accumulateAndGet(now, Math::max);
+                complete.run();
+                inflight.release();
+                continue;
+            }
+            client.sendAsync(target, request).whenComplete((response, cause) -> {
+                long now = System.nanoTime();
+                histogram.record(now - intendedNanos);
+                int statusCode = cause != null ? RpcStatusCode.UNAVAILABLE : response.getStatusCode();
+                statusCounts.computeIfAbsent(statusCode, key -> new LongAdder()).increment();
+                lastCompleteNanos.accumulateAndGet(now, Math::max);
+                complete.run();
+                inflight.release();
+            });
+        }
+        inflight.acquire(maxInflight);
+        inflight.release(maxInflight);
+
+        ReplayReport report = new ReplayReport();
+        report.setRequests(sent);
+        long durationNanos = Math.max(1, lastCompleteNanos.get() - startNanos);
+        report.setDurationMillis(durationNanos / 1_000_000);
+        report.setThroughput(sent * 1e9 / durationNanos);
+        report.setLatency(histogram.snapshotMicros());
+        Map<Integer, Long> counts = new ConcurrentHashMap<>();
+        long errors = 0;
+        for (Map.Entry<Integer, LongAdder> entry : statusCounts.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().sum());
+            if (entry.getKey() != RpcStatusCode.SUCCESS) {
+                errors += entry.getValue().sum();
+            }
+        }
+        report.setStatusCounts(counts);
+        report.setErrors(errors);
+        return report;
+    }
+
+    /**
+     * 将录制的帧还原为请求
+     *
+     * @return 与录制记录一一对应的请求，无法解码的位置为null
+     */
+    private List<RpcRequest> decode(List<CapturedRequest> captured) {
+        List<RpcRequest> requests = new ArrayList<>(captured.size());
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new RpcDecoder(captureSerializer, RpcRequest.class, RpcMetrics.client()));
+        int skipped = 0;
+        for (CapturedRequest capturedRequest : captured) {
+            byte[] body = capturedRequest.getBody();
+            ByteBuf frame = Unpooled.buffer(5 + body.length);
+            frame.writeInt(body.length).writeByte(capturedRequest.getMessageType()).writeBytes(body);
+            Object decoded;
+            try {
+                channel.writeInbound(frame);
+                decoded = channel.readInbound();
+            } catch (RuntimeException e) {
+                decoded = null;
+            }
+            if (decoded instanceof RpcRequest) {
+                requests.add((RpcRequest) decoded);
+            } else {
+                requests.add(null);
+                skipped++;
+            }
+        }
+        channel.finishAndReleaseAll();
+        if (skipped > 0) {
+            log.warn("{}个录制的请求无法解码，已跳过", skipped);
+        }
+        return requests;
+    }
+
+    /**
+     * 释放分段请求中作为参数的缓冲区
+     */
+    private static void releaseBuffers(RpcRequest request) {
+        if (request.getParameters() != null) {
+            for (Object parameter : request.getParameters()) {
+                Blob.releaseValue(parameter);
+            }
+        }
+    }
+
+    private static Serializer serializer(String name) {
+        return "json".equalsIgnoreCase(name) ? new JsonSerializer() : new HessianSerializer();
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("用法: TrafficReplayer <录制文件> <主机:端口> [倍速|max] [录制序列化器] [发送序列化器]");
+            System.exit(1);
+        }
+        File file = new File(args[0]);
+        String[] address = args[1].split(":");
+        URL target = new URL(address[0], Integer.parseInt(address[1]));
+        double speed = 1;
+        if (args.length > 2) {
+            speed = "max".equalsIgnoreCase(args[2]) ? 0 : Double.parseDouble(args[2]);
+        }
+        Serializer captureSerializer = serializer(args.length > 3 ? args[3] : "hessian");
+        Serializer sendSerializer = args.length > 4 ? serializer(args[4]) : captureSerializer;
+
+        List<CapturedRequest> captured = read(file);
+        log.info("读取录制文件{}，共{}个请求", file, captured.size());
+        NettyRpcClient client = new NettyRpcClient(sendSerializer);
+        try {
+            ReplayReport report = new TrafficReplayer(client, captureSerializer, 1024).replay(captured, target, speed);
+            System.out.printf("请求数: %d, 失败数: %d, 耗时: %dms, 吞吐量: %.1f/s%n", report.getRequests(),
+                    report.getErrors(), report.getDurationMillis(), report.getThroughput());
+            System.out.printf("延迟(us): mean=%.1f p50=%d p90=%d p99=%d p999=%d max=%d%n",
+                    report.getLatency().getMean(), report.getLatency().getP50(), report.getLatency().getP90(),
+                    report.getLatency().getP99(), report.getLatency().getP999(), report.getLatency().getMax());
+            System.out.println("状态码分布: " + report.getStatusCounts());
+        } finally {
+            client.close();
+        }
+    }
+}
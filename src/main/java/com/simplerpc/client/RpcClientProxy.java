@@ -66,7 +66,8 @@ public class RpcClientProxy implements ApplicationContextAware, InitializingBean
                 Object proxy = proxyFactory.create(
                         field.getType(),
                         rpcReference.version(),
-                        rpcReference.timeout());
+                        rpcReference.timeout(),
+                        rpcReference.cluster());
 
                 try {
                     // 注入代理
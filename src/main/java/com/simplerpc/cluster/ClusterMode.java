@@ -0,0 +1,26 @@
+package com.simplerpc.cluster;
+
+/**
+ * 集群调用模式，决定一次调用发往哪些服务提供者以及如何得出结果
+ */
+public enum ClusterMode {
+    /**
+     * 选择一个服务提供者调用，按重试和对冲策略处理失败，默认模式
+     */
+    FAILOVER,
+
+    /**
+     * 并行调用全部服务提供者，全部成功才算成功，失败时汇总各提供者的错误；适用于缓存失效等通知类调用
+     */
+    BROADCAST,
+
+    /**
+     * 并行调用多个服务提供者，采用最先成功的结果并取消其余调用；全部失败时返回最后一个失败
+     */
+    FORKING,
+
+    /**
+     * 并行调用全部服务提供者，全部成功后用 {@link ResultMerger} 合并结果；适用于分片查询
+     */
+    SCATTER_GATHER
+}
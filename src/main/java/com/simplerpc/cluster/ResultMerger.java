@@ -0,0 +1,19 @@
+package com.simplerpc.cluster;
+
+import java.util.List;
+
+/**
+ * 结果合并器，用于 {@link ClusterMode#SCATTER_GATHER} 模式合并各服务提供者的返回值
+ * <p>
+ * 实现类需要有无参构造函数，每个接口方法创建一个实例，可能被多个线程同时调用。
+ */
+public interface ResultMerger {
+    /**
+     * 合并返回值
+     *
+     * @param returnType 接口方法的返回类型
+     * @param results    各服务提供者的返回值，顺序与服务地址列表一致，元素可能为null
+     * @return 合并后的返回值
+     */
+    Object merge(Class<?> returnType, List<Object> results);
+}
@@ -0,0 +1,130 @@
+package com.simplerpc.cluster.impl;
+
+import com.simplerpc.cluster.ResultMerger;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 默认结果合并器，按返回类型合并
+ * <p>
+ * List和Collection拼接，Set取并集，Map合并（后面的提供者覆盖相同的键），数组拼接，
+ * 整数和浮点数求和，void返回null；跳过为null的返回值。
+ */
+public class DefaultResultMerger implements ResultMerger {
+
+    /**
+     * 判断返回类型是否可以使用默认合并
+     *
+     * @param returnType 返回类型
+     * @return 可以合并时返回true
+     */
+    public static boolean supports(Class<?> returnType) {
+        return returnType == void.class || returnType.isArray()
+                || isCollection(returnType) || isMap(returnType) || isSummable(returnType);
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Object merge(Class<?> returnType, List<Object> results) {
+        if (returnType == void.class) {
+            return null;
+        }
+        if (isCollection(returnType)) {
+            Collection merged = newCollection(returnType);
+            for (Object result : results) {
+                if (result != null) {
+                    merged.addAll((Collection) result);
+                }
+            }
+            return merged;
+        }
+        if (isMap(returnType)) {
+            Map merged = returnType.isAssignableFrom(LinkedHashMap.class) ? new LinkedHashMap() : new TreeMap();
+            for (Object result : results) {
+                if (result != null) {
+                    merged.putAll((Map) result);
+                }
+            }
+            return merged;
+        }
+        if (returnType.isArray()) {
+            return mergeArrays(returnType, results);
+        }
+        if (isSummable(returnType)) {
+            return sum(returnType, results);
+        }
+        throw new IllegalArgumentException("不支持合并的返回类型: " + returnType.getName());
+    }
+
+    private static boolean isCollection(Class<?> type) {
+        return Collection.class.isAssignableFrom(type) && (type.isAssignableFrom(ArrayList.class)
+                || type.isAssignableFrom(LinkedHashSet.class) || type.isAssignableFrom(TreeSet.class));
+    }
+
+    private static boolean isMap(Class<?> type) {
+        return Map.class.isAssignableFrom(type)
+                && (type.isAssignableFrom(LinkedHashMap.class) || type.isAssignableFrom(TreeMap.class));
+    }
+
+    private static boolean isSummable(Class<?> type) {
+        return type == int.class || type == Integer.class || type == long.class || type == Long.class
+                || type == double.class || type == Double.class;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Collection newCollection(Class<?> type) {
+        if (type.isAssignableFrom(ArrayList.class)) {
+            return new ArrayList();
+        }
+        return type.isAssignableFrom(LinkedHashSet.class) ? new LinkedHashSet() : new TreeSet();
+    }
+
+    private static Object mergeArrays(Class<?> returnType, List<Object> results) {
+        int length = 0;
+        for (Object result : results) {
+            if (result != null) {
+                length += Array.getLength(result);
+            }
+        }
+        Object merged = Array.newInstance(returnType.getComponentType(), length);
+        int offset = 0;
+        for (Object result : results) {
+            if (result != null) {
+                int resultLength = Array.getLength(result);
+                System.arraycopy(result, 0, merged, offset, resultLength);
+                offset += resultLength;
+            }
+        }
+        return merged;
+    }
+
+    private static Object sum(Class<?> returnType, List<Object> results) {
+        if (returnType == double.class || returnType == Double.class) {
+            double sum = 0;
+            for (Object result : results) {
+                if (result != null) {
+                    sum += ((Number) result).doubleValue();
+                }
+            }
+            return sum;
+        }
+        long sum = 0;
+        for (Object result : results) {
+            if (result != null) {
+                sum += ((Number) result).longValue();
+            }
+        }
+        if (returnType == int.class || returnType == Integer.class) {
+            return Math.toIntExact(sum);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,162 @@
+package com.simplerpc.common;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * 二进制数据块，作为参数或返回值时不经过序列化器，在帧中以独立的数据段发送
+ * <p>
+ * 由内存数据创建时发送端不复制数据；由文件创建时通过 FileRegion 发送，操作系统支持时使用sendfile。
+ * 接收到的数据块引用接收缓冲区的切片，同样不复制，使用完后需要调用 {@link #release()}：
+ * 服务端参数中的数据块在方法返回后由框架释放，客户端收到的返回值由调用方释放。
+ * 发送的内存数据块：请求参数仍归调用方所有，服务端返回值在发送后由框架释放。
+ * 返回值为数据块或ByteBuf的方法不要使用结果缓存和合并调用，多个调用方会共享同一份需要释放的数据。
+ */
+public final class Blob {
+
+    private final ByteBuf content;
+    private final File file;
+    private final long position;
+    private final long length;
+
+    private Blob(ByteBuf content, File file, long position, long length) {
+        this.content = content;
+        this.file = file;
+        this.position = position;
+        this.length = length;
+    }
+
+    /**
+     * 由ByteBuf创建，引用其可读部分
+     *
+     * @param content 数据
+     * @return 数据块
+     */
+    public static Blob of(ByteBuf content) {
+        return new Blob(content, null, 0, content.readableBytes());
+    }
+
+    /**
+     * 由ByteBuffer创建，引用其剩余部分
+     *
+     * @param content 数据
+     * @return 数据块
+     */
+    public static Blob of(ByteBuffer content) {
+        return of(Unpooled.wrappedBuffer(content.duplicate()));
+    }
+
+    /**
+     * 由字节数组创建，不复制
+     *
+     * @param content 数据
+     * @return 数据块
+     */
+    public static Blob of(byte[] content) {
+        return of(Unpooled.wrappedBuffer(content));
+    }
+
+    /**
+     * 由整个文件创建
+     *
+     * @param file 文件
+     * @return 数据块
+     */
+    public static Blob of(File file) {
+        return of(file, 0, file.length());
+    }
+
+    /**
+     * 由文件的一段创建
+     *
+     * @param file     文件
+     * @param position 起始位置
+     * @param length   长度
+     * @return 数据块
+     */
+    public static Blob of(File file, long position, long length) {
+        if (position < 0 || length < 0) {
+            throw new IllegalArgumentException("position和length不能为负数");
+        }
+        return new Blob(null, file, position, length);
+    }
+
+    /**
+     * 是否由文件创建
+     */
+    public boolean isFile() {
+        return file != null;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * 获取数据长度
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * 获取内存数据，不复制
+     *
+     * @return 数据
+     * @throws IllegalStateException 由文件创建的数据块
+     */
+    public ByteBuf content() {
+        if (content == null) {
+            throw new IllegalStateException("由文件创建的数据块没有内存数据: " + file);
+        }
+        return content;
+    }
+
+    /**
+     * 复制为字节数组
+     *
+     * @return 字节数组
+     */
+    public byte[] toByteArray() {
+        ByteBuf buf = content();
+        return ByteBufUtil.getBytes(buf, buf.readerIndex(), buf.readableBytes());
+    }
+
+    /**
+     * 释放内存数据，由文件创建的数据块无需释放
+     */
+    public void release() {
+        if (content != null && content.refCnt() > 0) {
+            content.release();
+        }
+    }
+
+    /**
+     * 释放ByteBuf或Blob类型的值，其他值忽略
+     *
+     * @param value 参数或返回值
+     */
+    public static void releaseValue(Object value) {
+        if (value instanceof Blob) {
+            ((Blob) value).release();
+        } else if (value instanceof ByteBuf) {
+            ByteBuf buf = (ByteBuf) value;
+            if (buf.refCnt() > 0) {
+                buf.release();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return file != null ? "Blob(" + file + ", " + position + "+" + length + ")" : "Blob(" + length + " bytes)";
+    }
+}
@@ -0,0 +1,16 @@
+package com.simplerpc.common;
+
+/**
+ * 心跳消息，用于空闲连接的存活探测
+ */
+public enum Heartbeat {
+    /**
+     * 心跳请求，由客户端在写空闲时发送
+     */
+    PING,
+
+    /**
+     * 心跳响应，由服务端收到PING后返回
+     */
+    PONG
+}
@@ -0,0 +1,49 @@
+package com.simplerpc.common;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 日志限流器，用于热点路径上的错误日志
+ * <p>
+ * 每个时间窗口内只放行一条日志，其余的只计数，下次放行时一并报告被省略的条数。
+ */
+public class LogRateLimiter {
+
+    private final long intervalNanos;
+    private final AtomicLong nextAllowedNanos = new AtomicLong(System.nanoTime());
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * 构造函数
+     *
+     * @param interval 时间窗口
+     * @param unit     时间单位
+     */
+    public LogRateLimiter(long interval, TimeUnit unit) {
+        this.intervalNanos = unit.toNanos(interval);
+    }
+
+    /**
+     * 尝试获取输出日志的许可
+     *
+     * @return 当前窗口内未输出过日志时返回true
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        long next = nextAllowedNanos.get();
+        if (now - next >= 0 && nextAllowedNanos.compareAndSet(next, now + intervalNanos)) {
+            return true;
+        }
+        suppressed.increment();
+        return false;
+    }
+
+    /**
+     * 获取并清零上次放行以来被省略的日志条数
+     */
+    public long drainSuppressed() {
+        return suppressed.sumThenReset();
+    }
+}
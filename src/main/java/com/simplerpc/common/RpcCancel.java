@@ -0,0 +1,18 @@
+package com.simplerpc.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 取消请求消息，通知服务端停止处理调用方已经放弃的请求
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RpcCancel {
+    /**
+     * 要取消的请求ID
+     */
+    private String requestId;
+}
@@ -0,0 +1,168 @@
+package com.simplerpc.common;
+
+import com.simplerpc.trace.Span;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RPC调用上下文，绑定在当前线程上
+ * <p>
+ * 服务端在执行业务方法前设置上下文，业务代码可以读取剩余的调用时间；
+ * 在同一线程中发起的下游调用会自动继承剩余时间作为超时上限。
+ */
+public class RpcContext {
+
+    private static final ThreadLocal<RpcContext> LOCAL = ThreadLocal.withInitial(RpcContext::new);
+
+    /**
+     * 截止时间（System.nanoTime），0表示没有截止时间
+     */
+    private long deadlineNanos;
+
+    /**
+     * 调用方是否已取消本次调用
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * 当前请求的附加信息
+     */
+    private Map<String, String> attachments;
+
+    /**
+     * 当前被追踪的调用，下游调用以它为父调用；未被采样时为null
+     */
+    private Span span;
+
+    /**
+     * 获取当前线程的上下文
+     *
+     * @return RPC上下文
+     */
+    public static RpcContext getContext() {
+        return LOCAL.get();
+    }
+
+    /**
+     * 清除当前线程的上下文
+     */
+    public static void removeContext() {
+        LOCAL.remove();
+    }
+
+    /**
+     * 为同一线程中执行的进程内调用换上新的上下文
+     *
+     * @return 原上下文，调用结束后通过 {@link #restoreContext(RpcContext)} 恢复
+     */
+    public static RpcContext pushContext() {
+        RpcContext previous = LOCAL.get();
+        LOCAL.set(new RpcContext());
+        return previous;
+    }
+
+    /**
+     * 恢复 {@link #pushContext()} 之前的上下文
+     *
+     * @param previous 原上下文
+     */
+    public static void restoreContext(RpcContext previous) {
+        LOCAL.set(previous);
+    }
+
+    /**
+     * 设置截止时间
+     *
+     * @param deadlineNanos 截止时间（System.nanoTime），0表示没有截止时间
+     */
+    public void setDeadlineNanos(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * 获取截止时间
+     *
+     * @return 截止时间（System.nanoTime），0表示没有截止时间
+     */
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    /**
+     * 是否设置了截止时间
+     */
+    public boolean hasDeadline() {
+        return deadlineNanos != 0;
+    }
+
+    /**
+     * 获取剩余时间
+     *
+     * @return 剩余毫秒数，没有截止时间时返回Long.MAX_VALUE，已过期时返回0或负数
+     */
+    public long getRemainingMillis() {
+        if (deadlineNanos == 0) {
+            return Long.MAX_VALUE;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    /**
+     * 截止时间是否已过
+     */
+    public boolean isDeadlineExceeded() {
+        return deadlineNanos != 0 && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * 标记调用已被调用方取消
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * 调用方是否已取消本次调用，长时间运行的业务代码可以据此提前结束
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 设置当前请求的附加信息
+     *
+     * @param attachments 附加信息，可以为null
+     */
+    public void setAttachments(Map<String, String> attachments) {
+        this.attachments = attachments;
+    }
+
+    /**
+     * 获取当前请求的附加信息
+     *
+     * @return 附加信息，没有时返回空Map
+     */
+    public Map<String, String> getAttachments() {
+        return attachments == null ? Collections.emptyMap() : attachments;
+    }
+
+    /**
+     * 设置当前被追踪的调用
+     *
+     * @param span 调用记录，可以为null
+     */
+    public void setSpan(Span span) {
+        this.span = span;
+    }
+
+    /**
+     * 获取当前被追踪的调用
+     *
+     * @return 调用记录，未被采样时为null
+     */
+    public Span getSpan() {
+        return span;
+    }
+}
@@ -1,10 +1,16 @@
 package com.simplerpc.common;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * RPC请求对象，包含调用的接口名称、方法名、参数类型和参数值
@@ -44,4 +50,108 @@ public class RpcRequest implements Serializable {
      * 版本号，用于服务版本控制
      */
     private String version;
+
+    /**
+     * 剩余的调用时间，单位毫秒，0表示不限制
+     * <p>
+     * 传递的是相对时长而不是绝对时间，避免受客户端与服务端时钟偏差影响。
+     */
+    private long timeout;
+
+    /**
+     * 附加信息，例如链路追踪上下文；没有附加信息时为null，不占用额外空间
+     */
+    private Map<String, String> attachments;
+
+    /**
+     * 编解码时记录的消息体字节数，仅在本地使用，不参与序列化
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient int wireSize;
+
+    /**
+     * 是否为单向调用，服务端不返回响应；由帧头的消息类型携带，不参与序列化
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient boolean oneway;
+
+    /**
+     * 调用方法的返回值声明类型，客户端按该类型绑定响应数据；仅在本地使用，不参与序列化
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient Type returnType;
+
+    /**
+     * 添加附加信息
+     *
+     * @param key   键
+     * @param value 值
+     */
+    public void putAttachment(String key, String value) {
+        if (attachments == null) {
+            attachments = new HashMap<>(4);
+        }
+        attachments.put(key, value);
+    }
+
+    /**
+     * 获取附加信息
+     *
+     * @param key 键
+     * @return 值，不存在时返回null
+     */
+    public String getAttachment(String key) {
+        return attachments == null ? null : attachments.get(key);
+    }
+
+    /**
+     * 获取消息体字节数，未经过编解码时为0
+     */
+    public int wireSize() {
+        return wireSize;
+    }
+
+    /**
+     * 设置消息体字节数，由编解码器调用
+     *
+     * @param wireSize 消息体字节数
+     */
+    public void wireSize(int wireSize) {
+        this.wireSize = wireSize;
+    }
+
+    /**
+     * 是否为单向调用
+     */
+    public boolean oneway() {
+        return oneway;
+    }
+
+    /**
+     * 设置是否为单向调用
+     *
+     * @param oneway 单向调用时为true
+     */
+    public void oneway(boolean oneway) {
+        this.oneway = oneway;
+    }
+
+    /**
+     * 获取返回值的声明类型，未知时为null
+     */
+    public Type returnType() {
+        return returnType;
+    }
+
+    /**
+     * 设置返回值的声明类型，由客户端代理在构建请求时设置
+     *
+     * @param returnType 返回值的声明类型
+     */
+    public void returnType(Type returnType) {
+        this.returnType = returnType;
+    }
 }
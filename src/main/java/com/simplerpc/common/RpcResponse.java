@@ -1,8 +1,14 @@
 package com.simplerpc.common;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.lang.reflect.Type;
 
 /**
  * RPC响应对象，包含调用结果或异常信息
@@ -10,7 +16,9 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class RpcResponse {
+public class RpcResponse implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     /**
      * 对应请求的ID
      */
@@ -31,13 +39,27 @@ public class RpcResponse {
      */
     private Object data;
 
+    /**
+     * 编解码时记录的消息体字节数，仅在本地使用，不参与序列化
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient int wireSize;
+
+    /**
+     * 返回值的声明类型，仅在本地使用，不参与序列化，供需要类型信息的序列化器使用
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient Type dataType;
+
     /**
      * 成功响应
      */
     public static RpcResponse success(String requestId, Object data) {
         RpcResponse response = new RpcResponse();
         response.setRequestId(requestId);
-        response.setStatusCode(200);
+        response.setStatusCode(RpcStatusCode.SUCCESS);
         response.setMessage("调用成功");
         response.setData(data);
         return response;
@@ -53,4 +75,36 @@ public class RpcResponse {
         response.setMessage(message);
         return response;
     }
+
+    /**
+     * 获取消息体字节数，未经过编解码时为0
+     */
+    public int wireSize() {
+        return wireSize;
+    }
+
+    /**
+     * 设置消息体字节数，由编解码器调用
+     *
+     * @param wireSize 消息体字节数
+     */
+    public void wireSize(int wireSize) {
+        this.wireSize = wireSize;
+    }
+
+    /**
+     * 获取返回值的声明类型，未知时为null
+     */
+    public Type dataType() {
+        return dataType;
+    }
+
+    /**
+     * 设置返回值的声明类型，由服务端在调用完成后设置
+     *
+     * @param dataType 返回值的声明类型
+     */
+    public void dataType(Type dataType) {
+        this.dataType = dataType;
+    }
 }
@@ -0,0 +1,50 @@
+package com.simplerpc.common;
+
+/**
+ * RPC响应状态码
+ */
+public final class RpcStatusCode {
+
+    /**
+     * 调用成功
+     */
+    public static final int SUCCESS = 200;
+
+    /**
+     * 服务不存在
+     */
+    public static final int SERVICE_NOT_FOUND = 404;
+
+    /**
+     * 客户端在途请求数超过上限或连接不可写，请求未发出
+     */
+    public static final int CLIENT_OVERLOADED = 429;
+
+    /**
+     * 调用方已取消请求，服务端不会返回响应，仅用于本地记录
+     */
+    public static final int CANCELLED = 499;
+
+    /**
+     * 服务端处理失败
+     */
+    public static final int INTERNAL_ERROR = 500;
+
+    /**
+     * 连接失败或连接中断，请求可能没有送达服务端
+     */
+    public static final int UNAVAILABLE = 502;
+
+    /**
+     * 服务端并发已达上限，请求未执行，可以安全地在其他实例上重试
+     */
+    public static final int SERVER_OVERLOADED = 503;
+
+    /**
+     * 调用超时或剩余时间已耗尽
+     */
+    public static final int DEADLINE_EXCEEDED = 504;
+
+    private RpcStatusCode() {
+    }
+}
@@ -1,20 +1,32 @@
 package com.simplerpc.common;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * URL类，用于封装服务地址信息
+ * <p>
+ * 服务实例由主机和端口标识，参数是注册中心中附带的元数据，不参与相等性比较。
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class URL implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Unix域套接字路径参数，服务端同时监听该路径时注册
+     */
+    public static final String PARAM_UNIX_SOCKET = "unix";
+
     /**
      * 主机地址
      */
@@ -25,6 +37,17 @@ public class URL implements Serializable {
      */
     private int port;
 
+    /**
+     * 元数据参数，没有参数时为null
+     */
+    @EqualsAndHashCode.Exclude
+    private Map<String, String> parameters;
+
+    public URL(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
     /**
      * 获取完整地址
      */
@@ -32,6 +55,67 @@ public class URL implements Serializable {
         return host + ":" + port;
     }
 
+    /**
+     * 获取参数
+     *
+     * @param key 参数名
+     * @return 参数值，不存在时返回null
+     */
+    public String getParameter(String key) {
+        return parameters == null ? null : parameters.get(key);
+    }
+
+    /**
+     * 设置参数
+     *
+     * @param key 参数名
+     * @param value 参数值
+     * @return 当前URL
+     */
+    public URL addParameter(String key, String value) {
+        if (parameters == null) {
+            parameters = new LinkedHashMap<>(4);
+        }
+        parameters.put(key, value);
+        return this;
+    }
+
+    /**
+     * 将参数编码为 key=value&amp;key=value 形式，没有参数时返回空字符串
+     */
+    public String encodeParameters() {
+        if (parameters == null || parameters.isEmpty()) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, String> entry : parameters.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append('&');
+            }
+            builder.append(encode(entry.getKey())).append('=').append(encode(entry.getValue()));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 解析 {@link #encodeParameters()} 编码的参数并加入当前URL
+     *
+     * @param encoded 编码后的参数，可以为null或空字符串
+     * @return 当前URL
+     */
+    public URL decodeParameters(String encoded) {
+        if (encoded == null || encoded.isEmpty()) {
+            return this;
+        }
+        for (String pair : encoded.split("&")) {
+            int index = pair.indexOf('=');
+            if (index > 0) {
+                addParameter(decode(pair.substring(0, index)), decode(pair.substring(index + 1)));
+            }
+        }
+        return this;
+    }
+
     /**
      * 从字符串解析URL
      */
@@ -42,4 +126,20 @@ public class URL implements Serializable {
         }
         return new URL(parts[0], Integer.parseInt(parts[1]));
     }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -0,0 +1,46 @@
+package com.simplerpc.common.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 自适应超时注解，标注在服务接口或接口方法上，方法上的注解优先
+ * <p>
+ * 按方法和服务提供者分别统计最近的调用耗时，每次调用的超时时间取 耗时百分位 × multiplier，
+ * 并限制在 [min, max] 之间；样本不足时使用配置的超时时间。超时时间不会超过调用方配置的超时时间。
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RpcAdaptiveTimeout {
+    /**
+     * 计算超时时间使用的耗时百分位
+     */
+    double percentile() default 99;
+
+    /**
+     * 超时时间相对耗时百分位的倍数
+     */
+    double multiplier() default 2.0;
+
+    /**
+     * 超时时间下限，单位毫秒
+     */
+    long min() default 10;
+
+    /**
+     * 超时时间上限，单位毫秒，0表示使用调用方配置的超时时间
+     */
+    long max() default 0;
+
+    /**
+     * 耗时统计窗口，单位毫秒
+     */
+    long window() default 30000;
+
+    /**
+     * 统计窗口内至少有多少个样本才启用自适应超时
+     */
+    int minSamples() default 100;
+}
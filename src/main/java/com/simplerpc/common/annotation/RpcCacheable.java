@@ -0,0 +1,31 @@
+package com.simplerpc.common.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 客户端结果缓存注解，标注在服务接口的方法上
+ * <p>
+ * 只适用于幂等、结果可以短时间复用的方法。缓存键由方法和参数值组成，参数需要正确实现equals和hashCode，
+ * 且放入缓存后不应再修改。调用失败的结果不会被缓存。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RpcCacheable {
+    /**
+     * 最多缓存的条目数，超过后淘汰最久未访问的条目
+     */
+    int maxSize() default 1000;
+
+    /**
+     * 缓存有效期，单位毫秒
+     */
+    long ttl() default 60000;
+
+    /**
+     * 提前刷新时间，单位毫秒；命中的条目剩余有效期小于该值时在后台异步刷新，0表示不提前刷新
+     */
+    long refreshAhead() default 0;
+}
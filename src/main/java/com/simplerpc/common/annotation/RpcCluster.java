@@ -0,0 +1,35 @@
+package com.simplerpc.common.annotation;
+
+import com.simplerpc.cluster.ClusterMode;
+import com.simplerpc.cluster.ResultMerger;
+import com.simplerpc.cluster.impl.DefaultResultMerger;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 集群调用模式注解，标注在服务接口或接口方法上，方法上的注解优先，其次是接口上的注解，最后是引用上配置的模式
+ * <p>
+ * 除FAILOVER外的模式通过已有连接异步并行调用，总耗时取决于最慢的服务提供者而不是各提供者之和；
+ * 这些模式不使用进程内调用、重试和对冲。单向方法只能使用FAILOVER或BROADCAST。
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RpcCluster {
+    /**
+     * 调用模式
+     */
+    ClusterMode value();
+
+    /**
+     * FORKING模式下并行调用的服务提供者数
+     */
+    int forks() default 2;
+
+    /**
+     * SCATTER_GATHER模式下的结果合并器，默认按返回类型合并，见 {@link DefaultResultMerger}
+     */
+    Class<? extends ResultMerger> merger() default DefaultResultMerger.class;
+}
@@ -0,0 +1,18 @@
+package com.simplerpc.common.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 编解码器生成注解，标注在服务接口或数据类上
+ * <p>
+ * 编译时 simple-rpc-codegen 注解处理器为接口方法的参数和返回值中的数据类（以及它们字段中的数据类）
+ * 生成不使用反射的编解码器，配合 {@link com.simplerpc.serialize.impl.CodecSerializer} 使用。
+ * 标注了 {@link RpcService} 的实现类会处理它实现的服务接口。
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.CLASS)
+public @interface RpcCodec {
+}
@@ -0,0 +1,26 @@
+package com.simplerpc.common.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 对冲请求注解，标注在服务接口的幂等方法上
+ * <p>
+ * 请求发出后超过对冲延迟仍未返回时，向另一个服务提供者发送一份相同的请求，
+ * 采用先成功返回的结果并取消另一个。对冲请求同样从全局重试预算中获取额度。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RpcHedge {
+    /**
+     * 固定的对冲延迟，单位毫秒；为0时按该方法历史耗时的百分位计算
+     */
+    long delay() default 0;
+
+    /**
+     * 计算对冲延迟使用的耗时百分位，仅在delay为0时生效；样本不足时不发送对冲请求
+     */
+    double percentile() default 95;
+}
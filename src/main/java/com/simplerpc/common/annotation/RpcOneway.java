@@ -0,0 +1,17 @@
+package com.simplerpc.common.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 单向调用注解，标注在返回void的接口方法上；标注在服务接口上时对接口中所有返回void的方法生效
+ * <p>
+ * 请求写入连接后立即返回，服务端执行方法但不返回响应，调用方收不到服务端的失败。
+ * 连接不可写时调用方在超时时间内等待，服务端积压过多时暂停读取连接，形成端到端的背压；不重试、不对冲。
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RpcOneway {
+}
@@ -1,5 +1,7 @@
 package com.simplerpc.common.annotation;
 
+import com.simplerpc.cluster.ClusterMode;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -20,4 +22,9 @@ public @interface RpcReference {
      * 超时时间，单位毫秒
      */
     long timeout() default 5000;
+
+    /**
+     * 集群调用模式，接口或方法上的 {@link RpcCluster} 优先
+     */
+    ClusterMode cluster() default ClusterMode.FAILOVER;
 }
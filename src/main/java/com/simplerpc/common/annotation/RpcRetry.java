@@ -0,0 +1,22 @@
+package com.simplerpc.common.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 失败重试注解，标注在服务接口的幂等方法上
+ * <p>
+ * 连接失败或过载拒绝时换一个未尝试过的服务提供者重试，不会重试业务异常和超时。
+ * 每次重试都要从全局重试预算中获取额度，预算耗尽时直接返回失败。
+ * 未标注的方法只在过载拒绝时换一个提供者重试一次，因为被拒绝的请求一定没有执行。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RpcRetry {
+    /**
+     * 最多尝试次数，包括第一次调用
+     */
+    int maxAttempts() default 3;
+}
@@ -0,0 +1,17 @@
+package com.simplerpc.common.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 请求合并注解，标注在服务接口的方法上
+ * <p>
+ * 参数相同的并发调用只发出一个远程请求，其余调用等待并共享它的结果或异常。
+ * 只适用于幂等方法，参数需要正确实现equals和hashCode。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RpcSingleFlight {
+}
@@ -0,0 +1,33 @@
+package com.simplerpc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR事件：客户端从发送请求到收到响应或失败
+ */
+@Name("com.simplerpc.ClientCall")
+@Label("RPC Client Call")
+@Description("客户端从发送请求到收到响应或失败")
+@Category({"Simple RPC", "Client"})
+@StackTrace(false)
+public class RpcClientCallEvent extends Event {
+    @Label("Service")
+    public String service;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Request ID")
+    public String requestId;
+
+    @Label("Provider")
+    public String provider;
+
+    @Label("Status Code")
+    public int statusCode;
+}
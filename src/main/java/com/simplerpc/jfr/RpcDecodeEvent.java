@@ -0,0 +1,29 @@
+package com.simplerpc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR事件：从帧中反序列化消息
+ */
+@Name("com.simplerpc.Decode")
+@Label("RPC Decode")
+@Description("从帧中反序列化消息")
+@Category({"Simple RPC", "Transport"})
+@StackTrace(false)
+public class RpcDecodeEvent extends Event {
+    @Label("Request ID")
+    public String requestId;
+
+    @Label("Message Type")
+    public byte messageType;
+
+    @Label("Payload Size")
+    @DataAmount
+    public int payloadSize;
+}
@@ -0,0 +1,30 @@
+package com.simplerpc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR事件：客户端代理发起的一次完整调用
+ */
+@Name("com.simplerpc.Invoke")
+@Label("RPC Invoke")
+@Description("客户端代理发起的一次完整调用")
+@Category({"Simple RPC", "Client"})
+@StackTrace(false)
+public class RpcInvokeEvent extends Event {
+    @Label("Service")
+    public String service;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Request ID")
+    public String requestId;
+
+    @Label("Status Code")
+    public int statusCode;
+}
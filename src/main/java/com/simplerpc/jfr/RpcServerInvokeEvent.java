@@ -0,0 +1,30 @@
+package com.simplerpc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR事件：服务端执行业务方法
+ */
+@Name("com.simplerpc.ServerInvoke")
+@Label("RPC Server Invoke")
+@Description("服务端执行业务方法")
+@Category({"Simple RPC", "Server"})
+@StackTrace(false)
+public class RpcServerInvokeEvent extends Event {
+    @Label("Service")
+    public String service;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Request ID")
+    public String requestId;
+
+    @Label("Status Code")
+    public int statusCode;
+}
@@ -0,0 +1,27 @@
+package com.simplerpc.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR事件：请求在服务端业务线程池中排队
+ */
+@Name("com.simplerpc.ServerQueue")
+@Label("RPC Server Queue")
+@Description("请求在服务端业务线程池中排队")
+@Category({"Simple RPC", "Server"})
+@StackTrace(false)
+public class RpcServerQueueEvent extends Event {
+    @Label("Service")
+    public String service;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Request ID")
+    public String requestId;
+}
@@ -0,0 +1,63 @@
+package com.simplerpc.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 自适应并发限制器，在途请求达到算法给出的上限时拒绝新请求
+ */
+public class ConcurrencyLimiter {
+
+    private final Limit limit;
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    /**
+     * 构造函数
+     *
+     * @param limit 并发上限算法
+     */
+    public ConcurrencyLimiter(Limit limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * 尝试获取执行许可
+     *
+     * @return 在途请求未达到上限时返回true
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= limit.getLimit()) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 归还执行许可并记录样本
+     *
+     * @param startNanos 获取许可时的时间戳
+     * @param dropped    调用是否因过载被丢弃（排队超时或被拒绝）
+     */
+    public void release(long startNanos, boolean dropped) {
+        int current = inflight.getAndDecrement();
+        limit.onSample(System.nanoTime() - startNanos, current, dropped);
+    }
+
+    /**
+     * 获取当前在途请求数
+     */
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * 获取当前并发上限
+     */
+    public int getLimit() {
+        return limit.getLimit();
+    }
+}
@@ -0,0 +1,22 @@
+package com.simplerpc.limit;
+
+/**
+ * 并发上限算法，根据每次调用的耗时样本动态调整允许的并发数
+ */
+public interface Limit {
+    /**
+     * 获取当前并发上限
+     *
+     * @return 并发上限
+     */
+    int getLimit();
+
+    /**
+     * 记录一次调用样本
+     *
+     * @param rttNanos 调用耗时（含排队），单位纳秒
+     * @param inflight 样本开始时的在途请求数
+     * @param dropped  调用是否因过载被丢弃（排队超时或被拒绝），业务异常不算
+     */
+    void onSample(long rttNanos, int inflight, boolean dropped);
+}
@@ -0,0 +1,60 @@
+package com.simplerpc.limit.impl;
+
+import com.simplerpc.limit.Limit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 加性增、乘性减（AIMD）并发上限算法
+ * <p>
+ * 调用成功且并发被充分利用时上限加1；调用失败或耗时超过阈值时上限按比例回退。
+ */
+public class AimdLimit implements Limit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+
+    private volatile int limit;
+
+    /**
+     * 构造函数，使用默认参数
+     */
+    public AimdLimit() {
+        this(20, 1, 1000, 0.9, 1000);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param initialLimit           初始上限
+     * @param minLimit               最小上限
+     * @param maxLimit               最大上限
+     * @param backoffRatio           回退比例，取值(0,1)
+     * @param latencyThresholdMillis 耗时阈值，超过时视为过载，单位毫秒
+     */
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long latencyThresholdMillis) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inflight, boolean dropped) {
+        int current = limit;
+        if (dropped || rttNanos > latencyThresholdNanos) {
+            limit = Math.max(minLimit, (int) (current * backoffRatio));
+        } else if (inflight * 2 >= current) {
+            // 只有在并发被充分利用时才增加上限，避免空闲时上限无限增长
+            limit = Math.min(maxLimit, current + 1);
+        }
+    }
+}
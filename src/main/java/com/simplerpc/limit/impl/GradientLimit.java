@@ -0,0 +1,87 @@
+package com.simplerpc.limit.impl;
+
+import com.simplerpc.limit.Limit;
+
+/**
+ * 基于延迟梯度的并发上限算法
+ * <p>
+ * 维护长周期的平均耗时作为无排队基线，与短周期耗时比较得到梯度：
+ * 耗时上升说明请求开始排队，上限按梯度收缩；耗时平稳时上限按 sqrt(limit) 的排队余量缓慢增长。
+ */
+public class GradientLimit implements Limit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double tolerance;
+    private final int longWindow;
+    private final int shortWindow;
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRtt;
+    private double shortRtt;
+
+    /**
+     * 构造函数，使用默认参数
+     */
+    public GradientLimit() {
+        this(20, 1, 1000, 0.2, 1.5, 600, 10);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param initialLimit 初始上限
+     * @param minLimit     最小上限
+     * @param maxLimit     最大上限
+     * @param smoothing    上限调整的平滑系数，取值(0,1]
+     * @param tolerance    可容忍的耗时膨胀倍数，短周期耗时不超过基线的该倍数时不收缩
+     * @param longWindow   长周期平均的样本窗口
+     * @param shortWindow  短周期平均的样本窗口
+     */
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double smoothing,
+                         double tolerance, int longWindow, int shortWindow) {
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.tolerance = tolerance;
+        this.longWindow = longWindow;
+        this.shortWindow = shortWindow;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inflight, boolean dropped) {
+        if (longRtt == 0) {
+            longRtt = rttNanos;
+            shortRtt = rttNanos;
+        } else {
+            longRtt += (rttNanos - longRtt) / longWindow;
+            shortRtt += (rttNanos - shortRtt) / shortWindow;
+        }
+
+        // 负载下降后基线会被高估，短周期明显更快时让基线尽快回落
+        if (longRtt > shortRtt * 2) {
+            longRtt *= 0.95;
+        }
+
+        // 并发未被充分利用时耗时不能反映上限是否合适
+        if (!dropped && inflight < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = dropped ? 0.5 : Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double queueSize = Math.sqrt(estimatedLimit);
+        double newLimit = estimatedLimit * gradient + queueSize;
+        newLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,20 @@
+package com.simplerpc.loadbalance;
+
+import com.simplerpc.common.RpcRequest;
+import com.simplerpc.common.URL;
+
+import java.util.List;
+
+/**
+ * 负载均衡接口，从候选服务地址中选择一个
+ */
+public interface LoadBalancer {
+    /**
+     * 选择服务地址
+     *
+     * @param urls    候选服务地址，不为空
+     * @param request RPC请求
+     * @return 选中的服务地址
+     */
+    URL select(List<URL> urls, RpcRequest request);
+}
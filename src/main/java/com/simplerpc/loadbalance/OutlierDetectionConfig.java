@@ -0,0 +1,54 @@
+package com.simplerpc.loadbalance;
+
+import lombok.Data;
+
+/**
+ * 异常实例检测配置
+ */
+@Data
+public class OutlierDetectionConfig {
+    /**
+     * 连续失败多少次后摘除实例
+     */
+    private int consecutiveFailures = 5;
+
+    /**
+     * 按错误率和耗时检测的统计周期，单位毫秒
+     */
+    private long intervalMillis = 10000;
+
+    /**
+     * 统计周期内至少有多少次调用才参与错误率和耗时检测
+     */
+    private int minRequests = 20;
+
+    /**
+     * 错误率达到该值时摘除实例
+     */
+    private double errorRateThreshold = 0.5;
+
+    /**
+     * 平均耗时超过同服务各实例平均耗时中位数的多少倍时摘除实例，0表示不按耗时检测
+     */
+    private double latencyFactor = 3.0;
+
+    /**
+     * 按耗时摘除时实例平均耗时的下限，单位毫秒，避免耗时本身很低时因抖动被摘除
+     */
+    private long minOutlierLatencyMillis = 50;
+
+    /**
+     * 第一次摘除的时长，单位毫秒，之后每次连续摘除翻倍
+     */
+    private long baseEjectionMillis = 30000;
+
+    /**
+     * 摘除时长上限，单位毫秒
+     */
+    private long maxEjectionMillis = 300000;
+
+    /**
+     * 同一服务最多摘除的实例比例，单位百分比
+     */
+    private int maxEjectionPercent = 50;
+}
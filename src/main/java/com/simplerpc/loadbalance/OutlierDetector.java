@@ -0,0 +1,247 @@
+package com.simplerpc.loadbalance;
+
+import com.simplerpc.common.RpcStatusCode;
+import com.simplerpc.common.URL;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异常实例检测，在客户端临时摘除持续失败或明显变慢的服务实例
+ * <p>
+ * 按服务分别统计每个实例的连续失败次数（只计连接失败和超时），以及统计周期内的错误率和平均耗时，
+ * 满足任一条件时摘除该实例，摘除时长按连续摘除次数指数增长。摘除到期后实例重新参与选择，
+ * 此时的调用相当于探测：成功则清除摘除记录，失败则立即再次摘除。
+ * 同一服务被摘除的实例不超过 maxEjectionPercent，超出时让最早到期的实例回到候选列表。
+ */
+@Slf4j
+public class OutlierDetector {
+
+    private final OutlierDetectionConfig config;
+    // 服务名 -> 实例健康状况
+    private final Map<String, ServiceHealth> services = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param config 检测配置
+     */
+    public OutlierDetector(OutlierDetectionConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * 构造函数，使用默认配置
+     */
+    public OutlierDetector() {
+        this(new OutlierDetectionConfig());
+    }
+
+    /**
+     * 过滤掉被摘除的实例
+     *
+     * @param serviceName 服务名
+     * @param urls        注册中心返回的实例列表
+     * @return 可用的实例列表
+     */
+    public List<URL> filter(String serviceName, List<URL> urls) {
+        ServiceHealth service = services.get(serviceName);
+        if (service == null || urls.isEmpty()) {
+            return urls;
+        }
+        long now = System.nanoTime();
+        service.evaluateIfDue(now);
+
+        List<URL> healthy = new ArrayList<>(urls.size());
+        List<ProviderHealth> ejected = null;
+        for (URL url : urls) {
+            ProviderHealth provider = service.providers.get(url.getAddress());
+            if (provider == null || !provider.isEjected(now)) {
+                healthy.add(url);
+            } else {
+                if (ejected == null) {
+                    ejected = new ArrayList<>();
+                }
+                ejected.add(provider);
+            }
+        }
+        if (ejected == null) {
+            return urls;
+        }
+
+        // 摘除比例超过上限时，让最早到期的实例回到候选列表
+        int maxEjected = urls.size() * config.getMaxEjectionPercent() / 100;
+        if (ejected.size() > maxEjected) {
+            ejected.sort((a, b) -> Long.compare(a.ejectedUntilNanos, b.ejectedUntilNanos));
+            for (int i = 0; i < ejected.size() - maxEjected; i++) {
+                healthy.add(ejected.get(i).url);
+            }
+        }
+        return healthy.isEmpty() ? urls : healthy;
+    }
+
+    /**
+     * 记录一次调用结果
+     *
+     * @param serviceName  服务名
+     * @param url          实例地址
+     * @param statusCode   状态码
+     * @param latencyNanos 调用耗时，单位纳秒
+     */
+    public void onResult(String serviceName, URL url, int statusCode, long latencyNanos) {
+        // 取消和过载拒绝不代表实例异常
+        if (statusCode == RpcStatusCode.CANCELLED || statusCode == RpcStatusCode.CLIENT_OVERLOADED
+                || statusCode == RpcStatusCode.SERVER_OVERLOADED) {
+            return;
+        }
+        ServiceHealth service = services.computeIfAbsent(serviceName, key -> new ServiceHealth(key));
+        ProviderHealth provider = service.providers.computeIfAbsent(url.getAddress(), key -> new ProviderHealth(url));
+        // 服务端返回的INTERNAL_ERROR多是业务异常，换实例同样会失败，只有连接失败和超时计为实例异常
+        boolean failed = statusCode == RpcStatusCode.UNAVAILABLE || statusCode == RpcStatusCode.DEADLINE_EXCEEDED;
+        provider.calls.increment();
+        provider.latencySum.add(latencyNanos);
+        if (!failed) {
+            provider.onSuccess();
+            return;
+        }
+        provider.errors.increment();
+        if (provider.consecutiveFailures.incrementAndGet() >= config.getConsecutiveFailures()) {
+            eject(service, provider, "连续失败" + provider.consecutiveFailures.get() + "次");
+        }
+    }
+
+    /**
+     * 获取当前被摘除的实例
+     *
+     * @param serviceName 服务名
+     * @return 被摘除的实例地址
+     */
+    public List<String> getEjected(String serviceName) {
+        List<String> result = new ArrayList<>();
+        ServiceHealth service = services.get(serviceName);
+        if (service != null) {
+            long now = System.nanoTime();
+            for (ProviderHealth provider : service.providers.values()) {
+                if (provider.isEjected(now)) {
+                    result.add(provider.url.getAddress());
+                }
+            }
+        }
+        return result;
+    }
+
+    private void eject(ServiceHealth service, ProviderHealth provider, String reason) {
+        long now = System.nanoTime();
+        synchronized (provider) {
+            if (provider.isEjected(now)) {
+                return;
+            }
+            int times = ++provider.ejectionCount;
+            long millis = Math.min(config.getMaxEjectionMillis(),
+                    config.getBaseEjectionMillis() << Math.min(times - 1, 20));
+            provider.ejectedUntilNanos = now + TimeUnit.MILLISECONDS.toNanos(millis);
+            // 到期后的第一次失败即再次摘除
+            provider.consecutiveFailures.set(Math.max(0, config.getConsecutiveFailures() - 1));
+            log.warn("摘除服务{}的实例{}，原因: {}，时长{}ms", service.name, provider.url.getAddress(), reason, millis);
+        }
+    }
+
+    /**
+     * 单个服务的实例健康状况
+     */
+    private final class ServiceHealth {
+        private final String name;
+        private final Map<String, ProviderHealth> providers = new ConcurrentHashMap<>();
+        private final AtomicLong lastEvaluationNanos = new AtomicLong(System.nanoTime());
+
+        ServiceHealth(String name) {
+            this.name = name;
+        }
+
+        /**
+         * 统计周期到期时按错误率和平均耗时检测，只有一个线程执行
+         */
+        void evaluateIfDue(long now) {
+            long last = lastEvaluationNanos.get();
+            if (now - last < TimeUnit.MILLISECONDS.toNanos(config.getIntervalMillis())
+                    || !lastEvaluationNanos.compareAndSet(last, now)) {
+                return;
+            }
+            List<ProviderHealth> candidates = new ArrayList<>();
+            List<Long> means = new ArrayList<>();
+            for (ProviderHealth provider : providers.values()) {
+                long calls = provider.calls.sumThenReset();
+                long errors = provider.errors.sumThenReset();
+                long latencySum = provider.latencySum.sumThenReset();
+                if (calls < config.getMinRequests() || provider.isEjected(now)) {
+                    continue;
+                }
+                if ((double) errors / calls >= config.getErrorRateThreshold()) {
+                    eject(this, provider, "错误率" + errors * 100 / calls + "%");
+                    continue;
+                }
+                provider.windowMeanNanos = latencySum / calls;
+                candidates.add(provider);
+                means.add(provider.windowMeanNanos);
+            }
+            if (config.getLatencyFactor() <= 0 || candidates.size() < 3) {
+                return;
+            }
+            Long[] sorted = means.toArray(new Long[0]);
+            Arrays.sort(sorted);
+            long median = sorted[sorted.length / 2];
+            long threshold = Math.max((long) (median * config.getLatencyFactor()),
+                    TimeUnit.MILLISECONDS.toNanos(config.getMinOutlierLatencyMillis()));
+            for (ProviderHealth provider : candidates) {
+                if (provider.windowMeanNanos > threshold) {
+                    eject(this, provider, "平均耗时" + TimeUnit.NANOSECONDS.toMillis(provider.windowMeanNanos)
+                            + "ms，中位数" + TimeUnit.NANOSECONDS.toMillis(median) + "ms");
+                }
+            }
+        }
+    }
+
+    /**
+     * 单个实例的健康状况
+     */
+    private static final class ProviderHealth {
+        private final URL url;
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder latencySum = new LongAdder();
+        private volatile long ejectedUntilNanos;
+        private volatile int ejectionCount;
+        private long windowMeanNanos;
+
+        ProviderHealth(URL url) {
+            this.url = url;
+        }
+
+        boolean isEjected(long now) {
+            long until = ejectedUntilNanos;
+            return until != 0 && now - until < 0;
+        }
+
+        void onSuccess() {
+            consecutiveFailures.set(0);
+            if (ejectionCount > 0 && !isEjected(System.nanoTime())) {
+                synchronized (this) {
+                    if (ejectionCount > 0) {
+                        log.info("实例{}已恢复", url.getAddress());
+                        ejectionCount = 0;
+                        ejectedUntilNanos = 0;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.simplerpc.loadbalance.impl;
+
+import com.simplerpc.common.RpcRequest;
+import com.simplerpc.common.URL;
+import com.simplerpc.loadbalance.LoadBalancer;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 随机负载均衡
+ */
+public class RandomLoadBalancer implements LoadBalancer {
+    @Override
+    public URL select(List<URL> urls, RpcRequest request) {
+        return urls.get(ThreadLocalRandom.current().nextInt(urls.size()));
+    }
+}
@@ -0,0 +1,17 @@
+package com.simplerpc.metrics;
+
+import lombok.Data;
+
+/**
+ * 直方图快照，耗时单位为微秒
+ */
+@Data
+public class HistogramStats {
+    private long count;
+    private double mean;
+    private long p50;
+    private long p90;
+    private long p99;
+    private long p999;
+    private long max;
+}
@@ -0,0 +1,133 @@
+package com.simplerpc.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的对数线性直方图，用于记录耗时分布
+ * <p>
+ * 与HdrHistogram的分桶方式相同：每个2的幂区间再线性分为32个子桶，相对误差约3%。
+ * 桶、总数和总和使用LongAdder，多线程并发记录时分散到不同的单元，不会争用同一个缓存行；
+ * 最大值先读后比较，只有出现新的最大值时才做CAS。
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // 可记录的最大值约为2^40纳秒（约18分钟），超过时记入最后一个桶
+    private static final int MAX_VALUE_BITS = 40;
+    private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT * (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1);
+
+    private final LongAdder[] counts = new LongAdder[BUCKET_COUNT];
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalValue = new LongAdder();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * 构造函数
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一个值
+     *
+     * @param value 值，通常为纳秒，负数按0记录
+     */
+    public void record(long value) {
+        long v = Math.max(0, Math.min(value, MAX_VALUE));
+        counts[bucketIndex(v)].increment();
+        totalCount.increment();
+        totalValue.add(v);
+        long max;
+        while (v > (max = maxValue.get())) {
+            if (maxValue.compareAndSet(max, v)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 获取记录总数
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * 获取最大值
+     */
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    /**
+     * 获取平均值
+     */
+    public double getMean() {
+        long count = totalCount.sum();
+        return count == 0 ? 0 : (double) totalValue.sum() / count;
+    }
+
+    /**
+     * 获取百分位值，返回所在桶的上界
+     *
+     * @param percentile 百分位，取值[0,100]
+     * @return 百分位值
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.sum();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i].sum();
+            if (seen >= target) {
+                return Math.min(bucketUpperBound(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    /**
+     * 生成当前分布的快照
+     *
+     * @return 快照，耗时单位转换为微秒
+     */
+    public HistogramStats snapshotMicros() {
+        HistogramStats stats = new HistogramStats();
+        stats.setCount(getCount());
+        stats.setMean(getMean() / 1000);
+        stats.setP50(getValueAtPercentile(50) / 1000);
+        stats.setP90(getValueAtPercentile(90) / 1000);
+        stats.setP99(getValueAtPercentile(99) / 1000);
+        stats.setP999(getValueAtPercentile(99.9) / 1000);
+        stats.setMax(getMax() / 1000);
+        return stats;
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + sub;
+    }
+
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        int sub = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return ((long) (SUB_BUCKET_COUNT + sub + 1) << shift) - 1;
+    }
+}
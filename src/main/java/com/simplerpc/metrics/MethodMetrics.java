@@ -0,0 +1,147 @@
+package com.simplerpc.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个服务方法的指标
+ */
+public class MethodMetrics {
+
+    private final String service;
+    private final String method;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicLong inflight = new AtomicLong();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder cacheEvictions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+
+    MethodMetrics(String service, String method) {
+        this.service = service;
+        this.method = method;
+    }
+
+    /**
+     * 调用开始
+     */
+    public void onStart() {
+        inflight.incrementAndGet();
+    }
+
+    /**
+     * 调用结束
+     *
+     * @param latencyNanos 调用耗时，单位纳秒
+     * @param success      是否成功
+     */
+    public void onComplete(long latencyNanos, boolean success) {
+        inflight.decrementAndGet();
+        latency.record(latencyNanos);
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * 记录排队耗时
+     *
+     * @param waitNanos 排队耗时，单位纳秒
+     */
+    public void recordQueueWait(long waitNanos) {
+        queueWait.record(waitNanos);
+    }
+
+    /**
+     * 记录一次过载拒绝
+     */
+    public void onRejected() {
+        rejected.increment();
+    }
+
+    /**
+     * 记录一次结果缓存命中
+     */
+    public void onCacheHit() {
+        cacheHits.increment();
+    }
+
+    /**
+     * 记录一次结果缓存未命中
+     */
+    public void onCacheMiss() {
+        cacheMisses.increment();
+    }
+
+    /**
+     * 记录一次结果缓存淘汰
+     */
+    public void onCacheEviction() {
+        cacheEvictions.increment();
+    }
+
+    /**
+     * 记录一次被合并到其他请求的调用
+     */
+    public void onCoalesced() {
+        coalesced.increment();
+    }
+
+    /**
+     * 记录一次换提供者重试
+     */
+    public void onRetry() {
+        retries.increment();
+    }
+
+    /**
+     * 记录一次对冲请求
+     */
+    public void onHedge() {
+        hedges.increment();
+    }
+
+    /**
+     * 获取已完成的调用次数
+     */
+    public long getCalls() {
+        return latency.getCount();
+    }
+
+    /**
+     * 获取调用耗时的百分位值
+     *
+     * @param percentile 百分位，取值[0,100]
+     * @return 耗时，单位纳秒
+     */
+    public long latencyAtPercentile(double percentile) {
+        return latency.getValueAtPercentile(percentile);
+    }
+
+    /**
+     * 生成快照
+     */
+    public MethodStats snapshot() {
+        MethodStats stats = new MethodStats();
+        stats.setService(service);
+        stats.setMethod(method);
+        stats.setCalls(latency.getCount());
+        stats.setErrors(errors.sum());
+        stats.setRejected(rejected.sum());
+        stats.setInflight(inflight.get());
+        stats.setLatency(latency.snapshotMicros());
+        stats.setQueueWait(queueWait.snapshotMicros());
+        stats.setCacheHits(cacheHits.sum());
+        stats.setCacheMisses(cacheMisses.sum());
+        stats.setCacheEvictions(cacheEvictions.sum());
+        stats.setCoalesced(coalesced.sum());
+        stats.setRetries(retries.sum());
+        stats.setHedges(hedges.sum());
+        return stats;
+    }
+}
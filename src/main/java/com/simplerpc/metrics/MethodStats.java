@@ -0,0 +1,79 @@
+package com.simplerpc.metrics;
+
+import lombok.Data;
+
+/**
+ * 服务方法指标快照
+ */
+@Data
+public class MethodStats {
+    /**
+     * 服务接口名
+     */
+    private String service;
+
+    /**
+     * 方法名
+     */
+    private String method;
+
+    /**
+     * 调用次数
+     */
+    private long calls;
+
+    /**
+     * 失败次数
+     */
+    private long errors;
+
+    /**
+     * 因过载被拒绝的次数
+     */
+    private long rejected;
+
+    /**
+     * 当前在途请求数
+     */
+    private long inflight;
+
+    /**
+     * 调用耗时分布
+     */
+    private HistogramStats latency;
+
+    /**
+     * 业务线程池排队耗时分布，仅服务端有效
+     */
+    private HistogramStats queueWait;
+
+    /**
+     * 结果缓存命中次数，仅客户端有效
+     */
+    private long cacheHits;
+
+    /**
+     * 结果缓存未命中次数，仅客户端有效
+     */
+    private long cacheMisses;
+
+    /**
+     * 结果缓存淘汰次数，仅客户端有效
+     */
+    private long cacheEvictions;
+
+    /**
+     * 被合并到其他相同请求的调用次数，仅客户端有效
+     */
+    private long coalesced;
+
+    /**
+     * 换提供者重试的次数，仅客户端有效
+     */
+    private long retries;
+
+    /**
+     * 发出的对冲请求数，仅客户端有效
+     */
+    private long hedges;
+}
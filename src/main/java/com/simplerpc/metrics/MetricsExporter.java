@@ -0,0 +1,13 @@
+package com.simplerpc.metrics;
+
+/**
+ * 指标导出接口，用于将指标定期推送到外部监控系统
+ */
+public interface MetricsExporter {
+    /**
+     * 导出指标快照
+     *
+     * @param snapshot 指标快照
+     */
+    void export(MetricsSnapshot snapshot);
+}
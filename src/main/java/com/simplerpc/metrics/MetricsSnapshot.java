@@ -0,0 +1,52 @@
+package com.simplerpc.metrics;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一端（客户端或服务端）的全部指标快照
+ */
+@Data
+public class MetricsSnapshot {
+    /**
+     * client或server
+     */
+    private String side;
+
+    /**
+     * 快照时间，单位毫秒
+     */
+    private long timestamp;
+
+    /**
+     * 各服务方法的指标
+     */
+    private List<MethodStats> methods;
+
+    /**
+     * 序列化耗时分布
+     */
+    private HistogramStats serialize;
+
+    /**
+     * 反序列化耗时分布
+     */
+    private HistogramStats deserialize;
+
+    /**
+     * 发送字节数
+     */
+    private long bytesOut;
+
+    /**
+     * 接收字节数
+     */
+    private long bytesIn;
+
+    /**
+     * 各服务提供者的在途请求数，仅客户端有效，key为服务地址
+     */
+    private Map<String, Long> providerInflight;
+}
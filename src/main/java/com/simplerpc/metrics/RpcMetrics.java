@@ -0,0 +1,204 @@
+package com.simplerpc.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RPC指标注册表，客户端和服务端各一个实例，并注册为JMX MXBean
+ * <p>
+ * 记录路径只涉及Map查找和原子计数，不分配对象。
+ */
+@Slf4j
+public class RpcMetrics implements RpcMetricsMXBean {
+
+    private static final RpcMetrics CLIENT = new RpcMetrics("client");
+    private static final RpcMetrics SERVER = new RpcMetrics("server");
+
+    // 导出任务共用的调度线程
+    private static volatile ScheduledExecutorService exportScheduler;
+
+    private final String side;
+    // 服务名 -> 方法名 -> 指标，两级Map避免在热路径上拼接字符串
+    private final Map<String, Map<String, MethodMetrics>> methods = new ConcurrentHashMap<>();
+    private final LatencyHistogram serializeTime = new LatencyHistogram();
+    private final LatencyHistogram deserializeTime = new LatencyHistogram();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final Map<String, AtomicLong> providerInflight = new ConcurrentHashMap<>();
+
+    private RpcMetrics(String side) {
+        this.side = side;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    this, new ObjectName("com.simplerpc:type=RpcMetrics,side=" + side));
+        } catch (Exception e) {
+            log.warn("注册RPC指标MXBean失败: {}", side, e);
+        }
+    }
+
+    /**
+     * 获取客户端指标
+     */
+    public static RpcMetrics client() {
+        return CLIENT;
+    }
+
+    /**
+     * 获取服务端指标
+     */
+    public static RpcMetrics server() {
+        return SERVER;
+    }
+
+    /**
+     * 获取服务方法的指标，不存在时创建
+     *
+     * @param service 服务接口名
+     * @param method  方法名
+     * @return 方法指标
+     */
+    public MethodMetrics method(String service, String method) {
+        Map<String, MethodMetrics> serviceMethods = methods.get(service);
+        if (serviceMethods == null) {
+            serviceMethods = methods.computeIfAbsent(service, key -> new ConcurrentHashMap<>());
+        }
+        MethodMetrics metrics = serviceMethods.get(method);
+        if (metrics == null) {
+            metrics = serviceMethods.computeIfAbsent(method, key -> new MethodMetrics(service, key));
+        }
+        return metrics;
+    }
+
+    /**
+     * 记录一次序列化
+     *
+     * @param nanos 耗时，单位纳秒
+     * @param bytes 序列化后的字节数
+     */
+    public void recordSerialize(long nanos, int bytes) {
+        serializeTime.record(nanos);
+        bytesOut.add(bytes);
+    }
+
+    /**
+     * 记录一次反序列化
+     *
+     * @param nanos 耗时，单位纳秒
+     * @param bytes 反序列化前的字节数
+     */
+    public void recordDeserialize(long nanos, int bytes) {
+        deserializeTime.record(nanos);
+        bytesIn.add(bytes);
+    }
+
+    /**
+     * 获取服务提供者的在途请求计数器
+     *
+     * @param address 服务地址
+     * @return 在途请求计数器
+     */
+    public AtomicLong providerInflight(String address) {
+        AtomicLong inflight = providerInflight.get(address);
+        if (inflight == null) {
+            inflight = providerInflight.computeIfAbsent(address, key -> new AtomicLong());
+        }
+        return inflight;
+    }
+
+    /**
+     * 生成全部指标的快照
+     */
+    public MetricsSnapshot snapshot() {
+        MetricsSnapshot snapshot = new MetricsSnapshot();
+        snapshot.setSide(side);
+        snapshot.setTimestamp(System.currentTimeMillis());
+        snapshot.setMethods(getMethods());
+        snapshot.setSerialize(getSerialize());
+        snapshot.setDeserialize(getDeserialize());
+        snapshot.setBytesOut(getBytesOut());
+        snapshot.setBytesIn(getBytesIn());
+        snapshot.setProviderInflight(getProviderInflight());
+        return snapshot;
+    }
+
+    /**
+     * 添加指标导出器，按固定周期导出快照
+     *
+     * @param exporter     导出器
+     * @param periodMillis 导出周期，单位毫秒
+     */
+    public void addExporter(MetricsExporter exporter, long periodMillis) {
+        scheduler().scheduleAtFixedRate(() -> {
+            try {
+                exporter.export(snapshot());
+            } catch (Exception e) {
+                log.warn("导出RPC指标失败", e);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<MethodStats> getMethods() {
+        List<MethodStats> result = new ArrayList<>();
+        for (Map<String, MethodMetrics> serviceMethods : methods.values()) {
+            for (MethodMetrics metrics : serviceMethods.values()) {
+                result.add(metrics.snapshot());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public HistogramStats getSerialize() {
+        return serializeTime.snapshotMicros();
+    }
+
+    @Override
+    public HistogramStats getDeserialize() {
+        return deserializeTime.snapshotMicros();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    @Override
+    public Map<String, Long> getProviderInflight() {
+        Map<String, Long> result = new TreeMap<>();
+        providerInflight.forEach((address, inflight) -> result.put(address, inflight.get()));
+        return result;
+    }
+
+    private static ScheduledExecutorService scheduler() {
+        if (exportScheduler == null) {
+            synchronized (RpcMetrics.class) {
+                if (exportScheduler == null) {
+                    exportScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread thread = new Thread(r, "rpc-metrics-exporter");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return exportScheduler;
+    }
+}
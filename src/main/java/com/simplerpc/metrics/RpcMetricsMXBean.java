@@ -0,0 +1,39 @@
+package com.simplerpc.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RPC指标的JMX接口
+ */
+public interface RpcMetricsMXBean {
+    /**
+     * 各服务方法的指标
+     */
+    List<MethodStats> getMethods();
+
+    /**
+     * 序列化耗时分布
+     */
+    HistogramStats getSerialize();
+
+    /**
+     * 反序列化耗时分布
+     */
+    HistogramStats getDeserialize();
+
+    /**
+     * 发送字节数
+     */
+    long getBytesOut();
+
+    /**
+     * 接收字节数
+     */
+    long getBytesIn();
+
+    /**
+     * 各服务提供者的在途请求数
+     */
+    Map<String, Long> getProviderInflight();
+}
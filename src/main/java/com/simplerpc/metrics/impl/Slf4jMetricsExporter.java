@@ -0,0 +1,34 @@
+package com.simplerpc.metrics.impl;
+
+import com.simplerpc.metrics.HistogramStats;
+import com.simplerpc.metrics.MethodStats;
+import com.simplerpc.metrics.MetricsExporter;
+import com.simplerpc.metrics.MetricsSnapshot;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 将指标输出到日志的导出实现，每个方法一行
+ */
+@Slf4j
+public class Slf4jMetricsExporter implements MetricsExporter {
+    @Override
+    public void export(MetricsSnapshot snapshot) {
+        for (MethodStats stats : snapshot.getMethods()) {
+            HistogramStats latency = stats.getLatency();
+            log.info("[{}] {}#{} calls={} errors={} rejected={} inflight={} p50={}us p99={}us p999={}us max={}us",
+                    snapshot.getSide(), stats.getService(), stats.getMethod(), stats.getCalls(), stats.getErrors(),
+                    stats.getRejected(), stats.getInflight(), latency.getP50(), latency.getP99(),
+                    latency.getP999(), latency.getMax());
+            if (stats.getCacheHits() + stats.getCacheMisses() + stats.getCoalesced()
+                    + stats.getRetries() + stats.getHedges() > 0) {
+                log.info("[{}] {}#{} cacheHits={} cacheMisses={} cacheEvictions={} coalesced={} retries={} hedges={}",
+                        snapshot.getSide(), stats.getService(), stats.getMethod(), stats.getCacheHits(),
+                        stats.getCacheMisses(), stats.getCacheEvictions(), stats.getCoalesced(),
+                        stats.getRetries(), stats.getHedges());
+            }
+        }
+        log.info("[{}] bytesIn={} bytesOut={} serializeP99={}us deserializeP99={}us",
+                snapshot.getSide(), snapshot.getBytesIn(), snapshot.getBytesOut(),
+                snapshot.getSerialize().getP99(), snapshot.getDeserialize().getP99());
+    }
+}
@@ -0,0 +1,116 @@
+package com.simplerpc.proxy;
+
+import com.simplerpc.common.URL;
+import com.simplerpc.common.annotation.RpcAdaptiveTimeout;
+import com.simplerpc.metrics.LatencyHistogram;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个方法的自适应超时，按服务提供者分别统计最近的成功调用耗时
+ * <p>
+ * 每个提供者保留当前和上一个统计窗口的耗时分布，优先使用完整的上一个窗口计算超时时间，
+ * 计算结果缓存一秒，避免每次调用都遍历直方图。
+ */
+final class AdaptiveTimeout {
+
+    private static final long RECOMPUTE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final RpcAdaptiveTimeout config;
+    private final long windowNanos;
+    // 服务提供者地址 -> 耗时统计
+    private final Map<String, RollingLatency> providers = new ConcurrentHashMap<>();
+
+    AdaptiveTimeout(RpcAdaptiveTimeout config) {
+        this.config = config;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(config.window());
+    }
+
+    /**
+     * 计算本次调用的超时时间
+     *
+     * @param url             服务提供者
+     * @param fallbackMillis  调用方配置的超时时间，样本不足时使用，同时作为上限
+     * @return 超时时间，单位毫秒
+     */
+    long timeoutMillis(URL url, long fallbackMillis) {
+        RollingLatency latency = providers.get(url.getAddress());
+        if (latency == null) {
+            return fallbackMillis;
+        }
+        long now = System.nanoTime();
+        if (now - latency.computedNanos > RECOMPUTE_NANOS) {
+            latency.computedMillis = latency.compute(now);
+            latency.computedNanos = now;
+        }
+        long adaptive = latency.computedMillis;
+        if (adaptive <= 0) {
+            return fallbackMillis;
+        }
+        long ceiling = config.max() > 0 ? config.max() : fallbackMillis;
+        if (fallbackMillis > 0) {
+            ceiling = Math.min(ceiling, fallbackMillis);
+        }
+        long timeout = Math.max(config.min(), adaptive);
+        return ceiling > 0 ? Math.min(ceiling, timeout) : timeout;
+    }
+
+    /**
+     * 记录一次成功调用的耗时
+     *
+     * @param url          服务提供者
+     * @param latencyNanos 耗时，单位纳秒
+     */
+    void record(URL url, long latencyNanos) {
+        providers.computeIfAbsent(url.getAddress(), key -> new RollingLatency()).record(latencyNanos);
+    }
+
+    /**
+     * 两个窗口滚动的耗时分布
+     */
+    private final class RollingLatency {
+        private volatile LatencyHistogram current = new LatencyHistogram();
+        private volatile LatencyHistogram previous;
+        private volatile long windowStartNanos = System.nanoTime();
+        private volatile long computedNanos = System.nanoTime() - RECOMPUTE_NANOS - 1;
+        private volatile long computedMillis;
+
+        void record(long latencyNanos) {
+            rotateIfDue(System.nanoTime());
+            current.record(latencyNanos);
+        }
+
+        /**
+         * 计算超时时间
+         *
+         * @return 超时时间，单位毫秒，样本不足时返回0
+         */
+        long compute(long now) {
+            rotateIfDue(now);
+            LatencyHistogram histogram = previous;
+            if (histogram == null || histogram.getCount() < config.minSamples()) {
+                histogram = current;
+            }
+            if (histogram.getCount() < config.minSamples()) {
+                return 0;
+            }
+            long nanos = (long) (histogram.getValueAtPercentile(config.percentile()) * config.multiplier());
+            return Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+
+        private void rotateIfDue(long now) {
+            if (now - windowStartNanos < windowNanos) {
+                return;
+            }
+            synchronized (this) {
+                if (now - windowStartNanos >= windowNanos) {
+                    previous = current;
+                    current = new LatencyHistogram();
+                    windowStartNanos = now;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.simplerpc.proxy;
+
+import com.simplerpc.serialize.Serializer;
+import com.simplerpc.serialize.impl.HessianSerializer;
+import lombok.Data;
+
+/**
+ * 进程内调用配置
+ * <p>
+ * 开启后，服务在本进程已启动的RPC服务器中发布时，代理直接在调用线程中执行服务实例的方法。
+ * 进程内调用不经过服务端的并发限制和业务线程池，截止时间只通过RpcContext传递，因此默认关闭。
+ */
+@Data
+public class InJvmConfig {
+    /**
+     * 是否开启进程内调用，关闭时始终经过网络
+     */
+    private boolean enabled = false;
+
+    /**
+     * 是否深拷贝参数和返回值，保持与远程调用一致的传值语义；不可变类型不拷贝。
+     * 关闭后调用方与服务实例共享可变对象，只应在确认双方都不修改参数和返回值时关闭
+     */
+    private boolean copyValues = true;
+
+    /**
+     * 深拷贝使用的序列化器
+     */
+    private Serializer copySerializer = new HessianSerializer();
+}
@@ -0,0 +1,131 @@
+package com.simplerpc.proxy;
+
+import com.simplerpc.common.RpcStatusCode;
+import com.simplerpc.common.URL;
+import com.simplerpc.common.annotation.RpcAdaptiveTimeout;
+import com.simplerpc.common.annotation.RpcHedge;
+import com.simplerpc.common.annotation.RpcRetry;
+import com.simplerpc.metrics.MethodMetrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 方法的重试和对冲策略，在创建代理时根据注解解析
+ */
+final class InvokePolicy {
+
+    /**
+     * 未标注注解的方法：只在过载拒绝时换一个提供者重试一次
+     */
+    static final InvokePolicy DEFAULT = new InvokePolicy(2, false, null, null);
+
+    // 按百分位计算对冲延迟所需的最少样本数
+    private static final long MIN_HEDGE_SAMPLES = 100;
+    // 按百分位计算的对冲延迟的缓存时间
+    private static final long HEDGE_DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int maxAttempts;
+    private final boolean retryUnavailable;
+    private final RpcHedge hedge;
+    private final AdaptiveTimeout adaptiveTimeout;
+
+    private volatile long hedgeDelayNanos = -1;
+    private volatile long hedgeDelayComputedNanos;
+
+    private InvokePolicy(int maxAttempts, boolean retryUnavailable, RpcHedge hedge,
+                         RpcAdaptiveTimeout adaptiveTimeout) {
+        this.maxAttempts = maxAttempts;
+        this.retryUnavailable = retryUnavailable;
+        this.hedge = hedge;
+        this.adaptiveTimeout = adaptiveTimeout != null ? new AdaptiveTimeout(adaptiveTimeout) : null;
+    }
+
+    /**
+     * 根据方法上的注解创建策略
+     *
+     * @param method 接口方法
+     * @return 策略，未标注注解时返回 {@link #DEFAULT}
+     */
+    static InvokePolicy of(Method method) {
+        RpcRetry retry = method.getAnnotation(RpcRetry.class);
+        RpcHedge hedge = method.getAnnotation(RpcHedge.class);
+        RpcAdaptiveTimeout adaptiveTimeout = method.getAnnotation(RpcAdaptiveTimeout.class);
+        if (adaptiveTimeout == null) {
+            adaptiveTimeout = method.getDeclaringClass().getAnnotation(RpcAdaptiveTimeout.class);
+        }
+        if (retry == null && hedge == null && adaptiveTimeout == null) {
+            return DEFAULT;
+        }
+        return retry != null
+                ? new InvokePolicy(Math.max(1, retry.maxAttempts()), true, hedge, adaptiveTimeout)
+                : new InvokePolicy(DEFAULT.maxAttempts, false, hedge, adaptiveTimeout);
+    }
+
+    int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    boolean isHedged() {
+        return hedge != null;
+    }
+
+    /**
+     * 判断失败的响应能否换一个提供者重试
+     *
+     * @param statusCode         状态码
+     * @param shortenedByAdaptive 本次调用的超时时间是否被自适应超时缩短
+     * @return 可以重试时返回true
+     */
+    boolean isRetryable(int statusCode, boolean shortenedByAdaptive) {
+        if (statusCode == RpcStatusCode.SERVER_OVERLOADED || statusCode == RpcStatusCode.CLIENT_OVERLOADED) {
+            return true;
+        }
+        // 自适应超时提前放弃的调用，调用方仍有剩余时间，幂等方法可以换一个提供者再试
+        return retryUnavailable && (statusCode == RpcStatusCode.UNAVAILABLE
+                || (shortenedByAdaptive && statusCode == RpcStatusCode.DEADLINE_EXCEEDED));
+    }
+
+    /**
+     * 计算本次调用的超时时间
+     *
+     * @param url            服务提供者
+     * @param timeoutMillis  调用方剩余的超时时间
+     * @return 超时时间，单位毫秒
+     */
+    long attemptTimeout(URL url, long timeoutMillis) {
+        return adaptiveTimeout != null ? adaptiveTimeout.timeoutMillis(url, timeoutMillis) : timeoutMillis;
+    }
+
+    /**
+     * 记录一次调用结果，成功调用的耗时用于计算自适应超时
+     *
+     * @param url          服务提供者
+     * @param statusCode   状态码
+     * @param latencyNanos 耗时，单位纳秒
+     */
+    void onResult(URL url, int statusCode, long latencyNanos) {
+        if (adaptiveTimeout != null && statusCode == RpcStatusCode.SUCCESS) {
+            adaptiveTimeout.record(url, latencyNanos);
+        }
+    }
+
+    /**
+     * 获取对冲延迟
+     *
+     * @param metrics 方法指标，用于按百分位计算延迟
+     * @return 对冲延迟，单位纳秒，小于0表示暂不对冲
+     */
+    long hedgeDelayNanos(MethodMetrics metrics) {
+        if (hedge.delay() > 0) {
+            return TimeUnit.MILLISECONDS.toNanos(hedge.delay());
+        }
+        long now = System.nanoTime();
+        if (hedgeDelayNanos < 0 || now - hedgeDelayComputedNanos > HEDGE_DELAY_REFRESH_NANOS) {
+            hedgeDelayNanos = metrics.getCalls() < MIN_HEDGE_SAMPLES
+                    ? -1 : metrics.latencyAtPercentile(hedge.percentile());
+            hedgeDelayComputedNanos = now;
+        }
+        return hedgeDelayNanos;
+    }
+}
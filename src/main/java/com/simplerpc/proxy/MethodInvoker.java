@@ -0,0 +1,127 @@
+package com.simplerpc.proxy;
+
+import com.simplerpc.cache.ResultCache;
+import com.simplerpc.cache.SingleFlight;
+import com.simplerpc.cluster.ClusterMode;
+import com.simplerpc.cluster.ResultMerger;
+import com.simplerpc.cluster.impl.DefaultResultMerger;
+import com.simplerpc.common.annotation.RpcCluster;
+import com.simplerpc.common.annotation.RpcOneway;
+import com.simplerpc.metrics.MethodMetrics;
+import com.simplerpc.metrics.RpcMetrics;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.function.Supplier;
+
+/**
+ * 单个接口方法的调用入口，创建代理时解析好方法元数据，调用时只需填入参数并发送
+ */
+final class MethodInvoker {
+
+    private final RpcProxyFactory factory;
+
+    final Method method;
+    final String serviceName;
+    final String interfaceName;
+    final String methodName;
+    final Class<?>[] parameterTypes;
+    final Type returnType;
+    final String version;
+    final long timeout;
+    final InvokePolicy policy;
+    final boolean oneway;
+    final ClusterMode clusterMode;
+    final int forks;
+    final ResultMerger merger;
+    final MethodMetrics metrics;
+
+    private final ResultCache cache;
+    private final SingleFlight flight;
+
+    MethodInvoker(RpcProxyFactory factory, Class<?> interfaceClass, String serviceName, String version,
+                  long timeout, ClusterMode clusterMode, Method method, ResultCache cache, SingleFlight flight) {
+        this.factory = factory;
+        this.method = method;
+        // 进程内调用时直接反射调用接口方法，非public接口需要放开访问检查
+        if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            method.setAccessible(true);
+        }
+        this.serviceName = serviceName;
+        this.interfaceName = interfaceClass.getName();
+        this.methodName = method.getName();
+        this.parameterTypes = method.getParameterTypes();
+        this.returnType = method.getGenericReturnType();
+        this.version = version;
+        this.timeout = timeout;
+        this.policy = InvokePolicy.of(method);
+        this.oneway = isOneway(method);
+        RpcCluster cluster = method.isAnnotationPresent(RpcCluster.class)
+                ? method.getAnnotation(RpcCluster.class) : method.getDeclaringClass().getAnnotation(RpcCluster.class);
+        this.clusterMode = cluster != null ? cluster.value() : clusterMode;
+        this.forks = cluster != null ? cluster.forks() : 2;
+        this.merger = this.clusterMode == ClusterMode.SCATTER_GATHER ? createMerger(method, cluster) : null;
+        if (oneway && this.clusterMode != ClusterMode.FAILOVER && this.clusterMode != ClusterMode.BROADCAST) {
+            throw new IllegalStateException("单向调用方法只能使用FAILOVER或BROADCAST模式: " + method);
+        }
+        if (this.clusterMode == ClusterMode.FORKING && forks < 1) {
+            throw new IllegalStateException("FORKING模式的并行数必须大于0: " + method);
+        }
+        this.metrics = RpcMetrics.client().method(interfaceName, methodName);
+        this.cache = cache;
+        this.flight = flight;
+    }
+
+    /**
+     * 判断是否为单向调用：方法或接口标注了 {@link RpcOneway} 且方法返回void
+     *
+     * @throws IllegalStateException 方法标注了单向调用但有返回值
+     */
+    private static boolean isOneway(Method method) {
+        if (method.isAnnotationPresent(RpcOneway.class)) {
+            if (method.getReturnType() != void.class) {
+                throw new IllegalStateException("单向调用方法必须返回void: " + method);
+            }
+            return true;
+        }
+        return method.getReturnType() == void.class
+                && method.getDeclaringClass().isAnnotationPresent(RpcOneway.class);
+    }
+
+    /**
+     * 创建SCATTER_GATHER模式的结果合并器
+     *
+     * @throws IllegalStateException 默认合并器不支持方法的返回类型，或合并器无法实例化
+     */
+    private static ResultMerger createMerger(Method method, RpcCluster cluster) {
+        Class<? extends ResultMerger> mergerClass = cluster != null ? cluster.merger() : DefaultResultMerger.class;
+        if (mergerClass == DefaultResultMerger.class && !DefaultResultMerger.supports(method.getReturnType())) {
+            throw new IllegalStateException("默认合并器不支持该返回类型，请指定合并器: " + method);
+        }
+        try {
+            return mergerClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("创建结果合并器失败: " + mergerClass.getName(), e);
+        }
+    }
+
+    /**
+     * 发起调用，生成的桩类和动态代理都通过该方法调用
+     *
+     * @param args 调用参数，无参方法为null
+     * @return 调用结果
+     */
+    Object invoke(Object[] args) {
+        if (cache == null && flight == null) {
+            return factory.invoke(this, args);
+        }
+        Supplier<Object> call = () -> factory.invoke(this, args);
+        // 合并在缓存之下，缓存过期瞬间的并发未命中也只发出一个请求
+        if (flight != null) {
+            Supplier<Object> remoteCall = call;
+            call = () -> flight.execute(args, RpcProxyFactory.waitTimeout(timeout), remoteCall);
+        }
+        return cache != null ? cache.get(args, call) : call.get();
+    }
+}
@@ -0,0 +1,134 @@
+package com.simplerpc.proxy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 重试预算，限制重试和对冲请求占正常请求的比例
+ * <p>
+ * 每个正常请求存入ratio个额度，每次重试或对冲消耗1个额度；另外每秒固定补充minPerSecond个额度，
+ * 保证低流量时也能重试。额度上限为一秒的补充量加上最近一秒内正常请求存入的额度，上限随流量变化，
+ * 避免空闲期攒下大量额度。
+ * 服务整体故障时重试最多只会把请求量放大到(1 + ratio)倍，不会因为重试而雪崩。
+ */
+public class RetryBudget {
+
+    // 额度以千分之一为单位保存，避免浮点运算
+    private static final long UNIT = 1000;
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long depositPerRequest;
+    private final long refillPerSecond;
+    private final AtomicLong balance;
+    private final AtomicLong lastRefillNanos = new AtomicLong(System.nanoTime());
+    private final LongAdder exhausted = new LongAdder();
+    // 按整秒滚动的存入统计，上一秒和当前这一秒中较大的一个计入额度上限
+    private final AtomicLong windowStartNanos = new AtomicLong(System.nanoTime());
+    private final LongAdder windowDeposits = new LongAdder();
+    private volatile long previousWindowDeposits;
+
+    /**
+     * 构造函数
+     *
+     * @param ratio        每个正常请求可以带来的重试次数，例如0.1表示重试最多为请求量的10%
+     * @param minPerSecond 每秒至少允许的重试次数
+     */
+    public RetryBudget(double ratio, int minPerSecond) {
+        this.depositPerRequest = (long) (ratio * UNIT);
+        this.refillPerSecond = minPerSecond * UNIT;
+        this.balance = new AtomicLong(refillPerSecond);
+    }
+
+    /**
+     * 构造函数，默认重试最多为请求量的10%，每秒至少允许10次
+     */
+    public RetryBudget() {
+        this(0.1, 10);
+    }
+
+    /**
+     * 发起正常请求时存入额度
+     */
+    public void deposit() {
+        rollWindow(System.nanoTime());
+        windowDeposits.add(depositPerRequest);
+        add(depositPerRequest);
+    }
+
+    /**
+     * 尝试获取一次重试的额度
+     *
+     * @return 预算充足时返回true
+     */
+    public boolean tryWithdraw() {
+        refill();
+        long current;
+        do {
+            current = balance.get();
+            if (current < UNIT) {
+                exhausted.increment();
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - UNIT));
+        return true;
+    }
+
+    /**
+     * 获取因预算不足而放弃的重试次数
+     */
+    public long getExhausted() {
+        return exhausted.sum();
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        if (rollWindow(now)) {
+            // 流量下降后上限随之降低，超出部分作废
+            long maxBalance = maxBalance();
+            balance.accumulateAndGet(maxBalance, Math::min);
+        }
+        long last = lastRefillNanos.get();
+        long elapsed = now - last;
+        if (elapsed < TimeUnit.MILLISECONDS.toNanos(10) || !lastRefillNanos.compareAndSet(last, now)) {
+            return;
+        }
+        add(refillPerSecond * elapsed / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * 滚动存入统计的窗口
+     *
+     * @return 本次调用完成滚动时返回true
+     */
+    private boolean rollWindow(long now) {
+        long start = windowStartNanos.get();
+        long elapsed = now - start;
+        if (elapsed < WINDOW_NANOS || !windowStartNanos.compareAndSet(start, now)) {
+            return false;
+        }
+        long deposits = windowDeposits.sumThenReset();
+        // 超过一个窗口没有请求时，上一秒没有存入
+        previousWindowDeposits = elapsed < 2 * WINDOW_NANOS ? deposits : 0;
+        return true;
+    }
+
+    /**
+     * 额度上限：一秒的补充量加上最近一秒内正常请求存入的额度
+     */
+    private long maxBalance() {
+        return refillPerSecond + Math.max(previousWindowDeposits, windowDeposits.sum());
+    }
+
+    private void add(long amount) {
+        long maxBalance = maxBalance();
+        long current;
+        do {
+            current = balance.get();
+            if (current >= maxBalance) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(maxBalance, current + amount)));
+    }
+}
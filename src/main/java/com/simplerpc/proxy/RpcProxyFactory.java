@@ -1,18 +1,56 @@
 package com.simplerpc.proxy;
 
+import com.simplerpc.cache.ResultCache;
+import com.simplerpc.cache.SingleFlight;
+import com.simplerpc.cluster.ClusterMode;
+import com.simplerpc.common.Blob;
+import com.simplerpc.common.LogRateLimiter;
+import com.simplerpc.common.RpcContext;
 import com.simplerpc.common.RpcRequest;
 import com.simplerpc.common.RpcResponse;
+import com.simplerpc.common.RpcStatusCode;
 import com.simplerpc.common.URL;
+import com.simplerpc.common.annotation.RpcCacheable;
+import com.simplerpc.common.annotation.RpcSingleFlight;
+import com.simplerpc.jfr.RpcInvokeEvent;
+import com.simplerpc.loadbalance.LoadBalancer;
+import com.simplerpc.loadbalance.OutlierDetector;
+import com.simplerpc.loadbalance.impl.RandomLoadBalancer;
+import com.simplerpc.metrics.MethodMetrics;
+import com.simplerpc.metrics.RpcMetrics;
 import com.simplerpc.registry.ServiceRegistry;
+import com.simplerpc.serialize.Serializer;
+import com.simplerpc.trace.Span;
+import com.simplerpc.trace.Tracer;
+import com.simplerpc.transport.InJvmServices;
 import com.simplerpc.transport.RpcClient;
 import lombok.extern.slf4j.Slf4j;
 
-import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * RPC代理工厂，用于创建远程服务的代理
@@ -20,8 +58,31 @@ import java.util.UUID;
 @Slf4j
 public class RpcProxyFactory {
 
+    // 进程内调用深拷贝时直接共享的不可变类型
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(String.class,
+            Integer.class, Long.class, Short.class, Byte.class, Character.class, Boolean.class, Double.class,
+            Float.class, BigInteger.class, BigDecimal.class));
+
     private final RpcClient rpcClient;
     private final ServiceRegistry serviceRegistry;
+    private final LoadBalancer loadBalancer;
+    private final RetryBudget retryBudget;
+    private final OutlierDetector outlierDetector;
+    private final InJvmConfig inJvmConfig;
+    // 进程内单向调用的失败不抛给调用方，错误日志限流到每秒一条
+    private final LogRateLimiter onewayErrorLogLimiter = new LogRateLimiter(1, TimeUnit.SECONDS);
+
+    // 服务名 -> 方法 -> 结果缓存，同一服务的多个代理共享，也用于按服务失效
+    private final Map<String, Map<Method, ResultCache>> caches = new ConcurrentHashMap<>();
+    // 服务名 -> 方法 -> 请求合并，同一服务的多个代理共享
+    private final Map<String, Map<Method, SingleFlight>> singleFlights = new ConcurrentHashMap<>();
+    // 提前刷新缓存的线程池，线程按需创建，繁忙时放弃本次刷新
+    private final ThreadPoolExecutor cacheRefreshExecutor = new ThreadPoolExecutor(0, 4, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "rpc-cache-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
 
     /**
      * 构造函数
@@ -30,8 +91,66 @@ public class RpcProxyFactory {
      * @param serviceRegistry 服务注册中心
      */
     public RpcProxyFactory(RpcClient rpcClient, ServiceRegistry serviceRegistry) {
+        // 默认使用随机负载均衡
+        this(rpcClient, serviceRegistry, new RandomLoadBalancer());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param rpcClient       RPC客户端
+     * @param serviceRegistry 服务注册中心
+     * @param loadBalancer    负载均衡器
+     */
+    public RpcProxyFactory(RpcClient rpcClient, ServiceRegistry serviceRegistry, LoadBalancer loadBalancer) {
+        this(rpcClient, serviceRegistry, loadBalancer, new RetryBudget());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param rpcClient       RPC客户端
+     * @param serviceRegistry 服务注册中心
+     * @param loadBalancer    负载均衡器
+     * @param retryBudget     重试预算，该工厂创建的所有代理共享
+     */
+    public RpcProxyFactory(RpcClient rpcClient, ServiceRegistry serviceRegistry, LoadBalancer loadBalancer,
+                           RetryBudget retryBudget) {
+        this(rpcClient, serviceRegistry, loadBalancer, retryBudget, new OutlierDetector());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param rpcClient       RPC客户端
+     * @param serviceRegistry 服务注册中心
+     * @param loadBalancer    负载均衡器
+     * @param retryBudget     重试预算，该工厂创建的所有代理共享
+     * @param outlierDetector 异常实例检测
+     */
+    public RpcProxyFactory(RpcClient rpcClient, ServiceRegistry serviceRegistry, LoadBalancer loadBalancer,
+                           RetryBudget retryBudget, OutlierDetector outlierDetector) {
+        this(rpcClient, serviceRegistry, loadBalancer, retryBudget, outlierDetector, new InJvmConfig());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param rpcClient       RPC客户端
+     * @param serviceRegistry 服务注册中心
+     * @param loadBalancer    负载均衡器
+     * @param retryBudget     重试预算，该工厂创建的所有代理共享
+     * @param outlierDetector 异常实例检测
+     * @param inJvmConfig     进程内调用配置
+     */
+    public RpcProxyFactory(RpcClient rpcClient, ServiceRegistry serviceRegistry, LoadBalancer loadBalancer,
+                           RetryBudget retryBudget, OutlierDetector outlierDetector, InJvmConfig inJvmConfig) {
         this.rpcClient = rpcClient;
         this.serviceRegistry = serviceRegistry;
+        this.loadBalancer = loadBalancer;
+        this.retryBudget = retryBudget;
+        this.outlierDetector = outlierDetector;
+        this.inJvmConfig = inJvmConfig;
     }
 
     /**
@@ -43,50 +162,697 @@ public class RpcProxyFactory {
      * @param <T>            接口类型
      * @return 代理对象
      */
-    @SuppressWarnings("unchecked")
     public <T> T create(Class<T> interfaceClass, String version, long timeout) {
+        return create(interfaceClass, version, timeout, ClusterMode.FAILOVER);
+    }
+
+    /**
+     * 创建代理
+     *
+     * @param interfaceClass 接口类
+     * @param version        版本号
+     * @param timeout        超时时间
+     * @param clusterMode    集群调用模式，接口或方法上的 {@link com.simplerpc.common.annotation.RpcCluster} 优先
+     * @param <T>            接口类型
+     * @return 代理对象
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T create(Class<T> interfaceClass, String version, long timeout, ClusterMode clusterMode) {
+        Map<Method, ResultCache> methodCaches = createCaches(interfaceClass, version);
+        Map<Method, SingleFlight> methodFlights = createSingleFlights(interfaceClass, version);
+        String serviceName = serviceName(interfaceClass, version);
+        // 方法元数据、调用策略和指标在创建时解析一次
+        Map<Method, MethodInvoker> invokers = new LinkedHashMap<>();
+        for (Method method : interfaceClass.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers())) {
+                invokers.put(method, new MethodInvoker(this, interfaceClass, serviceName, version, timeout, clusterMode, method,
+                        methodCaches.get(method), methodFlights.get(method)));
+            }
+        }
+
+        T stub = StubGenerator.generate(interfaceClass, invokers);
+        if (stub != null) {
+            return stub;
+        }
         return (T) Proxy.newProxyInstance(
                 interfaceClass.getClassLoader(),
                 new Class<?>[]{interfaceClass},
-                new InvocationHandler() {
-                    @Override
-                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-                        // 构建服务名
-                        String serviceName = interfaceClass.getName();
-                        if (version != null && !version.isEmpty()) {
-                            serviceName += "-" + version;
-                        }
-
-                        // 构建请求
-                        RpcRequest request = new RpcRequest();
-                        request.setRequestId(UUID.randomUUID().toString());
-                        request.setInterfaceName(interfaceClass.getName());
-                        request.setMethodName(method.getName());
-                        request.setParameterTypes(method.getParameterTypes());
-                        request.setParameters(args);
-                        request.setVersion(version);
-
-                        // 从注册中心发现服务
-                        List<URL> urls = serviceRegistry.discover(serviceName);
-
-                        if (urls == null || urls.isEmpty()) {
-                            throw new RuntimeException("无法找到服务: " + serviceName);
-                        }
-
-                        // 随机选择一个服务实例（简单的负载均衡）
-                        URL url = urls.get(new Random().nextInt(urls.size()));
-
-                        // 发送请求
-                        RpcResponse response = rpcClient.send(url, request);
-
-                        // 处理响应
-                        if (response.getStatusCode() != 200) {
-                            throw new RuntimeException(response.getMessage());
-                        }
-
-                        return response.getData();
+                (proxy, method, args) -> {
+                    MethodInvoker invoker = invokers.get(method);
+                    if (invoker != null) {
+                        return invoker.invoke(args);
+                    }
+                    // Object的方法在本地处理，与生成的桩类一致
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return interfaceClass.getName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
                     }
                 });
     }
 
+    /**
+     * 清空服务的全部结果缓存，可在服务端数据变更或服务提供者变化时调用
+     *
+     * @param serviceName 服务名(接口名+版本)
+     */
+    public void invalidateCache(String serviceName) {
+        Map<Method, ResultCache> serviceCaches = caches.get(serviceName);
+        if (serviceCaches != null) {
+            for (ResultCache cache : serviceCaches.values()) {
+                cache.invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * 获取标注了 {@link RpcCacheable} 的方法的结果缓存，同一服务的多个代理共享
+     *
+     * @param interfaceClass 接口类
+     * @param version        版本号
+     * @return 方法到缓存的映射，创建后只读
+     */
+    private Map<Method, ResultCache> createCaches(Class<?> interfaceClass, String version) {
+        Map<Method, ResultCache> shared = caches.computeIfAbsent(
+                serviceName(interfaceClass, version), key -> new ConcurrentHashMap<>());
+        Map<Method, ResultCache> methodCaches = new HashMap<>();
+        for (Method method : interfaceClass.getMethods()) {
+            RpcCacheable cacheable = method.getAnnotation(RpcCacheable.class);
+            if (cacheable != null) {
+                methodCaches.put(method, shared.computeIfAbsent(method, key -> new ResultCache(cacheable,
+                        cacheRefreshExecutor, RpcMetrics.client().method(interfaceClass.getName(), method.getName()))));
+            }
+        }
+        return methodCaches;
+    }
+
+    /**
+     * 获取标注了 {@link RpcSingleFlight} 的方法的请求合并，同一服务的多个代理共享
+     *
+     * @param interfaceClass 接口类
+     * @param version        版本号
+     * @return 方法到请求合并的映射，创建后只读
+     */
+    private Map<Method, SingleFlight> createSingleFlights(Class<?> interfaceClass, String version) {
+        Map<Method, SingleFlight> shared = singleFlights.computeIfAbsent(
+                serviceName(interfaceClass, version), key -> new ConcurrentHashMap<>());
+        Map<Method, SingleFlight> methodFlights = new HashMap<>();
+        for (Method method : interfaceClass.getMethods()) {
+            if (method.isAnnotationPresent(RpcSingleFlight.class)) {
+                methodFlights.put(method, shared.computeIfAbsent(method, key -> new SingleFlight(
+                        RpcMetrics.client().method(interfaceClass.getName(), method.getName()))));
+            }
+        }
+        return methodFlights;
+    }
+
+    /**
+     * 计算等待合并请求的超时时间，不超过当前线程上游调用的剩余时间
+     *
+     * @param timeout 配置的超时时间
+     * @return 超时时间，单位毫秒，0表示不限制
+     */
+    static long waitTimeout(long timeout) {
+        RpcContext context = RpcContext.getContext();
+        if (!context.hasDeadline()) {
+            return timeout;
+        }
+        long remaining = Math.max(1, context.getRemainingMillis());
+        return timeout > 0 ? Math.min(timeout, remaining) : remaining;
+    }
+
+    /**
+     * 构建服务名
+     *
+     * @param interfaceClass 接口类
+     * @param version        版本号
+     * @return 服务名(接口名+版本)
+     */
+    private static String serviceName(Class<?> interfaceClass, String version) {
+        String serviceName = interfaceClass.getName();
+        if (version != null && !version.isEmpty()) {
+            serviceName += "-" + version;
+        }
+        return serviceName;
+    }
+
+    /**
+     * 发起远程调用
+     *
+     * @param invoker 方法调用入口
+     * @param args    调用参数
+     * @return 调用结果
+     */
+    Object invoke(MethodInvoker invoker, Object[] args) {
+        RpcInvokeEvent event = new RpcInvokeEvent();
+        event.begin();
+
+        String serviceName = invoker.serviceName;
+        long timeout = invoker.timeout;
+        InvokePolicy policy = invoker.policy;
+
+        // 构建请求，参数类型数组在创建代理时已复制，各请求共享
+        RpcRequest request = new RpcRequest();
+        request.setRequestId(newRequestId());
+        request.setInterfaceName(invoker.interfaceName);
+        request.setMethodName(invoker.methodName);
+        request.setParameterTypes(invoker.parameterTypes);
+        request.setParameters(args);
+        request.setVersion(invoker.version);
+        request.returnType(invoker.returnType);
+
+        int statusCode = RpcStatusCode.INTERNAL_ERROR;
+        try {
+            // 在服务端线程中发起的下游调用，超时不能超过上游剩余的时间
+            long effectiveTimeout = timeout;
+            RpcContext context = RpcContext.getContext();
+            if (context.hasDeadline()) {
+                long remaining = context.getRemainingMillis();
+                if (remaining <= 0) {
+                    statusCode = RpcStatusCode.DEADLINE_EXCEEDED;
+                    throw new RuntimeException("调用剩余时间已耗尽: " + serviceName + "#" + invoker.methodName);
+                }
+                effectiveTimeout = timeout > 0 ? Math.min(timeout, remaining) : remaining;
+            }
+            request.setTimeout(effectiveTimeout);
+
+            // 服务在本进程发布时直接调用服务实例，集群模式需要调用全部或多个服务提供者，不走进程内调用
+            Object localBean = inJvmConfig.isEnabled() && invoker.clusterMode == ClusterMode.FAILOVER
+                    ? InJvmServices.get(serviceName) : null;
+            if (localBean != null && invoker.method.getDeclaringClass().isInstance(localBean)) {
+                Object result = invokeInJvm(invoker, request, localBean);
+                statusCode = RpcStatusCode.SUCCESS;
+                return result;
+            }
+
+            // 从注册中心发现服务
+            List<URL> urls = serviceRegistry.discover(serviceName);
+
+            if (urls == null || urls.isEmpty()) {
+                statusCode = RpcStatusCode.SERVICE_NOT_FOUND;
+                throw new RuntimeException("无法找到服务: " + serviceName);
+            }
+
+            if (invoker.clusterMode != ClusterMode.FAILOVER) {
+                RpcResponse response = invokeCluster(invoker, urls, request);
+                statusCode = response.getStatusCode();
+                if (statusCode != RpcStatusCode.SUCCESS) {
+                    throw new RuntimeException(response.getMessage());
+                }
+                return response.getData();
+            }
+
+            // 排除被摘除的异常实例
+            urls = outlierDetector.filter(serviceName, urls);
+
+            // 单向调用写入连接后即返回，没有响应可供重试或对冲
+            if (invoker.oneway) {
+                RpcResponse response = rpcClient.sendOneway(selectUrl(urls, request), request);
+                statusCode = response.getStatusCode();
+                if (statusCode != RpcStatusCode.SUCCESS) {
+                    throw new RuntimeException(response.getMessage());
+                }
+                return null;
+            }
+
+            MethodMetrics metrics = invoker.metrics;
+            long deadlineNanos = effectiveTimeout > 0
+                    ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(effectiveTimeout) : 0;
+            retryBudget.deposit();
+
+            List<URL> tried = new ArrayList<>(2);
+            RpcResponse response;
+            for (int attempt = 1; ; attempt++) {
+                // 选择一个未尝试过的服务实例
+                URL url = selectUrl(untried(urls, tried), request);
+                tried.add(url);
+
+                // 自适应超时按该实例最近的耗时缩短本次调用的超时时间
+                long remainingTimeout = request.getTimeout();
+                request.setTimeout(policy.attemptTimeout(url, remainingTimeout));
+                boolean shortened = request.getTimeout() > 0
+                        && (remainingTimeout <= 0 || request.getTimeout() < remainingTimeout);
+
+                // 发送请求
+                if (policy.isHedged()) {
+                    response = sendHedged(serviceName, urls, tried, url, request, policy, metrics);
+                } else {
+                    long sendNanos = System.nanoTime();
+                    response = rpcClient.send(url, request);
+                    onResult(serviceName, policy, url, response.getStatusCode(), System.nanoTime() - sendNanos);
+                }
+
+                // 只重试确定可以安全重试的失败，并且要有剩余时间、未尝试的实例和重试预算
+                if (response.getStatusCode() == RpcStatusCode.SUCCESS
+                        || attempt >= policy.getMaxAttempts()
+                        || !policy.isRetryable(response.getStatusCode(), shortened)
+                        || tried.size() >= urls.size()) {
+                    break;
+                }
+                long remainingMillis = deadlineNanos == 0
+                        ? 0 : TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+                if ((deadlineNanos != 0 && remainingMillis <= 0) || !retryBudget.tryWithdraw()) {
+                    break;
+                }
+                metrics.onRetry();
+                request.setRequestId(newRequestId());
+                request.setTimeout(remainingMillis);
+            }
+
+            // 处理响应
+            statusCode = response.getStatusCode();
+            if (statusCode != RpcStatusCode.SUCCESS) {
+                throw new RuntimeException(response.getMessage());
+            }
+
+            return response.getData();
+        } finally {
+            if (event.shouldCommit()) {
+                event.service = request.getInterfaceName();
+                event.method = request.getMethodName();
+                event.requestId = request.getRequestId();
+                event.statusCode = statusCode;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * 在调用线程中直接执行本进程发布的服务实例
+     * <p>
+     * 客户端和服务端的方法指标、调用追踪和截止时间与远程调用一致；服务端的并发限制和业务线程池不参与，
+     * 超时只能通过RpcContext通知业务代码，不会中断执行。
+     *
+     * @param invoker 方法调用入口
+     * @param request 已填好参数和超时时间的请求
+     * @param bean    服务实例
+     * @return 调用结果
+     */
+    private Object invokeInJvm(MethodInvoker invoker, RpcRequest request, Object bean) {
+        MethodMetrics clientMetrics = invoker.metrics;
+        MethodMetrics serverMetrics = RpcMetrics.server().method(invoker.interfaceName, invoker.methodName);
+        boolean copyValues = inJvmConfig.isCopyValues();
+        Object[] args = copyValues ? copyAll(request.getParameters()) : request.getParameters();
+
+        Span clientSpan = Tracer.startClientSpan(request);
+        Span serverSpan = Tracer.startServerSpan(request);
+        long startNanos = System.nanoTime();
+        clientMetrics.onStart();
+        serverMetrics.onStart();
+        RpcContext caller = RpcContext.pushContext();
+        boolean success = false;
+        try {
+            RpcContext context = RpcContext.getContext();
+            context.setDeadlineNanos(request.getTimeout() > 0
+                    ? startNanos + TimeUnit.MILLISECONDS.toNanos(request.getTimeout()) : 0);
+            context.setAttachments(request.getAttachments());
+            context.setSpan(serverSpan);
+            Object result = invoker.method.invoke(bean, args);
+            success = true;
+            return copyValues ? copy(result) : result;
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (invoker.oneway) {
+                // 与远程单向调用一致，调用方不感知服务端的失败
+                if (onewayErrorLogLimiter.tryAcquire()) {
+                    log.error("单向调用{}#{}失败，上次记录后省略{}条", invoker.interfaceName, invoker.methodName,
+                            onewayErrorLogLimiter.drainSuppressed(), cause);
+                }
+                return null;
+            }
+            throw new RuntimeException("处理请求失败: " + cause.getMessage(), cause);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("处理请求失败: " + e.getMessage(), e);
+        } finally {
+            RpcContext.restoreContext(caller);
+            long latencyNanos = System.nanoTime() - startNanos;
+            int statusCode = success ? RpcStatusCode.SUCCESS : RpcStatusCode.INTERNAL_ERROR;
+            serverMetrics.onComplete(latencyNanos, success);
+            clientMetrics.onComplete(latencyNanos, success);
+            Tracer.finishServerSpan(serverSpan, statusCode);
+            Tracer.finishClientSpan(clientSpan, statusCode);
+        }
+    }
+
+    private Object[] copyAll(Object[] values) {
+        if (values == null) {
+            return null;
+        }
+        Object[] copies = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            copies[i] = copy(values[i]);
+        }
+        return copies;
+    }
+
+    /**
+     * 通过序列化深拷贝，不可变类型直接返回
+     */
+    private Object copy(Object value) {
+        if (value == null || value instanceof Enum || IMMUTABLE_TYPES.contains(value.getClass())) {
+            return value;
+        }
+        Serializer serializer = inJvmConfig.getCopySerializer();
+        return serializer.deserialize(serializer.serialize(value), value.getClass());
+    }
+
+    /**
+     * 按集群模式并行调用多个服务提供者
+     *
+     * @param invoker 方法调用入口
+     * @param urls    全部服务地址
+     * @param request 已填好参数和超时时间的请求
+     * @return 汇总后的响应
+     */
+    private RpcResponse invokeCluster(MethodInvoker invoker, List<URL> urls, RpcRequest request) {
+        switch (invoker.clusterMode) {
+            case BROADCAST:
+                return broadcast(invoker, urls, request);
+            case FORKING:
+                return fork(invoker, urls, request);
+            case SCATTER_GATHER:
+                return scatterGather(invoker, urls, request);
+            default:
+                throw new IllegalStateException("不支持的集群调用模式: " + invoker.clusterMode);
+        }
+    }
+
+    /**
+     * 广播调用全部服务提供者，全部成功时返回第一个响应，否则返回汇总了各提供者错误的失败响应
+     * <p>
+     * 广播的目的是让每个提供者都收到调用，不排除被离群检测摘除的实例。
+     */
+    private RpcResponse broadcast(MethodInvoker invoker, List<URL> urls, RpcRequest request) {
+        List<RpcResponse> responses = sendAll(invoker, urls, request);
+        RpcResponse failed = aggregateFailure("广播调用失败", urls, responses);
+        if (failed != null) {
+            releaseAll(responses, null);
+            return failed;
+        }
+        releaseAll(responses, responses.get(0));
+        return responses.get(0);
+    }
+
+    /**
+     * 并行调用全部服务提供者，全部成功后用方法的合并器合并结果；任意提供者失败则整个调用失败，
+     * 避免调用方把部分分片的结果当作完整结果
+     */
+    private RpcResponse scatterGather(MethodInvoker invoker, List<URL> urls, RpcRequest request) {
+        List<RpcResponse> responses = sendAll(invoker, urls, request);
+        RpcResponse failed = aggregateFailure("分片调用失败", urls, responses);
+        if (failed != null) {
+            releaseAll(responses, null);
+            return failed;
+        }
+        List<Object> results = new ArrayList<>(responses.size());
+        for (RpcResponse response : responses) {
+            results.add(response.getData());
+        }
+        try {
+            return RpcResponse.success(request.getRequestId(),
+                    invoker.merger.merge(invoker.method.getReturnType(), results));
+        } catch (RuntimeException e) {
+            log.error("合并分片调用结果失败: {}#{}", invoker.serviceName, invoker.methodName, e);
+            return RpcResponse.fail(request.getRequestId(), RpcStatusCode.INTERNAL_ERROR, "合并分片调用结果失败: " + e);
+        }
+    }
+
+    /**
+     * 向多个服务提供者并行发送请求，采用最先成功的响应并取消其余请求；全部失败时返回最后一个失败
+     */
+    private RpcResponse fork(MethodInvoker invoker, List<URL> urls, RpcRequest request) {
+        urls = outlierDetector.filter(invoker.serviceName, urls);
+        int forks = Math.min(invoker.forks, urls.size());
+        List<URL> tried = new ArrayList<>(forks);
+        List<CompletableFuture<RpcResponse>> futures = new ArrayList<>(forks);
+        CompletableFuture<RpcResponse> winner = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(forks);
+        try {
+            for (int i = 0; i < forks; i++) {
+                URL url = selectUrl(untried(urls, tried), request);
+                tried.add(url);
+                RpcRequest forkRequest = i == 0 ? request : duplicate(request);
+                CompletableFuture<RpcResponse> future = sendAsync(invoker.serviceName, invoker.policy, url, forkRequest);
+                futures.add(future);
+                future.whenComplete((r, cause) -> complete(winner, pending, r, cause, forkRequest.getRequestId()));
+            }
+            return await(winner, request.getRequestId(), 0);
+        } finally {
+            // 取消未完成的请求，客户端会通知服务端停止处理
+            for (CompletableFuture<RpcResponse> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * 向全部服务提供者并行发送请求并等待全部完成，单向方法写入连接即算完成
+     *
+     * @return 各提供者的响应，顺序与服务地址列表一致
+     */
+    private List<RpcResponse> sendAll(MethodInvoker invoker, List<URL> urls, RpcRequest request) {
+        List<RpcRequest> requests = new ArrayList<>(urls.size());
+        List<CompletableFuture<RpcResponse>> futures = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            RpcRequest urlRequest = i == 0 ? request : duplicate(request);
+            requests.add(urlRequest);
+            futures.add(invoker.oneway
+                    ? CompletableFuture.completedFuture(rpcClient.sendOneway(urls.get(i), urlRequest))
+                    : sendAsync(invoker.serviceName, invoker.policy, urls.get(i), urlRequest));
+        }
+        // 等待被中断后中断标记仍在，其余请求会依次被取消
+        List<RpcResponse> responses = new ArrayList<>(urls.size());
+        for (int i = 0; i < futures.size(); i++) {
+            responses.add(await(futures.get(i), requests.get(i).getRequestId(), 0));
+        }
+        return responses;
+    }
+
+    /**
+     * 汇总失败的响应
+     *
+     * @return 失败响应，状态码取第一个失败的状态码，消息包含各失败提供者的地址和错误；全部成功时返回null
+     */
+    private static RpcResponse aggregateFailure(String summary, List<URL> urls, List<RpcResponse> responses) {
+        StringBuilder message = null;
+        int statusCode = RpcStatusCode.SUCCESS;
+        int failures = 0;
+        for (int i = 0; i < responses.size(); i++) {
+            RpcResponse response = responses.get(i);
+            if (response.getStatusCode() == RpcStatusCode.SUCCESS) {
+                continue;
+            }
+            if (message == null) {
+                message = new StringBuilder(": ");
+                statusCode = response.getStatusCode();
+            } else {
+                message.append("; ");
+            }
+            failures++;
+            message.append(urls.get(i).getAddress()).append(": ").append(response.getMessage());
+        }
+        if (message == null) {
+            return null;
+        }
+        return RpcResponse.fail(responses.get(0).getRequestId(), statusCode,
+                summary + " " + failures + "/" + responses.size() + message);
+    }
+
+    /**
+     * 释放不会返回给调用方的响应中的缓冲区
+     */
+    private static void releaseAll(List<RpcResponse> responses, RpcResponse kept) {
+        for (RpcResponse response : responses) {
+            if (response != kept && response.getStatusCode() == RpcStatusCode.SUCCESS) {
+                Blob.releaseValue(response.getData());
+            }
+        }
+    }
+
+    /**
+     * 选择服务实例，优先排除连接不可写或在途请求已满的实例
+     *
+     * @param urls    服务地址列表
+     * @param request RPC请求
+     * @return 选中的服务地址
+     */
+    private URL selectUrl(List<URL> urls, RpcRequest request) {
+        List<URL> available = new ArrayList<>(urls.size());
+        for (URL url : urls) {
+            if (rpcClient.isAvailable(url)) {
+                available.add(url);
+            }
+        }
+        // 全部繁忙时仍在全部实例中选择，由客户端按超限策略处理
+        return loadBalancer.select(available.isEmpty() ? urls : available, request);
+    }
+
+    /**
+     * 发送请求，超过对冲延迟仍未返回时向另一个实例发送对冲请求，采用先成功的响应并取消另一个
+     *
+     * @param serviceName 服务名
+     * @param urls    全部服务地址
+     * @param tried   已尝试的服务地址，对冲使用的地址会加入其中
+     * @param url     首选服务地址
+     * @param request RPC请求
+     * @param policy  对冲策略
+     * @param metrics 方法指标
+     * @return 响应
+     */
+    private RpcResponse sendHedged(String serviceName, List<URL> urls, List<URL> tried, URL url,
+                                   RpcRequest request, InvokePolicy policy, MethodMetrics metrics) {
+        long startNanos = System.nanoTime();
+        CompletableFuture<RpcResponse> primary = sendAsync(serviceName, policy, url, request);
+        long delayNanos = policy.hedgeDelayNanos(metrics);
+        if (delayNanos < 0 || tried.size() >= urls.size()) {
+            return await(primary, request.getRequestId(), 0);
+        }
+        RpcResponse response = await(primary, request.getRequestId(), delayNanos);
+        if (response != null) {
+            return response;
+        }
+        // 对冲请求只使用首个请求剩余的时间，整个调用不会超过调用超时和上游的截止时间
+        long remainingMillis = request.getTimeout() > 0
+                ? request.getTimeout() - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) : 0;
+        if ((request.getTimeout() > 0 && remainingMillis <= 0) || !retryBudget.tryWithdraw()) {
+            return await(primary, request.getRequestId(), 0);
+        }
+
+        URL hedgeUrl = selectUrl(untried(urls, tried), request);
+        tried.add(hedgeUrl);
+        metrics.onHedge();
+        RpcRequest hedgeRequest = duplicate(request);
+        hedgeRequest.setTimeout(remainingMillis);
+        CompletableFuture<RpcResponse> hedge = sendAsync(serviceName, policy, hedgeUrl, hedgeRequest);
+
+        // 任意一个成功即返回；都失败时返回后失败的那个
+        CompletableFuture<RpcResponse> winner = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(2);
+        primary.whenComplete((r, cause) -> complete(winner, pending, r, cause, request.getRequestId()));
+        hedge.whenComplete((r, cause) -> complete(winner, pending, r, cause, hedgeRequest.getRequestId()));
+        try {
+            return await(winner, request.getRequestId(), 0);
+        } finally {
+            // 取消未完成的一方，客户端会通知服务端停止处理
+            primary.cancel(false);
+            hedge.cancel(false);
+        }
+    }
+
+    /**
+     * 异步发送请求，完成时记录实例的调用结果
+     */
+    private CompletableFuture<RpcResponse> sendAsync(String serviceName, InvokePolicy policy, URL url,
+                                                     RpcRequest request) {
+        long sendNanos = System.nanoTime();
+        CompletableFuture<RpcResponse> future = rpcClient.sendAsync(url, request);
+        future.whenComplete((response, cause) -> onResult(serviceName, policy, url,
+                cause == null ? response.getStatusCode() : failure(request.getRequestId(), cause).getStatusCode(),
+                System.nanoTime() - sendNanos));
+        return future;
+    }
+
+    /**
+     * 记录实例的调用结果，用于离群检测和自适应超时
+     */
+    private void onResult(String serviceName, InvokePolicy policy, URL url, int statusCode, long latencyNanos) {
+        outlierDetector.onResult(serviceName, url, statusCode, latencyNanos);
+        policy.onResult(url, statusCode, latencyNanos);
+    }
+
+    private static void complete(CompletableFuture<RpcResponse> winner, AtomicInteger pending,
+                                 RpcResponse response, Throwable cause, String requestId) {
+        RpcResponse result = cause == null ? response : failure(requestId, cause);
+        if ((result.getStatusCode() == RpcStatusCode.SUCCESS || pending.decrementAndGet() == 0)
+                && !winner.complete(result)) {
+            // 对冲或并行调用中落后的成功响应不会被使用，释放其中的缓冲区
+            Blob.releaseValue(result.getData());
+        }
+    }
+
+    /**
+     * 等待响应
+     *
+     * @param future     响应Future
+     * @param requestId  请求ID
+     * @param waitNanos  最多等待的时间，0表示一直等到完成（客户端保证请求超时后完成）
+     * @return 响应，在限定时间内未完成时返回null
+     */
+    private static RpcResponse await(CompletableFuture<RpcResponse> future, String requestId, long waitNanos) {
+        try {
+            return waitNanos > 0 ? future.get(waitNanos, TimeUnit.NANOSECONDS) : future.get();
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            return RpcResponse.fail(requestId, RpcStatusCode.INTERNAL_ERROR, "RPC请求被中断");
+        } catch (ExecutionException e) {
+            return failure(requestId, e.getCause());
+        }
+    }
+
+    /**
+     * 将请求异常转换为失败响应
+     */
+    private static RpcResponse failure(String requestId, Throwable cause) {
+        if (cause instanceof TimeoutException) {
+            return RpcResponse.fail(requestId, RpcStatusCode.DEADLINE_EXCEEDED, cause.getMessage());
+        }
+        if (cause instanceof CancellationException) {
+            return RpcResponse.fail(requestId, RpcStatusCode.CANCELLED, "RPC请求已取消");
+        }
+        return RpcResponse.fail(requestId, RpcStatusCode.UNAVAILABLE, "发送RPC请求失败: " + cause);
+    }
+
+    /**
+     * 排除已尝试过的服务地址
+     *
+     * @param urls  全部服务地址
+     * @param tried 已尝试的服务地址
+     * @return 未尝试过的服务地址，全部尝试过时返回全部地址
+     */
+    private static List<URL> untried(List<URL> urls, List<URL> tried) {
+        if (tried.isEmpty()) {
+            return urls;
+        }
+        List<URL> result = new ArrayList<>(urls);
+        result.removeAll(tried);
+        return result.isEmpty() ? urls : result;
+    }
+
+    /**
+     * 生成请求ID
+     * <p>
+     * UUID.randomUUID() 使用 SecureRandom，调用路径上开销较大且多线程竞争，请求ID只需唯一，
+     * 这里用线程本地的随机数生成相同格式的随机UUID。
+     */
+    private static String newRequestId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long most = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long least = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(most, least).toString();
+    }
+
+    /**
+     * 复制请求用于对冲，使用新的请求ID
+     */
+    private static RpcRequest duplicate(RpcRequest request) {
+        RpcRequest copy = new RpcRequest();
+        copy.setRequestId(newRequestId());
+        copy.setInterfaceName(request.getInterfaceName());
+        copy.setMethodName(request.getMethodName());
+        copy.setParameterTypes(request.getParameterTypes());
+        copy.setParameters(request.getParameters());
+        copy.setVersion(request.getVersion());
+        copy.setTimeout(request.getTimeout());
+        copy.returnType(request.returnType());
+        if (request.getAttachments() != null) {
+            copy.setAttachments(new HashMap<>(request.getAttachments()));
+        }
+        return copy;
+    }
 }
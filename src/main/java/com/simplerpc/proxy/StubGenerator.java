@@ -0,0 +1,264 @@
+package com.simplerpc.proxy;
+
+import lombok.extern.slf4j.Slf4j;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 客户端桩类生成器
+ * <p>
+ * 为服务接口生成实现类，每个方法把参数装入数组后直接调用对应的 {@link MethodInvoker}，
+ * 省去动态代理按 {@link Method} 查找处理逻辑的开销。桩类定义在本包中，
+ * 接口或方法签名中的类型对本包的类加载器不可见时无法生成，由调用方退回到动态代理。
+ * <p>
+ * 每个接口只生成一次桩类，同一接口的多个代理共用，各自持有自己的调用入口。
+ */
+@Slf4j
+final class StubGenerator {
+
+    private static final String INVOKER = Type.getInternalName(MethodInvoker.class);
+    private static final String INVOKERS_DESC = "[" + Type.getDescriptor(MethodInvoker.class);
+    private static final String INVOKE_DESC = "([Ljava/lang/Object;)Ljava/lang/Object;";
+    private static final Map<Class<?>, Class<?>> WRAPPERS = new HashMap<>();
+
+    static {
+        WRAPPERS.put(boolean.class, Boolean.class);
+        WRAPPERS.put(byte.class, Byte.class);
+        WRAPPERS.put(char.class, Character.class);
+        WRAPPERS.put(short.class, Short.class);
+        WRAPPERS.put(int.class, Integer.class);
+        WRAPPERS.put(long.class, Long.class);
+        WRAPPERS.put(float.class, Float.class);
+        WRAPPERS.put(double.class, Double.class);
+    }
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    // 接口 -> 桩类，无法生成的接口也记录下来，不再重复尝试；随接口类一起回收
+    private static final ClassValue<StubClass> STUB_CLASSES = new ClassValue<StubClass>() {
+        @Override
+        protected StubClass computeValue(Class<?> type) {
+            return define(type);
+        }
+    };
+
+    private StubGenerator() {
+    }
+
+    /**
+     * 创建桩实例，接口的桩类在第一次调用时生成
+     *
+     * @param interfaceClass 接口类
+     * @param invokers       接口方法到调用入口的映射，包含接口的全部非静态方法
+     * @param <T>            接口类型
+     * @return 桩实例，无法生成时返回null
+     */
+    static <T> T generate(Class<T> interfaceClass, Map<Method, MethodInvoker> invokers) {
+        StubClass stubClass = STUB_CLASSES.get(interfaceClass);
+        if (stubClass.constructor == null) {
+            return null;
+        }
+        MethodInvoker[] invokerArray = new MethodInvoker[stubClass.methods.length];
+        for (int i = 0; i < invokerArray.length; i++) {
+            invokerArray[i] = invokers.get(stubClass.methods[i]);
+            if (invokerArray[i] == null) {
+                return null;
+            }
+        }
+        try {
+            return interfaceClass.cast(stubClass.constructor.newInstance((Object) invokerArray));
+        } catch (ReflectiveOperationException e) {
+            log.warn("创建客户端桩实例失败，使用动态代理: {}", interfaceClass.getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 生成并定义接口的桩类
+     *
+     * @param interfaceClass 接口类
+     * @return 桩类，无法生成时构造函数为null
+     */
+    private static StubClass define(Class<?> interfaceClass) {
+        if (!visible(interfaceClass)) {
+            return StubClass.NONE;
+        }
+        List<Method> methods = new ArrayList<>();
+        for (Method method : interfaceClass.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers())) {
+                methods.add(method);
+            }
+        }
+        for (Method method : methods) {
+            if (!visible(method.getReturnType())) {
+                return StubClass.NONE;
+            }
+            for (Class<?> type : method.getParameterTypes()) {
+                if (!visible(type)) {
+                    return StubClass.NONE;
+                }
+            }
+        }
+
+        String className = StubGenerator.class.getPackage().getName().replace('.', '/')
+                + "/" + interfaceClass.getSimpleName() + "$$RpcStub$$" + SEQUENCE.incrementAndGet();
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, className, null,
+                "java/lang/Object", new String[]{Type.getInternalName(interfaceClass)});
+        writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "invokers", INVOKERS_DESC, null, null)
+                .visitEnd();
+        writeConstructor(writer, className);
+        // 多个父接口声明的同签名方法只生成一次
+        Set<String> signatures = new HashSet<>();
+        for (int index = 0; index < methods.size(); index++) {
+            Method method = methods.get(index);
+            if (signatures.add(method.getName() + Type.getMethodDescriptor(method))) {
+                writeMethod(writer, className, method, index);
+            }
+        }
+        writer.visitEnd();
+
+        try {
+            Class<?> stubClass = MethodHandles.lookup().defineClass(writer.toByteArray());
+            return new StubClass(methods.toArray(new Method[0]), stubClass.getConstructor(MethodInvoker[].class));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("生成客户端桩类失败，使用动态代理: {}", interfaceClass.getName(), e);
+            return StubClass.NONE;
+        }
+    }
+
+    private static void writeConstructor(ClassWriter writer, String className) {
+        MethodVisitor mv = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "(" + INVOKERS_DESC + ")V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitFieldInsn(Opcodes.PUTFIELD, className, "invokers", INVOKERS_DESC);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * 生成接口方法：invokers[index].invoke(new Object[]{参数...})，再按返回类型转换
+     */
+    private static void writeMethod(ClassWriter writer, String className, Method method, int index) {
+        MethodVisitor mv = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL, method.getName(),
+                Type.getMethodDescriptor(method), null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, className, "invokers", INVOKERS_DESC);
+        pushInt(mv, index);
+        mv.visitInsn(Opcodes.AALOAD);
+
+        // 与动态代理一致，无参方法传null
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (parameterTypes.length == 0) {
+            mv.visitInsn(Opcodes.ACONST_NULL);
+        } else {
+            pushInt(mv, parameterTypes.length);
+            mv.visitTypeInsn(Opcodes.ANEWARRAY, "java/lang/Object");
+            int slot = 1;
+            for (int i = 0; i < parameterTypes.length; i++) {
+                Type type = Type.getType(parameterTypes[i]);
+                mv.visitInsn(Opcodes.DUP);
+                pushInt(mv, i);
+                mv.visitVarInsn(type.getOpcode(Opcodes.ILOAD), slot);
+                box(mv, parameterTypes[i]);
+                mv.visitInsn(Opcodes.AASTORE);
+                slot += type.getSize();
+            }
+        }
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, INVOKER, "invoke", INVOKE_DESC, false);
+
+        Class<?> returnType = method.getReturnType();
+        if (returnType == void.class) {
+            mv.visitInsn(Opcodes.POP);
+            mv.visitInsn(Opcodes.RETURN);
+        } else if (returnType.isPrimitive()) {
+            String wrapper = Type.getInternalName(WRAPPERS.get(returnType));
+            mv.visitTypeInsn(Opcodes.CHECKCAST, wrapper);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, wrapper, returnType.getName() + "Value",
+                    "()" + Type.getDescriptor(returnType), false);
+            mv.visitInsn(Type.getType(returnType).getOpcode(Opcodes.IRETURN));
+        } else {
+            if (returnType != Object.class) {
+                mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(returnType));
+            }
+            mv.visitInsn(Opcodes.ARETURN);
+        }
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void box(MethodVisitor mv, Class<?> type) {
+        if (!type.isPrimitive()) {
+            return;
+        }
+        Class<?> wrapper = WRAPPERS.get(type);
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(wrapper), "valueOf",
+                "(" + Type.getDescriptor(type) + ")" + Type.getDescriptor(wrapper), false);
+    }
+
+    private static void pushInt(MethodVisitor mv, int value) {
+        if (value <= 5) {
+            mv.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.BIPUSH, value);
+        } else if (value <= Short.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.SIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+
+    /**
+     * 判断类型能否在桩类中引用：公开且通过本包的类加载器能加载到同一个类
+     */
+    private static boolean visible(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return true;
+        }
+        if (!Modifier.isPublic(type.getModifiers())) {
+            return false;
+        }
+        try {
+            return Class.forName(type.getName(), false, StubGenerator.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 生成的桩类，构造参数中第i个调用入口对应第i个方法
+     */
+    private static final class StubClass {
+        static final StubClass NONE = new StubClass(new Method[0], null);
+
+        final Method[] methods;
+        final Constructor<?> constructor;
+
+        StubClass(Method[] methods, Constructor<?> constructor) {
+            this.methods = methods;
+            this.constructor = constructor;
+        }
+    }
+}
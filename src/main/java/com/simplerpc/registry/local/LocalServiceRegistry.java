@@ -0,0 +1,44 @@
+package com.simplerpc.registry.local;
+
+import com.simplerpc.common.URL;
+import com.simplerpc.registry.ServiceRegistry;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 基于内存的服务注册实现，用于测试、压测或直连固定地址，不依赖注册中心
+ */
+public class LocalServiceRegistry implements ServiceRegistry {
+
+    private final Map<String, List<URL>> services = new ConcurrentHashMap<>();
+
+    @Override
+    public void register(String serviceName, URL url) {
+        List<URL> urls = services.computeIfAbsent(serviceName, key -> new CopyOnWriteArrayList<>());
+        if (!urls.contains(url)) {
+            urls.add(url);
+        }
+    }
+
+    @Override
+    public void unregister(String serviceName, URL url) {
+        List<URL> urls = services.get(serviceName);
+        if (urls != null) {
+            urls.remove(url);
+        }
+    }
+
+    @Override
+    public List<URL> discover(String serviceName) {
+        return services.getOrDefault(serviceName, Collections.emptyList());
+    }
+
+    @Override
+    public void close() {
+        services.clear();
+    }
+}
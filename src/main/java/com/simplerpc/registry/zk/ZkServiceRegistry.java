@@ -9,7 +9,9 @@ import org.apache.curator.framework.recipes.cache.PathChildrenCache;
 import org.apache.curator.framework.recipes.cache.PathChildrenCacheEvent;
 import org.apache.curator.retry.ExponentialBackoffRetry;
 import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -72,10 +74,10 @@ public class ZkServiceRegistry implements ServiceRegistry {
                         .forPath(servicePath);
             }
 
-            // 创建实例节点（临时节点，会话结束自动删除）
+            // 创建实例节点（临时节点，会话结束自动删除），节点数据为URL参数
             zkClient.create()
                     .withMode(CreateMode.EPHEMERAL)
-                    .forPath(instancePath);
+                    .forPath(instancePath, url.encodeParameters().getBytes(StandardCharsets.UTF_8));
 
             log.info("服务{}注册成功，地址：{}", serviceName, url.getAddress());
 
@@ -134,8 +136,7 @@ public class ZkServiceRegistry implements ServiceRegistry {
             List<URL> urls = new ArrayList<>();
 
             for (String instance : instances) {
-                URL url = URL.parse(instance);
-                urls.add(url);
+                urls.add(toUrl(servicePath, instance));
             }
 
             // 更新本地缓存
@@ -153,6 +154,26 @@ public class ZkServiceRegistry implements ServiceRegistry {
         }
     }
 
+    /**
+     * 由实例节点构建URL，节点数据中的参数一并解析
+     *
+     * @param servicePath 服务路径
+     * @param instance 实例节点名
+     * @return 服务地址
+     */
+    private URL toUrl(String servicePath, String instance) throws Exception {
+        URL url = URL.parse(instance);
+        try {
+            byte[] data = zkClient.getData().forPath(servicePath + "/" + instance);
+            if (data != null && data.length > 0) {
+                url.decodeParameters(new String(data, StandardCharsets.UTF_8));
+            }
+        } catch (KeeperException.NoNodeException e) {
+            // 实例刚下线，随后的变更通知会把它移除
+        }
+        return url;
+    }
+
     /**
      * 添加服务监听器，监听服务实例变化
      *
@@ -177,7 +198,7 @@ public class ZkServiceRegistry implements ServiceRegistry {
                     List<String> instances = zkClient.getChildren().forPath(servicePath);
 
                     for (String instance : instances) {
-                        urls.add(URL.parse(instance));
+                        urls.add(toUrl(servicePath, instance));
                     }
 
                     // 更新本地缓存
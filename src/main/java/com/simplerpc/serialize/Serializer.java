@@ -1,5 +1,10 @@
 package com.simplerpc.serialize;
 
+import com.simplerpc.common.RpcResponse;
+
+import java.lang.reflect.Type;
+import java.util.function.Function;
+
 /**
  * 序列化接口，定义了序列化和反序列化的方法
  */
@@ -21,4 +26,17 @@ public interface Serializer {
      * @return 反序列化后的对象
      */
     <T> T deserialize(byte[] bytes, Class<T> clazz);
+
+    /**
+     * 反序列化响应，按对应请求方法的返回值类型绑定响应数据
+     * <p>
+     * 自描述类型的格式不需要返回值类型，默认实现直接反序列化；不携带类型信息的格式（如JSON）需要覆盖该方法。
+     *
+     * @param bytes       要反序列化的字节数组
+     * @param returnTypes 请求ID -> 返回值的声明类型，未知时返回null
+     * @return 反序列化后的响应
+     */
+    default RpcResponse deserializeResponse(byte[] bytes, Function<String, Type> returnTypes) {
+        return deserialize(bytes, RpcResponse.class);
+    }
 }
@@ -0,0 +1,191 @@
+package com.simplerpc.serialize.codec;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编解码输入，与 {@link CodecOutput} 的格式对应
+ */
+public final class CodecInput {
+
+    private final CodecRegistry registry;
+    private final byte[] buffer;
+    private int position;
+
+    /**
+     * 构造函数
+     *
+     * @param registry 编解码器注册表
+     * @param buffer   输入字节
+     */
+    public CodecInput(CodecRegistry registry, byte[] buffer) {
+        this.registry = registry;
+        this.buffer = buffer;
+    }
+
+    public byte readByte() throws IOException {
+        if (position >= buffer.length) {
+            throw new IOException("数据不完整");
+        }
+        return buffer[position++];
+    }
+
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    public short readShort() throws IOException {
+        return (short) (((readByte() & 0xFF) << 8) | (readByte() & 0xFF));
+    }
+
+    public char readChar() throws IOException {
+        return (char) readShort();
+    }
+
+    public int readInt() throws IOException {
+        require(4);
+        int value = ((buffer[position] & 0xFF) << 24) | ((buffer[position + 1] & 0xFF) << 16)
+                | ((buffer[position + 2] & 0xFF) << 8) | (buffer[position + 3] & 0xFF);
+        position += 4;
+        return value;
+    }
+
+    public long readLong() throws IOException {
+        return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+    }
+
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    public int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("变长整数格式错误");
+    }
+
+    public String readString() throws IOException {
+        int length = readVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        require(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public byte[] readBytes() throws IOException {
+        int length = readVarInt() - 1;
+        if (length < 0) {
+            return null;
+        }
+        require(length);
+        byte[] value = new byte[length];
+        System.arraycopy(buffer, position, value, 0, length);
+        position += length;
+        return value;
+    }
+
+    /**
+     * 读取带类型标记的值
+     *
+     * @return 值，可能为null
+     */
+    public Object readObject() throws IOException {
+        byte tag = readByte();
+        switch (tag) {
+            case CodecOutput.TAG_NULL:
+                return null;
+            case CodecOutput.TAG_STRING:
+                return readString();
+            case CodecOutput.TAG_INT:
+                return readInt();
+            case CodecOutput.TAG_LONG:
+                return readLong();
+            case CodecOutput.TAG_BOOLEAN:
+                return readBoolean();
+            case CodecOutput.TAG_DOUBLE:
+                return readDouble();
+            case CodecOutput.TAG_SHORT:
+                return readShort();
+            case CodecOutput.TAG_BYTE:
+                return readByte();
+            case CodecOutput.TAG_CHAR:
+                return readChar();
+            case CodecOutput.TAG_FLOAT:
+                return readFloat();
+            case CodecOutput.TAG_BYTES:
+                return readBytes();
+            case CodecOutput.TAG_LIST: {
+                int size = readVarInt();
+                checkSize(size, 1);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readObject());
+                }
+                return list;
+            }
+            case CodecOutput.TAG_MAP:
+            case CodecOutput.TAG_LINKED_MAP: {
+                int size = readVarInt();
+                checkSize(size, 2);
+                int capacity = size + size / 3 + 1;
+                Map<Object, Object> map = tag == CodecOutput.TAG_MAP
+                        ? new HashMap<>(capacity) : new LinkedHashMap<>(capacity);
+                for (int i = 0; i < size; i++) {
+                    map.put(readObject(), readObject());
+                }
+                return map;
+            }
+            case CodecOutput.TAG_CODEC: {
+                String className = readString();
+                DtoCodec<?> codec = registry.codec(className);
+                if (codec == null) {
+                    throw new IOException("没有编解码器: " + className);
+                }
+                return codec.read(this);
+            }
+            case CodecOutput.TAG_FALLBACK: {
+                Class<?> type = registry.resolve(readString());
+                return registry.getFallback().deserialize(readBytes(), type);
+            }
+            default:
+                throw new IOException("未知的类型标记: " + tag);
+        }
+    }
+
+    /**
+     * 校验对端写出的元素个数，按每个元素的最小字节数不能超过剩余数据，避免按伪造的长度预先分配
+     *
+     * @param size               元素个数
+     * @param minBytesPerElement 每个元素至少占用的字节数
+     * @throws IOException 元素个数为负数或超出剩余数据
+     */
+    public void checkSize(int size, int minBytesPerElement) throws IOException {
+        if (size < 0 || (long) size * minBytesPerElement > buffer.length - position) {
+            throw new IOException("元素个数超出剩余数据: " + size);
+        }
+    }
+
+    private void require(int length) throws IOException {
+        if (length > buffer.length - position) {
+            throw new IOException("数据不完整");
+        }
+    }
+}
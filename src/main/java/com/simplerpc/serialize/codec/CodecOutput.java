@@ -0,0 +1,220 @@
+package com.simplerpc.serialize.codec;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编解码输出，基本类型按定长大端写出，长度使用变长整数
+ * <p>
+ * {@link #writeObject(Object)} 写出带类型标记的值：常用类型直接写出，有编解码器的类型写出类名和字段，
+ * 其余类型写出类名和后备序列化器的结果。
+ */
+public final class CodecOutput {
+
+    static final byte TAG_NULL = 0;
+    static final byte TAG_STRING = 1;
+    static final byte TAG_INT = 2;
+    static final byte TAG_LONG = 3;
+    static final byte TAG_BOOLEAN = 4;
+    static final byte TAG_DOUBLE = 5;
+    static final byte TAG_BYTES = 6;
+    static final byte TAG_CODEC = 7;
+    static final byte TAG_FALLBACK = 8;
+    static final byte TAG_LIST = 9;
+    static final byte TAG_MAP = 10;
+    static final byte TAG_LINKED_MAP = 11;
+    static final byte TAG_SHORT = 12;
+    static final byte TAG_BYTE = 13;
+    static final byte TAG_CHAR = 14;
+    static final byte TAG_FLOAT = 15;
+
+    private final CodecRegistry registry;
+    private byte[] buffer;
+    private int position;
+
+    /**
+     * 构造函数
+     *
+     * @param registry        编解码器注册表
+     * @param initialCapacity 初始容量
+     */
+    public CodecOutput(CodecRegistry registry, int initialCapacity) {
+        this.registry = registry;
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public void writeByte(int value) {
+        ensure(1);
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    public void writeShort(short value) {
+        ensure(2);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeChar(char value) {
+        writeShort((short) value);
+    }
+
+    public void writeInt(int value) {
+        ensure(4);
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    public void writeFloat(float value) {
+        writeInt(Float.floatToIntBits(value));
+    }
+
+    public void writeDouble(double value) {
+        writeLong(Double.doubleToLongBits(value));
+    }
+
+    /**
+     * 写出非负变长整数，每字节7位
+     */
+    public void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    /**
+     * 写出字符串，长度加一后写出，0表示null
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length + 1);
+        writeRaw(bytes);
+    }
+
+    /**
+     * 写出字节数组，长度加一后写出，0表示null
+     */
+    public void writeBytes(byte[] value) {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(value.length + 1);
+        writeRaw(value);
+    }
+
+    /**
+     * 写出带类型标记的值
+     *
+     * @param value 值，可以为null
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void writeObject(Object value) {
+        if (value == null) {
+            writeByte(TAG_NULL);
+        } else if (value instanceof String) {
+            writeByte(TAG_STRING);
+            writeString((String) value);
+        } else if (value instanceof Integer) {
+            writeByte(TAG_INT);
+            writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            writeByte(TAG_LONG);
+            writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+            writeByte(TAG_BOOLEAN);
+            writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+            writeByte(TAG_DOUBLE);
+            writeDouble((Double) value);
+        } else if (value instanceof Short) {
+            writeByte(TAG_SHORT);
+            writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            writeByte(TAG_BYTE);
+            writeByte((Byte) value);
+        } else if (value instanceof Character) {
+            writeByte(TAG_CHAR);
+            writeChar((Character) value);
+        } else if (value instanceof Float) {
+            writeByte(TAG_FLOAT);
+            writeFloat((Float) value);
+        } else if (value instanceof byte[]) {
+            writeByte(TAG_BYTES);
+            writeBytes((byte[]) value);
+        } else if (value.getClass() == ArrayList.class) {
+            List<?> list = (List<?>) value;
+            writeByte(TAG_LIST);
+            writeVarInt(list.size());
+            for (Object element : list) {
+                writeObject(element);
+            }
+        } else if (value.getClass() == HashMap.class || value.getClass() == LinkedHashMap.class) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            writeByte(value.getClass() == HashMap.class ? TAG_MAP : TAG_LINKED_MAP);
+            writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeObject(entry.getKey());
+                writeObject(entry.getValue());
+            }
+        } else {
+            DtoCodec codec = registry.codec(value.getClass());
+            if (codec != null) {
+                writeByte(TAG_CODEC);
+                writeString(value.getClass().getName());
+                try {
+                    codec.write(this, value);
+                } catch (IOException e) {
+                    throw new RuntimeException("编码失败: " + value.getClass().getName(), e);
+                }
+            } else {
+                writeByte(TAG_FALLBACK);
+                writeString(value.getClass().getName());
+                writeBytes(registry.getFallback().serialize(value));
+            }
+        }
+    }
+
+    /**
+     * 获取已写出的字节
+     *
+     * @return 字节数组副本
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void writeRaw(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void ensure(int length) {
+        if (position + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + length));
+        }
+    }
+}
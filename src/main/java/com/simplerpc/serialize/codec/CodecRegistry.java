@@ -0,0 +1,111 @@
+package com.simplerpc.serialize.codec;
+
+import com.simplerpc.serialize.Serializer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 编解码器注册表
+ * <p>
+ * 创建时通过 {@link ServiceLoader} 加载注解处理器生成的编解码器，没有编解码器的类型交给后备序列化器处理。
+ */
+@Slf4j
+public class CodecRegistry {
+
+    private final Serializer fallback;
+    private final Map<Class<?>, DtoCodec<?>> byType = new ConcurrentHashMap<>();
+    private final Map<String, DtoCodec<?>> byName = new ConcurrentHashMap<>();
+    // 类名 -> 类，反序列化时避免重复查找
+    private final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param fallback 没有编解码器的类型使用的序列化器
+     */
+    public CodecRegistry(Serializer fallback) {
+        this.fallback = fallback;
+        classes.put("boolean", boolean.class);
+        classes.put("byte", byte.class);
+        classes.put("char", char.class);
+        classes.put("short", short.class);
+        classes.put("int", int.class);
+        classes.put("long", long.class);
+        classes.put("float", float.class);
+        classes.put("double", double.class);
+        classes.put("void", void.class);
+
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        for (DtoCodec<?> codec : ServiceLoader.load(DtoCodec.class,
+                classLoader != null ? classLoader : CodecRegistry.class.getClassLoader())) {
+            register(codec);
+        }
+    }
+
+    /**
+     * 注册编解码器，同一类型后注册的覆盖先注册的
+     *
+     * @param codec 编解码器
+     */
+    public void register(DtoCodec<?> codec) {
+        byType.put(codec.getType(), codec);
+        byName.put(codec.getType().getName(), codec);
+        classes.put(codec.getType().getName(), codec.getType());
+        log.debug("注册编解码器: {}", codec.getType().getName());
+    }
+
+    /**
+     * 获取类型的编解码器
+     *
+     * @param type 类型
+     * @return 编解码器，不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> DtoCodec<T> codec(Class<T> type) {
+        return (DtoCodec<T>) byType.get(type);
+    }
+
+    /**
+     * 按类名获取编解码器
+     *
+     * @param className 类名
+     * @return 编解码器，不存在时返回null
+     */
+    public DtoCodec<?> codec(String className) {
+        return byName.get(className);
+    }
+
+    /**
+     * 按类名加载类，支持基本类型
+     *
+     * @param className 类名
+     * @return 类
+     */
+    public Class<?> resolve(String className) {
+        Class<?> type = classes.get(className);
+        if (type != null) {
+            return type;
+        }
+        try {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            type = Class.forName(className, false,
+                    classLoader != null ? classLoader : CodecRegistry.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("找不到类: " + className, e);
+        }
+        classes.put(className, type);
+        return type;
+    }
+
+    /**
+     * 获取后备序列化器
+     *
+     * @return 后备序列化器
+     */
+    public Serializer getFallback() {
+        return fallback;
+    }
+}
@@ -0,0 +1,35 @@
+package com.simplerpc.serialize.codec;
+
+import java.io.IOException;
+
+/**
+ * 数据对象编解码器，由注解处理器在编译期生成，读写字段时不使用反射
+ *
+ * @param <T> 数据对象类型
+ */
+public interface DtoCodec<T> {
+    /**
+     * 获取编解码的类型
+     *
+     * @return 数据对象类型
+     */
+    Class<T> getType();
+
+    /**
+     * 写出对象的全部字段
+     *
+     * @param out   输出
+     * @param value 对象，不为null
+     * @throws IOException 写出失败
+     */
+    void write(CodecOutput out, T value) throws IOException;
+
+    /**
+     * 按写出的顺序读取字段并创建对象
+     *
+     * @param in 输入
+     * @return 对象
+     * @throws IOException 读取失败
+     */
+    T read(CodecInput in) throws IOException;
+}
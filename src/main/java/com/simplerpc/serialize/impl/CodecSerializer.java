@@ -0,0 +1,183 @@
+package com.simplerpc.serialize.impl;
+
+import com.simplerpc.common.RpcRequest;
+import com.simplerpc.common.RpcResponse;
+import com.simplerpc.serialize.Serializer;
+import com.simplerpc.serialize.codec.CodecInput;
+import com.simplerpc.serialize.codec.CodecOutput;
+import com.simplerpc.serialize.codec.CodecRegistry;
+import com.simplerpc.serialize.codec.DtoCodec;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 使用编译期生成的编解码器的序列化实现
+ * <p>
+ * 请求和响应的外层字段直接按顺序写出，参数和返回值中有编解码器的类型不经过反射读写，
+ * 其余类型交给后备序列化器（默认Hessian）。编解码器由 simple-rpc-codegen 注解处理器生成，
+ * 通过 ServiceLoader 自动注册，也可以调用 {@link #register(DtoCodec)} 手动注册。
+ */
+public class CodecSerializer implements Serializer {
+
+    private static final byte KIND_OBJECT = 0;
+    private static final byte KIND_REQUEST = 1;
+    private static final byte KIND_RESPONSE = 2;
+
+    private final CodecRegistry registry;
+
+    /**
+     * 构造函数
+     */
+    public CodecSerializer() {
+        // 默认使用Hessian作为后备序列化器
+        this(new HessianSerializer());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param fallback 没有编解码器的类型使用的序列化器
+     */
+    public CodecSerializer(Serializer fallback) {
+        this.registry = new CodecRegistry(fallback);
+    }
+
+    /**
+     * 注册编解码器
+     *
+     * @param codec 编解码器
+     */
+    public void register(DtoCodec<?> codec) {
+        registry.register(codec);
+    }
+
+    @Override
+    public byte[] serialize(Object obj) {
+        CodecOutput out = new CodecOutput(registry, 256);
+        if (obj instanceof RpcRequest) {
+            out.writeByte(KIND_REQUEST);
+            writeRequest(out, (RpcRequest) obj);
+        } else if (obj instanceof RpcResponse) {
+            out.writeByte(KIND_RESPONSE);
+            writeResponse(out, (RpcResponse) obj);
+        } else {
+            out.writeByte(KIND_OBJECT);
+            out.writeObject(obj);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T deserialize(byte[] bytes, Class<T> clazz) {
+        CodecInput in = new CodecInput(registry, bytes);
+        try {
+            byte kind = in.readByte();
+            switch (kind) {
+                case KIND_REQUEST:
+                    return (T) readRequest(in);
+                case KIND_RESPONSE:
+                    return (T) readResponse(in);
+                case KIND_OBJECT:
+                    return (T) in.readObject();
+                default:
+                    throw new IOException("未知的消息类型: " + kind);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("反序列化失败", e);
+        }
+    }
+
+    private static void writeRequest(CodecOutput out, RpcRequest request) {
+        out.writeString(request.getRequestId());
+        out.writeString(request.getInterfaceName());
+        out.writeString(request.getMethodName());
+        out.writeString(request.getVersion());
+        out.writeLong(request.getTimeout());
+
+        Class<?>[] parameterTypes = request.getParameterTypes();
+        out.writeVarInt(parameterTypes == null ? 0 : parameterTypes.length + 1);
+        if (parameterTypes != null) {
+            for (Class<?> type : parameterTypes) {
+                out.writeString(type.getName());
+            }
+        }
+        Object[] parameters = request.getParameters();
+        out.writeVarInt(parameters == null ? 0 : parameters.length + 1);
+        if (parameters != null) {
+            for (Object parameter : parameters) {
+                out.writeObject(parameter);
+            }
+        }
+        Map<String, String> attachments = request.getAttachments();
+        out.writeVarInt(attachments == null ? 0 : attachments.size() + 1);
+        if (attachments != null) {
+            for (Map.Entry<String, String> entry : attachments.entrySet()) {
+                out.writeString(entry.getKey());
+                out.writeString(entry.getValue());
+            }
+        }
+    }
+
+    private RpcRequest readRequest(CodecInput in) throws IOException {
+        RpcRequest request = new RpcRequest();
+        request.setRequestId(in.readString());
+        request.setInterfaceName(in.readString());
+        request.setMethodName(in.readString());
+        request.setVersion(in.readString());
+        request.setTimeout(in.readLong());
+
+        int count = in.readVarInt() - 1;
+        if (count >= 0) {
+            in.checkSize(count, 1);
+            Class<?>[] parameterTypes = new Class<?>[count];
+            for (int i = 0; i < count; i++) {
+                parameterTypes[i] = registry.resolve(in.readString());
+            }
+            request.setParameterTypes(parameterTypes);
+        }
+        count = in.readVarInt() - 1;
+        if (count >= 0) {
+            in.checkSize(count, 1);
+            Object[] parameters = new Object[count];
+            for (int i = 0; i < count; i++) {
+                parameters[i] = in.readObject();
+            }
+            request.setParameters(parameters);
+        }
+        count = in.readVarInt() - 1;
+        if (count >= 0) {
+            in.checkSize(count, 2);
+            Map<String, String> attachments = new HashMap<>(count + count / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                attachments.put(in.readString(), in.readString());
+            }
+            request.setAttachments(attachments);
+        }
+        return request;
+    }
+
+    private static void writeResponse(CodecOutput out, RpcResponse response) {
+        out.writeString(response.getRequestId());
+        Integer statusCode = response.getStatusCode();
+        out.writeBoolean(statusCode != null);
+        if (statusCode != null) {
+            out.writeInt(statusCode);
+        }
+        out.writeString(response.getMessage());
+        out.writeObject(response.getData());
+    }
+
+    private static RpcResponse readResponse(CodecInput in) throws IOException {
+        RpcResponse response = new RpcResponse();
+        response.setRequestId(in.readString());
+        if (in.readBoolean()) {
+            response.setStatusCode(in.readInt());
+        }
+        response.setMessage(in.readString());
+        response.setData(in.readObject());
+        return response;
+    }
+}
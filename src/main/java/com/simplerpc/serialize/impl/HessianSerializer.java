@@ -2,6 +2,7 @@ package com.simplerpc.serialize.impl;
 
 import com.caucho.hessian.io.Hessian2Input;
 import com.caucho.hessian.io.Hessian2Output;
+import com.caucho.hessian.io.SerializerFactory;
 import com.simplerpc.serialize.Serializer;
 import lombok.extern.slf4j.Slf4j;
 
@@ -11,30 +12,120 @@ import java.io.IOException;
 
 /**
  * Hessian序列化实现，性能比JSON更好，二进制格式
+ * <p>
+ * 所有实例共享一个 {@link SerializerFactory}，Hessian按类构建的序列化器只构建一次；
+ * 每个线程复用自己的输入输出流和缓冲区，每次使用前重置，避免每条消息都重新分配。
+ * {@link Hessian2Input} 每次新建：它的 {@code init} 不清空内部读缓冲区的读取位置，复用时一条损坏的消息残留的字节
+ * 会让同一线程上之后的所有反序列化失败。代价是每次反序列化都分配一个1KB的读缓冲区，
+ * 以及引用表、类定义表、类型表三个ArrayList和一个StringBuilder。
  */
 @Slf4j
 public class HessianSerializer implements Serializer {
+
+    private static final SerializerFactory SERIALIZER_FACTORY = new SerializerFactory();
+    // 超过该大小的缓冲区用完后不保留，避免偶发的大消息长期占用内存
+    private static final int MAX_RETAINED_BUFFER = 1 << 20;
+    private static final byte[] EMPTY = new byte[0];
+    private static final ThreadLocal<Context> CONTEXT = ThreadLocal.withInitial(Context::new);
+
     @Override
     public byte[] serialize(Object obj) {
-        try(ByteArrayOutputStream bos = new ByteArrayOutputStream()){
-            Hessian2Output output = new Hessian2Output(bos);
+        Context context = acquire();
+        try {
+            context.bos.reset();
+            Hessian2Output output = context.output;
+            output.init(context.bos);
             output.writeObject(obj);
             output.flush();
-            return bos.toByteArray();
-        }catch (IOException e){
-            log.error("Hessian序列化失败",e);
-            throw new RuntimeException("Hessian序列化失败",e);
+            return context.bos.toByteArray();
+        } catch (IOException e) {
+            log.error("Hessian序列化失败", e);
+            throw new RuntimeException("Hessian序列化失败", e);
+        } finally {
+            // 不再引用已写出的对象
+            context.output.resetReferences();
+            release(context);
         }
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T deserialize(byte[] bytes, Class<T> clazz) {
-        try(ByteArrayInputStream bis = new ByteArrayInputStream(bytes)){
-            Hessian2Input input = new Hessian2Input(bis);
+        Context context = acquire();
+        try {
+            context.bis.reset(bytes);
+            Hessian2Input input = new Hessian2Input(context.bis);
+            input.setSerializerFactory(SERIALIZER_FACTORY);
             return (T) input.readObject(clazz);
-        }catch (IOException e){
-            log.error("Hessian反序列化失败",e);
-            throw new RuntimeException("Hessian反序列化失败",e);
+        } catch (IOException e) {
+            log.error("Hessian反序列化失败", e);
+            throw new RuntimeException("Hessian反序列化失败", e);
+        } finally {
+            context.bis.reset(EMPTY);
+            release(context);
+        }
+    }
+
+    /**
+     * 获取当前线程的上下文，序列化过程中嵌套调用时使用新的上下文
+     */
+    private static Context acquire() {
+        Context context = CONTEXT.get();
+        if (context.inUse) {
+            context = new Context();
+        }
+        context.inUse = true;
+        return context;
+    }
+
+    private static void release(Context context) {
+        context.inUse = false;
+        context.bos.trim();
+    }
+
+    /**
+     * 线程复用的序列化上下文
+     */
+    private static final class Context {
+        private final ReusableOutputStream bos = new ReusableOutputStream();
+        private final ReusableInputStream bis = new ReusableInputStream();
+        private final Hessian2Output output = new Hessian2Output(null);
+        private boolean inUse;
+
+        private Context() {
+            output.setSerializerFactory(SERIALIZER_FACTORY);
+        }
+    }
+
+    /**
+     * 可以收缩缓冲区的输出流
+     */
+    private static final class ReusableOutputStream extends ByteArrayOutputStream {
+        private ReusableOutputStream() {
+            super(512);
+        }
+
+        private void trim() {
+            if (buf.length > MAX_RETAINED_BUFFER) {
+                buf = new byte[512];
+                count = 0;
+            }
+        }
+    }
+
+    /**
+     * 可以更换数据的输入流
+     */
+    private static final class ReusableInputStream extends ByteArrayInputStream {
+        private ReusableInputStream() {
+            super(EMPTY);
+        }
+
+        private void reset(byte[] bytes) {
+            this.buf = bytes;
+            this.pos = 0;
+            this.count = bytes.length;
+            this.mark = 0;
         }
     }
 }
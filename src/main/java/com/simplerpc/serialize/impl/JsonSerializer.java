@@ -1,35 +1,501 @@
 package com.simplerpc.serialize.impl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.BufferRecyclers;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.simplerpc.common.RpcRequest;
+import com.simplerpc.common.RpcResponse;
 import com.simplerpc.serialize.Serializer;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * JSON序列化实现，基于Jackson库
+ * <p>
+ * 请求和响应的外层字段用 JsonGenerator/JsonParser 直接读写。请求参数按接口方法声明的参数类型（包括泛型）绑定，
+ * 本地找不到接口方法时按JSON的自然类型读取，不按对端传来的类名创建对象。
+ * 响应数据按客户端为该请求提供的返回值类型绑定（见 {@link #deserializeResponse}），不会退化为 LinkedHashMap；
+ * 声明类型为接口或抽象类时，只有响应中 dataType 指定的类是声明类型的子类才采用。返回值类型未知时按JSON的自然类型读取。
+ * 其他语言的调用方可以忽略 dataType，字段顺序不同时先读成树再绑定。
  */
 @Slf4j
 public class JsonSerializer implements Serializer {
+
+    // 缓存数量上限，类名来自网络，避免无限增长
+    private static final int MAX_CACHED_TYPES = 4096;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonFactory jsonFactory = objectMapper.getFactory();
+    private final TypeFactory typeFactory = objectMapper.getTypeFactory();
+    private final JavaType objectType = typeFactory.constructType(Object.class);
+    // 逐个写出参数，不需要每写一个值就刷新
+    private final ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    private final ObjectReader reader = objectMapper.reader();
+    // 接口名#方法名#参数类型 -> 参数的声明类型
+    private final Map<String, JavaType[]> parameterTypes = new ConcurrentHashMap<>();
+    // 类名 -> 类，包括基本类型
+    private final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
+    // 返回值的声明类型 -> Jackson类型
+    private final Map<Type, JavaType> returnTypes = new ConcurrentHashMap<>();
+
+    public JsonSerializer() {
+        for (Class<?> type : new Class<?>[]{boolean.class, byte.class, char.class, short.class, int.class,
+                long.class, float.class, double.class, void.class}) {
+            classes.put(type.getName(), type);
+        }
+    }
+
     @Override
     public byte[] serialize(Object obj) {
-        try{
-            return objectMapper.writeValueAsBytes(obj);
-        }catch (JsonProcessingException e){
-            log.error("JSON序列化失败",e);
-            throw new RuntimeException("JSON序列化失败",e);
+        ByteArrayBuilder builder = new ByteArrayBuilder(BufferRecyclers.getBufferRecycler());
+        try (JsonGenerator generator = jsonFactory.createGenerator(builder)) {
+            if (obj instanceof RpcRequest) {
+                writeRequest(generator, (RpcRequest) obj);
+            } else if (obj instanceof RpcResponse) {
+                writeResponse(generator, (RpcResponse) obj);
+            } else {
+                objectMapper.writeValue(generator, obj);
+            }
+            generator.flush();
+            return builder.toByteArray();
+        } catch (IOException e) {
+            log.error("JSON序列化失败", e);
+            throw new RuntimeException("JSON序列化失败", e);
+        } finally {
+            builder.release();
         }
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> T deserialize(byte[] bytes, Class<T> clazz) {
-        try{
-            return objectMapper.readValue(bytes,clazz);
-        }catch (IOException e){
-            log.error("JSON反序列化失败",e);
-            throw new RuntimeException("JSON反序列化失败",e);
+        try (JsonParser parser = jsonFactory.createParser(bytes)) {
+            if (clazz == RpcRequest.class) {
+                return (T) readRequest(parser);
+            }
+            if (clazz == RpcResponse.class) {
+                return (T) readResponse(parser, null);
+            }
+            return objectMapper.readValue(parser, clazz);
+        } catch (IOException e) {
+            log.error("JSON反序列化失败", e);
+            throw new RuntimeException("JSON反序列化失败", e);
+        }
+    }
+
+    private void writeRequest(JsonGenerator generator, RpcRequest request) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("requestId", request.getRequestId());
+        generator.writeStringField("interfaceName", request.getInterfaceName());
+        generator.writeStringField("methodName", request.getMethodName());
+        generator.writeStringField("version", request.getVersion());
+        generator.writeNumberField("timeout", request.getTimeout());
+        // 参数类型写在参数之前，读取时可以直接按类型绑定参数
+        if (request.getParameterTypes() != null) {
+            generator.writeArrayFieldStart("parameterTypes");
+            for (Class<?> type : request.getParameterTypes()) {
+                generator.writeString(type.getName());
+            }
+            generator.writeEndArray();
+        }
+        if (request.getParameters() != null) {
+            generator.writeArrayFieldStart("parameters");
+            for (Object parameter : request.getParameters()) {
+                writeValue(generator, parameter);
+            }
+            generator.writeEndArray();
+        }
+        if (request.getAttachments() != null) {
+            generator.writeObjectFieldStart("attachments");
+            for (Map.Entry<String, String> entry : request.getAttachments().entrySet()) {
+                generator.writeStringField(entry.getKey(), entry.getValue());
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+
+    private RpcRequest readRequest(JsonParser parser) throws IOException {
+        expect(parser.nextToken(), JsonToken.START_OBJECT);
+        RpcRequest request = new RpcRequest();
+        JsonNode deferredParameters = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "requestId":
+                    request.setRequestId(parser.getValueAsString());
+                    break;
+                case "interfaceName":
+                    request.setInterfaceName(parser.getValueAsString());
+                    break;
+                case "methodName":
+                    request.setMethodName(parser.getValueAsString());
+                    break;
+                case "version":
+                    request.setVersion(parser.getValueAsString());
+                    break;
+                case "timeout":
+                    request.setTimeout(parser.getValueAsLong());
+                    break;
+                case "parameterTypes":
+                    request.setParameterTypes(readClasses(parser, token));
+                    break;
+                case "parameters":
+                    if (token == JsonToken.VALUE_NULL) {
+                        break;
+                    }
+                    if (request.getParameterTypes() != null) {
+                        request.setParameters(readParameters(parser, declaredTypes(request)));
+                    } else {
+                        deferredParameters = objectMapper.readTree(parser);
+                    }
+                    break;
+                case "attachments":
+                    request.setAttachments(readAttachments(parser, token));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        if (deferredParameters != null) {
+            try (JsonParser treeParser = objectMapper.treeAsTokens(deferredParameters)) {
+                treeParser.nextToken();
+                request.setParameters(readParameters(treeParser,
+                        request.getParameterTypes() != null ? declaredTypes(request) : null));
+            }
+        }
+        return request;
+    }
+
+    private Class<?>[] readClasses(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(token, JsonToken.START_ARRAY);
+        Class<?>[] types = new Class<?>[8];
+        int count = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (count == types.length) {
+                Class<?>[] grown = new Class<?>[count << 1];
+                System.arraycopy(types, 0, grown, 0, count);
+                types = grown;
+            }
+            types[count++] = resolve(parser.getText());
+        }
+        Class<?>[] result = new Class<?>[count];
+        System.arraycopy(types, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * 逐个读取参数，声明类型未知或数量不符时按JSON的自然类型读取
+     */
+    private Object[] readParameters(JsonParser parser, JavaType[] types) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_ARRAY);
+        Object[] parameters = new Object[types != null ? types.length : 4];
+        int count = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (count == parameters.length) {
+                Object[] grown = new Object[count << 1];
+                System.arraycopy(parameters, 0, grown, 0, count);
+                parameters = grown;
+            }
+            parameters[count] = readValue(parser, types != null && count < types.length ? types[count] : objectType);
+            count++;
+        }
+        if (count == parameters.length) {
+            return parameters;
+        }
+        Object[] result = new Object[count];
+        System.arraycopy(parameters, 0, result, 0, count);
+        return result;
+    }
+
+    private static Map<String, String> readAttachments(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(token, JsonToken.START_OBJECT);
+        Map<String, String> attachments = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.getCurrentName();
+            parser.nextToken();
+            attachments.put(key, parser.getValueAsString());
+        }
+        return attachments;
+    }
+
+    /**
+     * 获取请求方法的参数声明类型，接口或方法不在本地时按JSON的自然类型读取，服务端随后会拒绝该请求
+     */
+    private JavaType[] declaredTypes(RpcRequest request) {
+        String key = methodKey(request);
+        JavaType[] types = parameterTypes.get(key);
+        if (types != null) {
+            return types;
+        }
+        Class<?>[] classes = request.getParameterTypes();
+        types = new JavaType[classes.length];
+        try {
+            Type[] declared = loadClass(request.getInterfaceName()).getMethod(request.getMethodName(), classes)
+                    .getGenericParameterTypes();
+            for (int i = 0; i < declared.length; i++) {
+                types[i] = typeFactory.constructType(declared[i]);
+            }
+        } catch (ClassNotFoundException | NoSuchMethodException | RuntimeException e) {
+            log.debug("找不到方法{}#{}，按JSON类型读取参数", request.getInterfaceName(), request.getMethodName());
+            Arrays.fill(types, objectType);
+        }
+        if (parameterTypes.size() < MAX_CACHED_TYPES) {
+            parameterTypes.put(key, types);
+        }
+        return types;
+    }
+
+    private static String methodKey(RpcRequest request) {
+        StringBuilder key = new StringBuilder().append(request.getInterfaceName()).append('#')
+                .append(request.getMethodName());
+        for (Class<?> type : request.getParameterTypes()) {
+            key.append('#').append(type.getName());
+        }
+        return key.toString();
+    }
+
+    private void writeResponse(JsonGenerator generator, RpcResponse response) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("requestId", response.getRequestId());
+        if (response.getStatusCode() != null) {
+            generator.writeNumberField("statusCode", response.getStatusCode());
+        }
+        generator.writeStringField("message", response.getMessage());
+        Object data = response.getData();
+        if (data != null) {
+            // 类型写在数据之前，读取时可以直接按类型绑定
+            generator.writeStringField("dataType", dataType(response.dataType(), data).toCanonical());
+            generator.writeFieldName("data");
+            writeValue(generator, data);
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * 返回值类型：优先使用方法声明的类型（保留泛型参数），声明为Object或接口等抽象类型时使用实际类型
+     */
+    private JavaType dataType(Type declared, Object data) {
+        if (declared != null) {
+            JavaType type = typeFactory.constructType(declared);
+            if (!type.isJavaLangObject() && (type.isContainerType() || type.getRawClass() == data.getClass())) {
+                return type;
+            }
+        }
+        return typeFactory.constructType(data.getClass());
+    }
+
+    /**
+     * 反序列化响应，数据按客户端提供的返回值类型绑定
+     *
+     * @param bytes       要反序列化的字节数组
+     * @param returnTypes 请求ID -> 返回值的声明类型，未知时返回null
+     * @return 反序列化后的响应
+     */
+    @Override
+    public RpcResponse deserializeResponse(byte[] bytes, Function<String, Type> returnTypes) {
+        try (JsonParser parser = jsonFactory.createParser(bytes)) {
+            return readResponse(parser, returnTypes);
+        } catch (IOException e) {
+            log.error("JSON反序列化失败", e);
+            throw new RuntimeException("JSON反序列化失败", e);
+        }
+    }
+
+    private RpcResponse readResponse(JsonParser parser, Function<String, Type> returnTypes) throws IOException {
+        expect(parser.nextToken(), JsonToken.START_OBJECT);
+        RpcResponse response = new RpcResponse();
+        JavaType expected = objectType;
+        JavaType dataType = null;
+        JsonNode deferredData = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "requestId":
+                    response.setRequestId(parser.getValueAsString());
+                    Type returnType = returnTypes != null && response.getRequestId() != null
+                            ? returnTypes.apply(response.getRequestId()) : null;
+                    if (returnType != null) {
+                        expected = returnType(returnType);
+                    }
+                    break;
+                case "statusCode":
+                    response.setStatusCode(token == JsonToken.VALUE_NULL ? null : parser.getValueAsInt());
+                    break;
+                case "message":
+                    response.setMessage(parser.getValueAsString());
+                    break;
+                case "dataType":
+                    dataType = dataType(expected, token == JsonToken.VALUE_NULL ? null : parser.getText());
+                    break;
+                case "data":
+                    if (dataType != null) {
+                        response.setData(readValue(parser, dataType));
+                    } else {
+                        deferredData = objectMapper.readTree(parser);
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        if (deferredData != null) {
+            try (JsonParser treeParser = objectMapper.treeAsTokens(deferredData)) {
+                treeParser.nextToken();
+                response.setData(readValue(treeParser, dataType != null ? dataType : expected));
+            }
+        }
+        return response;
+    }
+
+    private JavaType returnType(Type declared) {
+        JavaType type = returnTypes.get(declared);
+        if (type == null) {
+            type = typeFactory.constructType(declared);
+            if (returnTypes.size() < MAX_CACHED_TYPES) {
+                returnTypes.put(declared, type);
+            }
+        }
+        return type;
+    }
+
+    /**
+     * 写出一个值，常用类型直接写出，其余类型交给databind
+     */
+    private void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Integer) {
+            generator.writeNumber((Integer) value);
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+            generator.writeNumber((Double) value);
+        } else if (value instanceof byte[]) {
+            generator.writeBinary((byte[]) value);
+        } else {
+            writer.writeValue(generator, value);
+        }
+    }
+
+    /**
+     * 按类型读取当前位置的值，常用类型直接从解析器读取，其余类型交给databind
+     */
+    private Object readValue(JsonParser parser, JavaType type) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        Class<?> raw = type.getRawClass();
+        if (raw == String.class && token == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        if ((raw == int.class || raw == Integer.class) && token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getIntValue();
+        }
+        if ((raw == long.class || raw == Long.class) && token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        if ((raw == boolean.class || raw == Boolean.class) && token.isBoolean()) {
+            return token == JsonToken.VALUE_TRUE;
+        }
+        if ((raw == double.class || raw == Double.class) && token.isNumeric()) {
+            return parser.getDoubleValue();
+        }
+        if (raw == byte[].class && token == JsonToken.VALUE_STRING) {
+            return parser.getBinaryValue();
+        }
+        return reader.forType(type).readValue(parser);
+    }
+
+    /**
+     * 确定响应数据的绑定类型
+     * <p>
+     * 声明类型是具体类或容器类型时直接使用；声明为接口或抽象类时，采用 dataType 中的类（忽略其泛型参数），
+     * 前提是该类是声明类型的子类；声明为Object或返回值类型未知时按JSON的自然类型读取。
+     *
+     * @param expected  请求方法的返回值声明类型
+     * @param canonical 响应中的 dataType，可能为null
+     */
+    private JavaType dataType(JavaType expected, String canonical) {
+        if (expected.isJavaLangObject()) {
+            return objectType;
+        }
+        Class<?> raw = expected.getRawClass();
+        if (canonical == null || expected.isContainerType() || expected.isPrimitive()
+                || !(raw.isInterface() || Modifier.isAbstract(raw.getModifiers()))) {
+            return expected;
+        }
+        int generic = canonical.indexOf('<');
+        String className = generic < 0 ? canonical : canonical.substring(0, generic);
+        Class<?> actual = classes.get(className);
+        if (actual == null) {
+            try {
+                actual = loadClass(className);
+            } catch (ClassNotFoundException | RuntimeException e) {
+                return expected;
+            }
+            if (classes.size() < MAX_CACHED_TYPES) {
+                classes.put(className, actual);
+            }
+        }
+        return raw.isAssignableFrom(actual) && actual != raw ? typeFactory.constructType(actual) : expected;
+    }
+
+    private Class<?> resolve(String className) throws IOException {
+        Class<?> type = classes.get(className);
+        if (type == null) {
+            try {
+                type = loadClass(className);
+            } catch (ClassNotFoundException e) {
+                throw new IOException("找不到参数类型: " + className, e);
+            }
+            if (classes.size() < MAX_CACHED_TYPES) {
+                classes.put(className, type);
+            }
+        }
+        return type;
+    }
+
+    private static Class<?> loadClass(String className) throws ClassNotFoundException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return Class.forName(className, false,
+                classLoader != null ? classLoader : JsonSerializer.class.getClassLoader());
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("JSON格式错误，期望" + expected + "，实际为" + actual);
         }
     }
 }
@@ -3,8 +3,10 @@ package com.simplerpc.server;
 import com.simplerpc.common.URL;
 import com.simplerpc.common.annotation.RpcService;
 import com.simplerpc.registry.ServiceRegistry;
+import com.simplerpc.serialize.impl.HessianSerializer;
 import com.simplerpc.transport.RpcServer;
 import com.simplerpc.transport.netty.NettyRpcServer;
+import com.simplerpc.transport.netty.NettyServerConfig;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.DisposableBean;
@@ -13,6 +15,8 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -35,10 +39,21 @@ public class RpcServiceProvider implements ApplicationContextAware, Initializing
      * @param port 服务端口
      */
     public RpcServiceProvider(ServiceRegistry serviceRegistry, int port) throws Exception {
+        this(serviceRegistry, port, new NettyServerConfig());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param serviceRegistry 服务注册中心
+     * @param port 服务端口
+     * @param config 服务端配置，配置了域套接字路径时一并注册到注册中心
+     */
+    public RpcServiceProvider(ServiceRegistry serviceRegistry, int port, NettyServerConfig config) throws Exception {
         this.serviceRegistry = serviceRegistry;
         this.port = port;
         this.host = InetAddress.getLocalHost().getHostAddress();
-        this.rpcServer = new NettyRpcServer();
+        this.rpcServer = new NettyRpcServer(new HessianSerializer(), config);
     }
 
     @Override
@@ -50,6 +65,7 @@ public class RpcServiceProvider implements ApplicationContextAware, Initializing
     public void afterPropertiesSet() throws Exception {
         // 扫描并注册所有标注了@RpcService的服务
         Map<String, Object> serviceBeanMap = applicationContext.getBeansWithAnnotation(RpcService.class);
+        List<String> serviceNames = new ArrayList<>();
 
         if (serviceBeanMap != null && !serviceBeanMap.isEmpty()) {
             for (Object serviceBean : serviceBeanMap.values()) {
@@ -71,17 +87,24 @@ public class RpcServiceProvider implements ApplicationContextAware, Initializing
 
                 // 添加服务到RPC服务器
                 ((NettyRpcServer) rpcServer).addService(serviceName, serviceBean);
-
-                // 注册服务到注册中心
-                URL url = new URL(host, port);
-                serviceRegistry.register(serviceName, url);
-
-                log.info("注册服务: {} => {}", serviceName, url.getAddress());
+                serviceNames.add(serviceName);
             }
         }
 
-        // 启动RPC服务器
+        // 启动RPC服务器，开始监听后再注册，避免客户端连接到尚未监听的地址
         rpcServer.start(port);
+
+        // 注册服务到注册中心，同时监听域套接字时附带其路径供同机客户端使用
+        String domainSocketPath = ((NettyRpcServer) rpcServer).getDomainSocketPath();
+        for (String serviceName : serviceNames) {
+            URL url = new URL(host, port);
+            if (domainSocketPath != null) {
+                url.addParameter(URL.PARAM_UNIX_SOCKET, domainSocketPath);
+            }
+            serviceRegistry.register(serviceName, url);
+
+            log.info("注册服务: {} => {}", serviceName, url.getAddress());
+        }
     }
 
     @Override
@@ -0,0 +1,64 @@
+package com.simplerpc.trace;
+
+import lombok.Data;
+
+/**
+ * 一次RPC调用在客户端或服务端的时间记录
+ * <p>
+ * 客户端和服务端使用相同的spanId，追踪系统可以将两端记录合并，
+ * 从而区分网络、服务端排队和业务执行各自占用的时间。
+ * 各时间点均为System.nanoTime，只在同一端内比较才有意义。
+ */
+@Data
+public class Span {
+    /**
+     * 客户端记录
+     */
+    public static final String KIND_CLIENT = "CLIENT";
+
+    /**
+     * 服务端记录
+     */
+    public static final String KIND_SERVER = "SERVER";
+
+    private String kind;
+    private long traceId;
+    private long spanId;
+    private long parentSpanId;
+    private String service;
+    private String method;
+    private String requestId;
+    private int statusCode;
+
+    /**
+     * 开始时的墙钟时间，单位微秒，用于跨主机对齐
+     */
+    private long startEpochMicros;
+
+    private long clientSendNanos;
+    private long clientReceiveNanos;
+    private long serverReceiveNanos;
+    private long queueExitNanos;
+    private long invokeEndNanos;
+
+    /**
+     * 客户端总耗时，单位纳秒
+     */
+    public long getClientDurationNanos() {
+        return clientReceiveNanos - clientSendNanos;
+    }
+
+    /**
+     * 服务端排队耗时，单位纳秒
+     */
+    public long getQueueDurationNanos() {
+        return queueExitNanos - serverReceiveNanos;
+    }
+
+    /**
+     * 服务端业务执行耗时，单位纳秒
+     */
+    public long getInvokeDurationNanos() {
+        return invokeEndNanos - queueExitNanos;
+    }
+}
@@ -0,0 +1,13 @@
+package com.simplerpc.trace;
+
+/**
+ * 链路追踪记录的输出接口
+ */
+public interface TraceSink {
+    /**
+     * 输出一条完成的记录，在调用线程或I/O线程中执行，实现应尽快返回
+     *
+     * @param span 调用记录
+     */
+    void report(Span span);
+}
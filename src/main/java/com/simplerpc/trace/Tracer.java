@@ -0,0 +1,169 @@
+package com.simplerpc.trace;
+
+import com.simplerpc.common.RpcContext;
+import com.simplerpc.common.RpcRequest;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 采样式链路追踪
+ * <p>
+ * 客户端按采样率决定是否追踪一次调用，被采样的调用通过请求附加信息把上下文传给服务端；
+ * 服务端执行期间上下文绑定在RpcContext上，同一线程中发起的下游调用自动成为子调用。
+ * 未被采样的调用不创建任何对象，也不写附加信息。
+ */
+@Slf4j
+public final class Tracer {
+
+    /**
+     * 请求附加信息中的追踪上下文，格式为 traceId:spanId，均为十六进制
+     */
+    public static final String TRACE_ATTACHMENT = "trace";
+
+    private static volatile TraceSink sink;
+    private static volatile double sampleRate;
+
+    private Tracer() {
+    }
+
+    /**
+     * 配置链路追踪
+     *
+     * @param traceSink  记录输出，为null时关闭追踪
+     * @param rate       采样率，取值[0,1]，只对没有上游上下文的调用生效
+     */
+    public static void configure(TraceSink traceSink, double rate) {
+        sampleRate = rate;
+        sink = traceSink;
+    }
+
+    /**
+     * 客户端发送请求前调用，决定是否采样并写入追踪上下文
+     *
+     * @param request RPC请求
+     * @return 被采样时返回记录，否则返回null
+     */
+    public static Span startClientSpan(RpcRequest request) {
+        if (sink == null) {
+            return null;
+        }
+        Span parent = RpcContext.getContext().getSpan();
+        if (parent == null && (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return null;
+        }
+
+        Span span = new Span();
+        span.setKind(Span.KIND_CLIENT);
+        span.setTraceId(parent != null ? parent.getTraceId() : nextId());
+        span.setSpanId(nextId());
+        span.setParentSpanId(parent != null ? parent.getSpanId() : 0);
+        span.setService(request.getInterfaceName());
+        span.setMethod(request.getMethodName());
+        span.setRequestId(request.getRequestId());
+        span.setStartEpochMicros(currentEpochMicros());
+        span.setClientSendNanos(System.nanoTime());
+        request.putAttachment(TRACE_ATTACHMENT,
+                Long.toHexString(span.getTraceId()) + ":" + Long.toHexString(span.getSpanId()));
+        return span;
+    }
+
+    /**
+     * 客户端收到响应或失败后调用
+     *
+     * @param span       客户端记录，可以为null
+     * @param statusCode 响应状态码
+     */
+    public static void finishClientSpan(Span span, int statusCode) {
+        if (span == null) {
+            return;
+        }
+        span.setClientReceiveNanos(System.nanoTime());
+        span.setStatusCode(statusCode);
+        report(span);
+    }
+
+    /**
+     * 服务端收到请求时调用
+     *
+     * @param request RPC请求
+     * @return 请求携带追踪上下文时返回记录，否则返回null
+     */
+    public static Span startServerSpan(RpcRequest request) {
+        if (sink == null || request.getAttachments() == null) {
+            return null;
+        }
+        String context = request.getAttachment(TRACE_ATTACHMENT);
+        int separator = context == null ? -1 : context.indexOf(':');
+        if (separator < 0) {
+            return null;
+        }
+
+        Span span = new Span();
+        span.setKind(Span.KIND_SERVER);
+        try {
+            span.setTraceId(Long.parseUnsignedLong(context.substring(0, separator), 16));
+            span.setSpanId(Long.parseUnsignedLong(context.substring(separator + 1), 16));
+        } catch (NumberFormatException e) {
+            log.debug("无效的追踪上下文: {}", context);
+            return null;
+        }
+        span.setService(request.getInterfaceName());
+        span.setMethod(request.getMethodName());
+        span.setRequestId(request.getRequestId());
+        span.setStartEpochMicros(currentEpochMicros());
+        span.setServerReceiveNanos(System.nanoTime());
+        return span;
+    }
+
+    /**
+     * 服务端请求离开业务线程池队列、开始执行时调用
+     *
+     * @param span 服务端记录，可以为null
+     */
+    public static void markQueueExit(Span span) {
+        if (span != null) {
+            span.setQueueExitNanos(System.nanoTime());
+        }
+    }
+
+    /**
+     * 服务端业务方法执行完成后调用
+     *
+     * @param span       服务端记录，可以为null
+     * @param statusCode 响应状态码
+     */
+    public static void finishServerSpan(Span span, int statusCode) {
+        if (span == null) {
+            return;
+        }
+        span.setInvokeEndNanos(System.nanoTime());
+        span.setStatusCode(statusCode);
+        report(span);
+    }
+
+    private static void report(Span span) {
+        TraceSink current = sink;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.report(span);
+        } catch (Exception e) {
+            log.warn("输出链路追踪记录失败", e);
+        }
+    }
+
+    private static long nextId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        return id;
+    }
+
+    private static long currentEpochMicros() {
+        return TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,26 @@
+package com.simplerpc.trace.impl;
+
+import com.simplerpc.trace.Span;
+import com.simplerpc.trace.TraceSink;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 将链路追踪记录输出到日志
+ */
+@Slf4j
+public class Slf4jTraceSink implements TraceSink {
+    @Override
+    public void report(Span span) {
+        if (Span.KIND_CLIENT.equals(span.getKind())) {
+            log.info("trace={} span={} parent={} {}#{} client={}us status={}",
+                    Long.toHexString(span.getTraceId()), Long.toHexString(span.getSpanId()),
+                    Long.toHexString(span.getParentSpanId()), span.getService(), span.getMethod(),
+                    span.getClientDurationNanos() / 1000, span.getStatusCode());
+        } else {
+            log.info("trace={} span={} {}#{} queue={}us invoke={}us status={}",
+                    Long.toHexString(span.getTraceId()), Long.toHexString(span.getSpanId()),
+                    span.getService(), span.getMethod(), span.getQueueDurationNanos() / 1000,
+                    span.getInvokeDurationNanos() / 1000, span.getStatusCode());
+        }
+    }
+}
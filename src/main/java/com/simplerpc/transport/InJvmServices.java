@@ -0,0 +1,48 @@
+package com.simplerpc.transport;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本进程中已发布的服务实例
+ * <p>
+ * 服务端添加服务时登记，停止时移除；客户端代理调用前查找，命中时直接调用服务实例，省去序列化和网络传输。
+ */
+public final class InJvmServices {
+
+    // 服务名(接口名+版本) -> 服务实例
+    private static final Map<String, Object> SERVICES = new ConcurrentHashMap<>();
+
+    private InJvmServices() {
+    }
+
+    /**
+     * 登记服务实例
+     *
+     * @param serviceName 服务名
+     * @param serviceBean 服务实例
+     */
+    public static void export(String serviceName, Object serviceBean) {
+        SERVICES.put(serviceName, serviceBean);
+    }
+
+    /**
+     * 移除服务实例，已被其他实例替换时不移除
+     *
+     * @param serviceName 服务名
+     * @param serviceBean 服务实例
+     */
+    public static void unexport(String serviceName, Object serviceBean) {
+        SERVICES.remove(serviceName, serviceBean);
+    }
+
+    /**
+     * 查找服务实例
+     *
+     * @param serviceName 服务名
+     * @return 服务实例，未在本进程发布时返回null
+     */
+    public static Object get(String serviceName) {
+        return SERVICES.get(serviceName);
+    }
+}
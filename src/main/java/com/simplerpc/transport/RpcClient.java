@@ -4,6 +4,8 @@ import com.simplerpc.common.RpcRequest;
 import com.simplerpc.common.RpcResponse;
 import com.simplerpc.common.URL;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * RPC客户端接口，定义了发送请求的方法
  */
@@ -17,6 +19,36 @@ public interface  RpcClient {
      */
     RpcResponse send(URL url, RpcRequest request);
 
+    /**
+     * 异步发送RPC请求
+     * <p>
+     * 取消返回的Future会通知服务端停止处理该请求；请求超时时Future以TimeoutException异常完成。
+     *
+     * @param url 服务地址
+     * @param request RPC请求
+     * @return RPC响应的Future
+     */
+    CompletableFuture<RpcResponse> sendAsync(URL url, RpcRequest request);
+
+    /**
+     * 发送单向请求，请求写入连接后立即返回，服务端不返回响应
+     * <p>
+     * 不占用在途请求许可，也不等待响应；连接不可写时在请求的超时时间内等待恢复可写。
+     *
+     * @param url 服务地址
+     * @param request RPC请求
+     * @return 请求已进入发送队列时返回成功响应（不含数据），否则返回失败响应
+     */
+    RpcResponse sendOneway(URL url, RpcRequest request);
+
+    /**
+     * 服务提供者当前是否可以接收新请求，用于负载均衡时避开繁忙的连接
+     *
+     * @param url 服务地址
+     * @return 连接可写且未达到在途请求上限时返回true
+     */
+    boolean isAvailable(URL url);
+
     /**
      * 关闭客户端
      */
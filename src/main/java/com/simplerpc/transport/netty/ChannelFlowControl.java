@@ -0,0 +1,110 @@
+package com.simplerpc.transport.netty;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个连接上的流控状态：在途请求、在途上限和可写性等待
+ */
+public class ChannelFlowControl {
+
+    private static final AttributeKey<ChannelFlowControl> KEY = AttributeKey.valueOf("flowControl");
+
+    // 尚未收到响应的请求ID，连接断开时据此快速失败
+    private final Set<String> inflightRequests = ConcurrentHashMap.newKeySet();
+    // 在途请求许可
+    private final Semaphore permits;
+    // 等待连接恢复可写的锁
+    private final Object writabilityLock = new Object();
+
+    private ChannelFlowControl(int maxInflight) {
+        this.permits = new Semaphore(maxInflight);
+    }
+
+    /**
+     * 为连接安装流控状态
+     *
+     * @param channel     连接通道
+     * @param maxInflight 在途请求上限
+     */
+    public static void install(Channel channel, int maxInflight) {
+        channel.attr(KEY).set(new ChannelFlowControl(maxInflight));
+    }
+
+    /**
+     * 获取连接的流控状态
+     *
+     * @param channel 连接通道
+     * @return 流控状态
+     */
+    public static ChannelFlowControl get(Channel channel) {
+        return channel.attr(KEY).get();
+    }
+
+    /**
+     * 获取在途请求ID集合
+     */
+    public Set<String> getInflightRequests() {
+        return inflightRequests;
+    }
+
+    /**
+     * 获取在途请求许可
+     *
+     * @param policy      超限策略
+     * @param waitMillis  最长等待时间，仅在BOUNDED_WAIT时生效
+     * @return 是否获取成功
+     */
+    public boolean tryAcquire(OverloadPolicy policy, long waitMillis) throws InterruptedException {
+        if (policy == OverloadPolicy.FAIL_FAST) {
+            return permits.tryAcquire();
+        }
+        return permits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 归还在途请求许可
+     */
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * 等待连接恢复可写
+     *
+     * @param channel      连接通道
+     * @param policy       超限策略
+     * @param waitMillis   最长等待时间，仅在BOUNDED_WAIT时生效
+     * @return 连接是否可写
+     */
+    public boolean awaitWritable(Channel channel, OverloadPolicy policy, long waitMillis) throws InterruptedException {
+        if (channel.isWritable() || policy == OverloadPolicy.FAIL_FAST) {
+            return channel.isWritable();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        synchronized (writabilityLock) {
+            while (!channel.isWritable() && channel.isActive()) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                writabilityLock.wait(remaining);
+            }
+        }
+        return channel.isWritable();
+    }
+
+    /**
+     * 唤醒等待可写的线程，在连接可写性变化或关闭时调用
+     */
+    public void signalWritabilityChanged() {
+        synchronized (writabilityLock) {
+            writabilityLock.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.simplerpc.transport.netty;
+
+import com.simplerpc.accesslog.AccessLog;
+import lombok.Data;
+
+/**
+ * Netty客户端配置
+ */
+@Data
+public class NettyClientConfig {
+    /**
+     * 连接超时时间，单位毫秒
+     */
+    private int connectTimeoutMillis = 5000;
+
+    /**
+     * 请求未指定超时时间时的默认超时时间，单位毫秒
+     */
+    private long defaultRequestTimeoutMillis = 5000;
+
+    /**
+     * 写空闲多久后发送心跳，单位毫秒
+     */
+    private long heartbeatIntervalMillis = 10000;
+
+    /**
+     * 读空闲多久后判定连接已失效并关闭，单位毫秒，应大于心跳间隔；读空闲达到一半时先发送心跳探测
+     */
+    private long readerIdleTimeoutMillis = 30000;
+
+    /**
+     * 后台重连的初始退避时间，单位毫秒
+     */
+    private long reconnectInitialDelayMillis = 200;
+
+    /**
+     * 后台重连的最大退避时间，单位毫秒
+     */
+    private long reconnectMaxDelayMillis = 30000;
+
+    /**
+     * 连接断开后最多重连次数，超过后放弃，待下次请求时再建立连接
+     */
+    private int maxReconnectAttempts = 10;
+
+    /**
+     * 出站缓冲区低水位，单位字节，回落到该值以下时连接恢复可写
+     */
+    private int writeBufferLowWaterMark = 64 * 1024;
+
+    /**
+     * 出站缓冲区高水位，单位字节，超过该值时连接变为不可写
+     */
+    private int writeBufferHighWaterMark = 256 * 1024;
+
+    /**
+     * 单个连接的在途请求上限
+     */
+    private int maxInflightPerConnection = 1024;
+
+    /**
+     * 单个服务提供者的在途请求上限，包括重连期间新旧连接上的请求
+     */
+    private int maxInflightPerProvider = 2048;
+
+    /**
+     * 在途请求达到上限或连接不可写时的处理策略
+     */
+    private OverloadPolicy overloadPolicy = OverloadPolicy.FAIL_FAST;
+
+    /**
+     * BOUNDED_WAIT策略下的最长等待时间，单位毫秒
+     */
+    private long overloadWaitMillis = 100;
+
+    /**
+     * 服务提供者在本机并注册了Unix域套接字路径时，是否优先通过域套接字连接
+     */
+    private boolean preferDomainSocket = true;
+
+    /**
+     * 访问日志，为null时不记录
+     */
+    private AccessLog accessLog;
+}
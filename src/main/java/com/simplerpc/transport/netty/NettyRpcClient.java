@@ -1,38 +1,86 @@
 package com.simplerpc.transport.netty;
 
+import com.simplerpc.accesslog.AccessLog;
+import com.simplerpc.common.LogRateLimiter;
+import com.simplerpc.common.RpcCancel;
 import com.simplerpc.common.RpcRequest;
 import com.simplerpc.common.RpcResponse;
+import com.simplerpc.common.RpcStatusCode;
 import com.simplerpc.common.URL;
+import com.simplerpc.jfr.RpcClientCallEvent;
+import com.simplerpc.metrics.MethodMetrics;
+import com.simplerpc.metrics.RpcMetrics;
 import com.simplerpc.serialize.Serializer;
 import com.simplerpc.serialize.impl.HessianSerializer;
+import com.simplerpc.trace.Span;
+import com.simplerpc.trace.Tracer;
 import com.simplerpc.transport.RpcClient;
 import com.simplerpc.transport.netty.codec.RpcDecoder;
 import com.simplerpc.transport.netty.codec.RpcEncoder;
+import com.simplerpc.transport.netty.handler.ClientHeartbeatHandler;
 import com.simplerpc.transport.netty.handler.RpcClientHandler;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.NetUtil;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.Promise;
 import lombok.extern.slf4j.Slf4j;
 
+import java.lang.reflect.Type;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 基于Netty的RPC客户端实现
+ * <p>
+ * 服务提供者在同一台机器上并注册了Unix域套接字路径时，优先通过域套接字连接（仅Linux epoll），
+ * 连接失败时回退到TCP。连接池仍以主机和端口标识服务提供者。
  */
 @Slf4j
 public class NettyRpcClient implements RpcClient {
 
+    // 域套接字连接失败后改用TCP的时间
+    private static final long DOMAIN_SOCKET_RETRY_NANOS = TimeUnit.SECONDS.toNanos(30);
+
     private final EventLoopGroup group;
     private final Bootstrap bootstrap;
+    // 域套接字连接使用的epoll线程组，首次需要时创建
+    private volatile EventLoopGroup domainGroup;
+    private volatile Bootstrap domainBootstrap;
     private final Serializer serializer;
+    private final NettyClientConfig config;
 
     // 连接池，避免频繁创建连接
     private final Map<String, Channel> channelPool = new ConcurrentHashMap<>();
+    // 正在建立中的连接，同一地址的并发请求共享一次连接过程
+    private final Map<String, Promise<Channel>> connectingFutures = new ConcurrentHashMap<>();
+    // 域套接字连接失败的路径 -> 下次尝试的时间，期间直接使用TCP
+    private final Map<String, Long> failedDomainSockets = new ConcurrentHashMap<>();
+    // 每个服务提供者的在途请求许可
+    private final Map<String, Semaphore> providerPermits = new ConcurrentHashMap<>();
     // 存储请求响应的映射
     private final Map<String, CompletableFuture<RpcResponse>> pendingRequests = new ConcurrentHashMap<>();
+    // 请求ID -> 返回值的声明类型，解码响应时按该类型绑定数据，和pendingRequests同时清理
+    private final Map<String, Type> pendingReturnTypes = new ConcurrentHashMap<>();
+    // 服务端故障时每个请求都会失败，错误日志限流到每秒一条
+    private final LogRateLimiter errorLogLimiter = new LogRateLimiter(1, TimeUnit.SECONDS);
+
+    private volatile boolean closed;
 
     /**
      * 构造函数
@@ -48,22 +96,54 @@ public class NettyRpcClient implements RpcClient {
      * @param serializer 序列化器
      */
     public NettyRpcClient(Serializer serializer) {
+        this(serializer, new NettyClientConfig());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param serializer 序列化器
+     * @param config     客户端配置
+     */
+    public NettyRpcClient(Serializer serializer, NettyClientConfig config) {
         this.serializer = serializer;
+        this.config = config;
         this.group = new NioEventLoopGroup();
         this.bootstrap = new Bootstrap();
 
         // 配置Netty客户端
         bootstrap.group(group)
                 .channel(NioSocketChannel.class)
-                .option(ChannelOption.TCP_NODELAY, true)
-                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5000)
-                .handler(new ChannelInitializer<SocketChannel>() {
+                .option(ChannelOption.TCP_NODELAY, true);
+        configure(bootstrap);
+    }
+
+    /**
+     * 设置TCP和域套接字连接共用的选项和处理器
+     *
+     * @param bootstrap 客户端启动器
+     */
+    private void configure(Bootstrap bootstrap) {
+        bootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, config.getConnectTimeoutMillis())
+                // 出站缓冲区水位，超过高水位后连接不可写，限制内存占用
+                .option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(
+                        config.getWriteBufferLowWaterMark(), config.getWriteBufferHighWaterMark()))
+                .handler(new ChannelInitializer<Channel>() {
                     @Override
-                    protected void initChannel(SocketChannel ch) {
+                    protected void initChannel(Channel ch) {
+                        ChannelFlowControl.install(ch, config.getMaxInflightPerConnection());
                         ChannelPipeline pipeline = ch.pipeline();
+                        // 空闲检测：写空闲发送心跳；读空闲一半超时时间先发送心跳探测，再过一半仍无数据时关闭连接
+                        pipeline.addLast(new IdleStateHandler(
+                                Math.max(1, config.getReaderIdleTimeoutMillis() / 2),
+                                config.getHeartbeatIntervalMillis(),
+                                0, TimeUnit.MILLISECONDS));
                         // 添加编解码器
-                        pipeline.addLast(new RpcEncoder(serializer, RpcRequest.class));
-                        pipeline.addLast(new RpcDecoder(serializer, RpcResponse.class));
+                        pipeline.addLast(new RpcEncoder(serializer, RpcRequest.class, RpcMetrics.client()));
+                        pipeline.addLast(new RpcDecoder(serializer, RpcResponse.class, RpcMetrics.client(),
+                                pendingReturnTypes::get));
+                        // 添加心跳处理器
+                        pipeline.addLast(new ClientHeartbeatHandler());
                         // 添加请求处理器
                         pipeline.addLast(new RpcClientHandler(pendingRequests));
                     }
@@ -72,33 +152,233 @@ public class NettyRpcClient implements RpcClient {
 
     @Override
     public RpcResponse send(URL url, RpcRequest request) {
+        CompletableFuture<RpcResponse> future = sendAsync(url, request);
         try {
+            return future.get();
+        } catch (InterruptedException e) {
+            // 调用线程被中断，取消请求并通知服务端
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            return RpcResponse.fail(request.getRequestId(), RpcStatusCode.INTERNAL_ERROR, "RPC请求被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                return RpcResponse.fail(request.getRequestId(), RpcStatusCode.DEADLINE_EXCEEDED, cause.getMessage());
+            }
+            logSendFailure(cause);
+            return RpcResponse.fail(request.getRequestId(), RpcStatusCode.UNAVAILABLE,
+                    "发送RPC请求失败: " + cause);
+        }
+    }
+
+    @Override
+    public CompletableFuture<RpcResponse> sendAsync(URL url, RpcRequest request) {
+        String requestId = request.getRequestId();
+        Semaphore permits = providerPermits.computeIfAbsent(url.getAddress(),
+                key -> new Semaphore(config.getMaxInflightPerProvider()));
+        MethodMetrics methodMetrics = RpcMetrics.client().method(request.getInterfaceName(), request.getMethodName());
+        boolean providerAcquired = false;
+        ChannelFlowControl flowControl = null;
+        boolean dispatched = false;
+        try {
+            // 服务提供者级别的在途上限
+            providerAcquired = acquire(permits);
+            if (!providerAcquired) {
+                methodMetrics.onRejected();
+                return CompletableFuture.completedFuture(RpcResponse.fail(requestId, RpcStatusCode.CLIENT_OVERLOADED,
+                        "服务提供者在途请求数已达上限: " + url.getAddress()));
+            }
+
             // 获取连接
             Channel channel = getChannel(url);
 
+            // 连接级别的在途上限
+            ChannelFlowControl channelFlowControl = ChannelFlowControl.get(channel);
+            if (!channelFlowControl.tryAcquire(config.getOverloadPolicy(), config.getOverloadWaitMillis())) {
+                methodMetrics.onRejected();
+                return CompletableFuture.completedFuture(RpcResponse.fail(requestId, RpcStatusCode.CLIENT_OVERLOADED,
+                        "连接在途请求数已达上限: " + url.getAddress()));
+            }
+            flowControl = channelFlowControl;
+
+            // 出站缓冲区超过高水位时不再写入
+            if (!flowControl.awaitWritable(channel, config.getOverloadPolicy(), config.getOverloadWaitMillis())) {
+                methodMetrics.onRejected();
+                return CompletableFuture.completedFuture(RpcResponse.fail(requestId, RpcStatusCode.CLIENT_OVERLOADED,
+                        "连接不可写: " + url.getAddress()));
+            }
+
             // 创建响应Future
             CompletableFuture<RpcResponse> responseFuture = new CompletableFuture<>();
-            pendingRequests.put(request.getRequestId(), responseFuture);
+            pendingRequests.put(requestId, responseFuture);
+            if (request.returnType() != null) {
+                pendingReturnTypes.put(requestId, request.returnType());
+            }
+            flowControl.getInflightRequests().add(requestId);
+
+            // 超时时间由请求携带的剩余时间决定
+            long timeout = request.getTimeout() > 0 ? request.getTimeout() : config.getDefaultRequestTimeoutMillis();
+            ScheduledFuture<?> timeoutTask = channel.eventLoop().schedule(() -> responseFuture.completeExceptionally(
+                    new TimeoutException("RPC请求超时: " + url.getAddress())), timeout, TimeUnit.MILLISECONDS);
+
+            // 请求结束时清理映射、归还许可并记录指标
+            ChannelFlowControl finalFlowControl = flowControl;
+            AtomicLong providerInflight = RpcMetrics.client().providerInflight(url.getAddress());
+            providerInflight.incrementAndGet();
+            methodMetrics.onStart();
+            long startNanos = System.nanoTime();
+            RpcClientCallEvent callEvent = new RpcClientCallEvent();
+            callEvent.begin();
+            Span span = Tracer.startClientSpan(request);
+            responseFuture.whenComplete((response, cause) -> {
+                // 先清理映射并归还许可，后面的指标和日志出错也不会泄漏许可
+                timeoutTask.cancel(false);
+                providerInflight.decrementAndGet();
+                pendingRequests.remove(requestId);
+                pendingReturnTypes.remove(requestId);
+                finalFlowControl.getInflightRequests().remove(requestId);
+                finalFlowControl.release();
+                permits.release();
+
+                // 调用方取消或超时放弃，通知服务端停止处理
+                if ((cause instanceof CancellationException || cause instanceof TimeoutException)
+                        && channel.isActive()) {
+                    channel.writeAndFlush(new RpcCancel(requestId));
+                }
+
+                Integer responseStatus = response != null ? response.getStatusCode() : null;
+                int statusCode = cause == null
+                        ? (responseStatus != null ? responseStatus : RpcStatusCode.INTERNAL_ERROR)
+                        : cause instanceof TimeoutException ? RpcStatusCode.DEADLINE_EXCEEDED
+                        : cause instanceof CancellationException ? RpcStatusCode.CANCELLED
+                        : RpcStatusCode.UNAVAILABLE;
+                long latencyNanos = System.nanoTime() - startNanos;
+                methodMetrics.onComplete(latencyNanos, statusCode == RpcStatusCode.SUCCESS);
+                Tracer.finishClientSpan(span, statusCode);
+                AccessLog accessLog = config.getAccessLog();
+                if (accessLog != null) {
+                    accessLog.append(accessLog.methodId(request.getInterfaceName(), request.getMethodName()),
+                            latencyNanos, statusCode, request.wireSize(),
+                            response != null ? response.wireSize() : 0, AccessLog.SIDE_CLIENT);
+                }
+                if (callEvent.shouldCommit()) {
+                    callEvent.service = request.getInterfaceName();
+                    callEvent.method = request.getMethodName();
+                    callEvent.requestId = requestId;
+                    callEvent.provider = url.getAddress();
+                    callEvent.statusCode = statusCode;
+                    callEvent.commit();
+                }
+            });
+            dispatched = true;
 
             // 发送请求
             channel.writeAndFlush(request).addListener((ChannelFutureListener) future -> {
                 if (!future.isSuccess()) {
                     responseFuture.completeExceptionally(future.cause());
-                    pendingRequests.remove(request.getRequestId());
                 }
             });
-
-            // 等待响应，最多等待5秒
-            return responseFuture.get(5, TimeUnit.SECONDS);
+            return responseFuture;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.completedFuture(
+                    RpcResponse.fail(requestId, RpcStatusCode.INTERNAL_ERROR, "RPC请求被中断"));
         } catch (Exception e) {
-            log.error("发送RPC请求失败", e);
-            return RpcResponse.fail(request.getRequestId(), 500, "发送RPC请求失败: " + e.getMessage());
+            logSendFailure(e);
+            return CompletableFuture.completedFuture(RpcResponse.fail(requestId, RpcStatusCode.UNAVAILABLE,
+                    "发送RPC请求失败: " + e.getMessage()));
         } finally {
-            // 清理请求映射
-            pendingRequests.remove(request.getRequestId());
+            // 请求未发出时直接归还许可
+            if (!dispatched) {
+                if (flowControl != null) {
+                    flowControl.release();
+                }
+                if (providerAcquired) {
+                    permits.release();
+                }
+            }
         }
     }
 
+    @Override
+    public RpcResponse sendOneway(URL url, RpcRequest request) {
+        String requestId = request.getRequestId();
+        MethodMetrics methodMetrics = RpcMetrics.client().method(request.getInterfaceName(), request.getMethodName());
+        try {
+            Channel channel = getChannel(url);
+
+            // 单向请求没有在途状态，只按出站缓冲区水位限流：在调用超时时间内等待连接恢复可写，
+            // 服务端积压时会暂停读取，压力经TCP流控传回调用方
+            long waitMillis = request.getTimeout() > 0 ? request.getTimeout() : config.getOverloadWaitMillis();
+            if (!ChannelFlowControl.get(channel).awaitWritable(channel, OverloadPolicy.BOUNDED_WAIT, waitMillis)) {
+                methodMetrics.onRejected();
+                return RpcResponse.fail(requestId, RpcStatusCode.CLIENT_OVERLOADED, "连接不可写: " + url.getAddress());
+            }
+
+            // 写出完成时记录指标，耗时为请求在出站队列中的时间
+            request.oneway(true);
+            methodMetrics.onStart();
+            long startNanos = System.nanoTime();
+            Span span = Tracer.startClientSpan(request);
+            channel.writeAndFlush(request).addListener((ChannelFutureListener) future -> {
+                int statusCode = future.isSuccess() ? RpcStatusCode.SUCCESS : RpcStatusCode.UNAVAILABLE;
+                long latencyNanos = System.nanoTime() - startNanos;
+                methodMetrics.onComplete(latencyNanos, future.isSuccess());
+                Tracer.finishClientSpan(span, statusCode);
+                AccessLog accessLog = config.getAccessLog();
+                if (accessLog != null) {
+                    accessLog.append(accessLog.methodId(request.getInterfaceName(), request.getMethodName()),
+                            latencyNanos, statusCode, request.wireSize(), 0, AccessLog.SIDE_CLIENT);
+                }
+                if (!future.isSuccess()) {
+                    logSendFailure(future.cause());
+                }
+            });
+            return RpcResponse.success(requestId, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return RpcResponse.fail(requestId, RpcStatusCode.INTERNAL_ERROR, "RPC请求被中断");
+        } catch (Exception e) {
+            logSendFailure(e);
+            return RpcResponse.fail(requestId, RpcStatusCode.UNAVAILABLE, "发送RPC请求失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isAvailable(URL url) {
+        // 尚未建立连接的地址视为可用
+        Channel channel = channelPool.get(url.getAddress());
+        if (channel != null && channel.isActive() && !channel.isWritable()) {
+            return false;
+        }
+        Semaphore permits = providerPermits.get(url.getAddress());
+        return permits == null || permits.availablePermits() > 0;
+    }
+
+    /**
+     * 记录发送失败，限流后附带省略的条数
+     *
+     * @param cause 失败原因
+     */
+    private void logSendFailure(Throwable cause) {
+        if (errorLogLimiter.tryAcquire()) {
+            log.error("发送RPC请求失败，上次记录后省略{}条", errorLogLimiter.drainSuppressed(), cause);
+        }
+    }
+
+    /**
+     * 按超限策略获取服务提供者的在途许可
+     *
+     * @param permits 许可
+     * @return 是否获取成功
+     */
+    private boolean acquire(Semaphore permits) throws InterruptedException {
+        if (config.getOverloadPolicy() == OverloadPolicy.FAIL_FAST) {
+            return permits.tryAcquire();
+        }
+        return permits.tryAcquire(config.getOverloadWaitMillis(), TimeUnit.MILLISECONDS);
+    }
+
     /**
      * 获取或创建连接
      *
@@ -110,37 +390,205 @@ public class NettyRpcClient implements RpcClient {
 
         // 尝试从连接池获取
         Channel channel = channelPool.get(address);
+        if (channel != null && channel.isActive()) {
+            return channel;
+        }
+
+        // 等待正在进行的连接（可能是后台重连），不重复发起
+        Future<Channel> future = connect(url);
+        if (!future.await(config.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS) || !future.isSuccess()) {
+            throw new RuntimeException("连接服务器失败: " + address, future.cause());
+        }
+        return future.getNow();
+    }
+
+    /**
+     * 异步建立连接，同一地址同时只有一个连接过程
+     *
+     * @param url 服务地址
+     * @return 连接Future
+     */
+    private Future<Channel> connect(URL url) {
+        String address = url.getAddress();
+        Promise<Channel> connecting = connectingFutures.get(address);
+        if (connecting != null) {
+            return connecting;
+        }
+
+        Promise<Channel> promise = group.next().newPromise();
+        connecting = connectingFutures.putIfAbsent(address, promise);
+        if (connecting != null) {
+            // 其他线程已抢先发起连接
+            return connecting;
+        }
 
-        // 检查连接是否可用
-        if (channel == null || !channel.isActive()) {
-            // 创建新连接
-            ChannelFuture future = bootstrap.connect(url.getHost(), url.getPort()).sync();
-            if (future.isSuccess()) {
-                channel = future.channel();
+        promise.addListener((FutureListener<Channel>) f -> {
+            connectingFutures.remove(address, promise);
+            if (f.isSuccess()) {
+                Channel channel = f.getNow();
                 channelPool.put(address, channel);
 
-                // 添加连接关闭的监听器，从连接池中移除
-                channel.closeFuture().addListener((ChannelFutureListener) closeFuture ->
-                        channelPool.remove(address));
+                // 添加连接关闭的监听器，从连接池中移除并在后台重连
+                channel.closeFuture().addListener((ChannelFutureListener) closeFuture -> {
+                    channelPool.remove(address, channel);
+                    scheduleReconnect(url, 0);
+                });
+            }
+        });
+
+        // 同机的服务提供者优先使用域套接字，失败时回退到TCP
+        DomainSocketAddress domainAddress = domainSocketAddress(url);
+        if (domainAddress != null) {
+            domainBootstrap().connect(domainAddress).addListener((ChannelFutureListener) f -> {
+                if (f.isSuccess()) {
+                    promise.trySuccess(f.channel());
+                } else {
+                    log.warn("通过域套接字{}连接失败，改用TCP连接{}", domainAddress.path(), address);
+                    failedDomainSockets.put(domainAddress.path(), System.nanoTime() + DOMAIN_SOCKET_RETRY_NANOS);
+                    connectTcp(url, promise);
+                }
+            });
+        } else {
+            connectTcp(url, promise);
+        }
+        return promise;
+    }
+
+    private void connectTcp(URL url, Promise<Channel> promise) {
+        bootstrap.connect(url.getHost(), url.getPort()).addListener((ChannelFutureListener) f -> {
+            if (f.isSuccess()) {
+                promise.trySuccess(f.channel());
             } else {
-                throw new RuntimeException("连接服务器失败: " + url.getAddress());
+                promise.tryFailure(f.cause());
+            }
+        });
+    }
+
+    /**
+     * 获取服务提供者可用的域套接字地址
+     *
+     * @param url 服务地址
+     * @return 域套接字地址，未开启、未注册路径、不在本机、不支持epoll或最近连接失败时返回null
+     */
+    private DomainSocketAddress domainSocketAddress(URL url) {
+        String path = url.getParameter(URL.PARAM_UNIX_SOCKET);
+        if (!config.isPreferDomainSocket() || path == null || !Epoll.isAvailable() || !isLocalHost(url.getHost())) {
+            return null;
+        }
+        // 不检查套接字文件是否存在，连接失败时回退到TCP并在一段时间内不再尝试
+        Long retryNanos = failedDomainSockets.get(path);
+        if (retryNanos != null) {
+            if (System.nanoTime() - retryNanos < 0) {
+                return null;
             }
+            failedDomainSockets.remove(path, retryNanos);
         }
+        return new DomainSocketAddress(path);
+    }
+
+    /**
+     * 判断主机是否为本机的某个地址
+     * <p>
+     * 连接过程可能运行在事件循环线程上，这里不做DNS解析，只识别IP地址字面量和localhost；
+     * 服务注册的是主机名时不使用域套接字。
+     *
+     * @param host 主机地址
+     * @return 是本机地址时返回true
+     */
+    private static boolean isLocalHost(String host) {
+        if ("localhost".equalsIgnoreCase(host)) {
+            return true;
+        }
+        InetAddress address = NetUtil.createInetAddressFromIpAddressString(host);
+        return address != null && (address.isLoopbackAddress() || address.isAnyLocalAddress()
+                || LocalAddresses.ALL.contains(address));
+    }
+
+    /**
+     * 获取域套接字连接的启动器，首次调用时创建epoll线程组
+     */
+    private Bootstrap domainBootstrap() {
+        Bootstrap result = domainBootstrap;
+        if (result == null) {
+            synchronized (this) {
+                result = domainBootstrap;
+                if (result == null) {
+                    domainGroup = new EpollEventLoopGroup();
+                    result = new Bootstrap().group(domainGroup).channel(EpollDomainSocketChannel.class);
+                    configure(result);
+                    domainBootstrap = result;
+                }
+            }
+        }
+        return result;
+    }
 
-        return channel;
+    /**
+     * 在后台按指数退避重连，避免请求线程承担重连开销
+     *
+     * @param url     服务地址
+     * @param attempt 已重试次数
+     */
+    private void scheduleReconnect(URL url, int attempt) {
+        if (closed || attempt >= config.getMaxReconnectAttempts()) {
+            return;
+        }
+        long delay = Math.min(config.getReconnectInitialDelayMillis() << Math.min(attempt, 20),
+                config.getReconnectMaxDelayMillis());
+        group.schedule(() -> {
+            Channel current = channelPool.get(url.getAddress());
+            if (closed || (current != null && current.isActive())) {
+                return;
+            }
+            connect(url).addListener((FutureListener<Channel>) f -> {
+                if (f.isSuccess()) {
+                    log.info("已重新连接到{}", url.getAddress());
+                } else {
+                    scheduleReconnect(url, attempt + 1);
+                }
+            });
+        }, delay, TimeUnit.MILLISECONDS);
     }
 
     @Override
     public void close() {
+        closed = true;
+
         // 关闭所有连接
         for (Channel channel : channelPool.values()) {
             channel.close();
         }
         channelPool.clear();
         pendingRequests.clear();
+        pendingReturnTypes.clear();
+        providerPermits.clear();
 
         // 关闭线程组
         group.shutdownGracefully();
+        synchronized (this) {
+            if (domainGroup != null) {
+                domainGroup.shutdownGracefully();
+            }
+        }
         log.info("Netty客户端已关闭");
     }
+
+    /**
+     * 本机所有网卡地址，首次使用时加载
+     */
+    private static final class LocalAddresses {
+        static final Set<InetAddress> ALL = load();
+
+        private static Set<InetAddress> load() {
+            Set<InetAddress> addresses = new HashSet<>();
+            try {
+                for (NetworkInterface networkInterface : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+                    addresses.addAll(Collections.list(networkInterface.getInetAddresses()));
+                }
+            } catch (SocketException e) {
+                log.warn("获取本机网卡地址失败", e);
+            }
+            return addresses;
+        }
+    }
 }
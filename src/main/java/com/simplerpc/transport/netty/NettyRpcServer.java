@@ -2,38 +2,69 @@ package com.simplerpc.transport.netty;
 
 import com.simplerpc.common.RpcRequest;
 import com.simplerpc.common.RpcResponse;
+import com.simplerpc.metrics.RpcMetrics;
 import com.simplerpc.serialize.Serializer;
 import com.simplerpc.serialize.impl.HessianSerializer;
+import com.simplerpc.transport.InJvmServices;
 import com.simplerpc.transport.RpcServer;
 import com.simplerpc.transport.netty.codec.RpcDecoder;
 import com.simplerpc.transport.netty.codec.RpcEncoder;
 import com.simplerpc.transport.netty.handler.RpcServerHandler;
+import com.simplerpc.transport.netty.handler.ServerHeartbeatHandler;
+import com.simplerpc.transport.netty.handler.TrafficCaptureHandler;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.channel.unix.Errors;
+import io.netty.channel.unix.Socket;
+import io.netty.handler.timeout.IdleStateHandler;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 基于Netty的RPC服务器实现
+ * <p>
+ * 配置了域套接字路径且运行在支持epoll的Linux上时，同时监听该Unix域套接字，供同机的客户端使用。
  */
 @Slf4j
 public class NettyRpcServer implements RpcServer {
     private final EventLoopGroup bossGroup;
     private final EventLoopGroup workerGroup;
     private final Serializer serializer;
+    private final NettyServerConfig config;
+    // 业务线程池，所有连接共享
+    private final ThreadPoolExecutor businessExecutor;
 
     // 服务实例映射，key为服务名(接口名+版本)，value为服务实例
     private final Map<String, Object> serviceMap = new ConcurrentHashMap<>();
 
     private ChannelFuture channelFuture;
+    private ChannelFuture domainChannelFuture;
+    private EventLoopGroup domainBossGroup;
+    private EventLoopGroup domainWorkerGroup;
+    // 本进程创建的域套接字文件标识，关闭时只删除仍是这个标识的文件
+    private Object domainSocketFileKey;
 
     /**
      * 构造函数
@@ -49,46 +80,59 @@ public class NettyRpcServer implements RpcServer {
      * @param serializer 序列化器
      */
     public NettyRpcServer(Serializer serializer) {
+        this(serializer, new NettyServerConfig());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param serializer 序列化器
+     * @param config     服务端配置
+     */
+    public NettyRpcServer(Serializer serializer, NettyServerConfig config) {
         this.serializer = serializer;
+        this.config = config;
+        this.businessExecutor = new ThreadPoolExecutor(config.getBusinessThreads(), config.getBusinessThreads(),
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
         this.bossGroup = new NioEventLoopGroup(1);
         this.workerGroup = new NioEventLoopGroup();
     }
 
     /**
-     * 添加服务实例
+     * 添加服务实例，服务器启动后同时登记为进程内服务，开启了进程内调用的代理可以直接调用
      *
      * @param serviceName     服务名称
      * @param serviceInstance 服务实例
      */
     public void addService(String serviceName, Object serviceInstance) {
         serviceMap.put(serviceName, serviceInstance);
+        if (channelFuture != null) {
+            InJvmServices.export(serviceName, serviceInstance);
+        }
         log.info("添加服务: {}", serviceName);
     }
 
     @Override
     public void start(int port) {
         try {
+            ChannelInitializer<Channel> initializer = channelInitializer(new RpcServerHandler(
+                    serviceMap, businessExecutor, config));
             ServerBootstrap bootstrap = new ServerBootstrap();
             bootstrap.group(bossGroup, workerGroup)
                     .channel(NioServerSocketChannel.class)
                     .option(ChannelOption.SO_BACKLOG, 128)
                     .childOption(ChannelOption.SO_KEEPALIVE, true)
                     .childOption(ChannelOption.TCP_NODELAY, true)
-                    .childHandler(new ChannelInitializer<SocketChannel>() {
-                        @Override
-                        protected void initChannel(SocketChannel ch) {
-                            ch.pipeline()
-                                    // 添加编解码器
-                                    .addLast(new RpcDecoder(serializer, RpcRequest.class))
-                                    .addLast(new RpcEncoder(serializer, RpcResponse.class))
-                                    // 添加请求处理器
-                                    .addLast(new RpcServerHandler(serviceMap));
-                        }
-                    });
+                    .childHandler(initializer);
 
             // 绑定端口并启动服务器
             channelFuture = bootstrap.bind(port).sync();
             log.info("Netty RPC服务器已启动，监听端口: {}", port);
+            serviceMap.forEach(InJvmServices::export);
+
+            if (config.getDomainSocketPath() != null) {
+                bindDomainSocket(config.getDomainSocketPath(), initializer);
+            }
 
         } catch (Exception e) {
             log.error("Netty RPC服务器启动失败", e);
@@ -96,6 +140,119 @@ public class NettyRpcServer implements RpcServer {
         }
     }
 
+    /**
+     * 创建TCP和域套接字连接共用的通道初始化器
+     *
+     * @param serverHandler 共享的请求处理器
+     * @return 通道初始化器
+     */
+    private ChannelInitializer<Channel> channelInitializer(RpcServerHandler serverHandler) {
+        return new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                ch.pipeline()
+                        // 空闲检测：长时间收不到数据（包括心跳）则关闭连接
+                        .addLast(new IdleStateHandler(
+                                config.getReaderIdleTimeoutMillis(), 0, 0, TimeUnit.MILLISECONDS));
+                // 流量录制需要看到解码前的原始帧
+                if (config.getTrafficCapture() != null) {
+                    ch.pipeline().addLast(new TrafficCaptureHandler(config.getTrafficCapture()));
+                }
+                ch.pipeline()
+                        // 添加编解码器
+                        .addLast(new RpcDecoder(serializer, RpcRequest.class, RpcMetrics.server()))
+                        .addLast(new RpcEncoder(serializer, RpcResponse.class, RpcMetrics.server()))
+                        // 添加心跳处理器
+                        .addLast(new ServerHeartbeatHandler())
+                        // 添加请求处理器
+                        .addLast(serverHandler);
+            }
+        };
+    }
+
+    /**
+     * 监听Unix域套接字，不支持epoll时只记录警告，不影响TCP监听
+     *
+     * @param path 套接字文件路径
+     * @param initializer 通道初始化器
+     */
+    private void bindDomainSocket(String path, ChannelInitializer<Channel> initializer) throws InterruptedException {
+        if (!Epoll.isAvailable()) {
+            log.warn("当前平台不支持epoll，不监听域套接字{}", path, Epoll.unavailabilityCause());
+            return;
+        }
+        // 上次进程异常退出时可能留下套接字文件，确认没有进程在监听后再删除，不能抢走正在服务的进程的地址
+        File file = new File(path);
+        if (file.exists()) {
+            if (!isStaleSocket(path)) {
+                log.warn("域套接字{}正被其他进程监听，不监听域套接字", path);
+                return;
+            }
+            if (!file.delete()) {
+                log.warn("删除域套接字文件{}失败", path);
+            }
+        }
+        domainBossGroup = new EpollEventLoopGroup(1);
+        domainWorkerGroup = new EpollEventLoopGroup();
+        domainChannelFuture = new ServerBootstrap()
+                .group(domainBossGroup, domainWorkerGroup)
+                .channel(EpollServerDomainSocketChannel.class)
+                .childHandler(initializer)
+                .bind(new DomainSocketAddress(path)).sync();
+        domainSocketFileKey = fileKey(Paths.get(path));
+        log.info("Netty RPC服务器已监听域套接字: {}", path);
+    }
+
+    /**
+     * 尝试连接已存在的套接字文件，只有连接被拒绝才说明没有进程在监听
+     * <p>
+     * 监听方的等待队列已满时连接返回EAGAIN，同样视为仍在使用。
+     *
+     * @param path 套接字文件路径
+     * @return 没有进程在监听时返回true
+     */
+    private static boolean isStaleSocket(String path) {
+        Socket socket = Socket.newSocketDomain();
+        try {
+            socket.connect(new DomainSocketAddress(path));
+            return false;
+        } catch (IOException e) {
+            // Netty对连接错误只保留错误信息，按它为ECONNREFUSED生成的信息比较
+            String refused = Errors.newIOException("connect", Errors.ERROR_ECONNREFUSED_NEGATIVE).getMessage();
+            return refused.equals(e.getMessage());
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("关闭探测连接失败", e);
+            }
+        }
+    }
+
+    /**
+     * 获取文件标识，用于判断文件是否被替换
+     *
+     * @param path 文件路径
+     * @return 文件标识，文件不存在或平台不支持时返回null
+     */
+    private static Object fileKey(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 获取正在监听的域套接字路径，用于注册到注册中心
+     *
+     * @return 套接字文件路径，未监听时返回null
+     */
+    public String getDomainSocketPath() {
+        return domainChannelFuture != null && domainChannelFuture.channel().isActive()
+                ? config.getDomainSocketPath() : null;
+    }
+
     @Override
     public void stop() {
         try {
@@ -103,12 +260,26 @@ public class NettyRpcServer implements RpcServer {
                 // 关闭服务器通道
                 channelFuture.channel().close().sync();
             }
-        } catch (InterruptedException e) {
+            if (domainChannelFuture != null) {
+                domainChannelFuture.channel().close().sync();
+                // 文件已被其他进程删除并重新绑定时保留，避免删掉新进程的地址
+                Path path = Paths.get(config.getDomainSocketPath());
+                if (domainSocketFileKey != null && Objects.equals(domainSocketFileKey, fileKey(path))) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (InterruptedException | IOException e) {
             log.error("关闭RPC服务器失败", e);
         } finally {
+            serviceMap.forEach(InJvmServices::unexport);
             // 关闭线程组
             bossGroup.shutdownGracefully();
             workerGroup.shutdownGracefully();
+            if (domainBossGroup != null) {
+                domainBossGroup.shutdownGracefully();
+                domainWorkerGroup.shutdownGracefully();
+            }
+            businessExecutor.shutdown();
             log.info("Netty RPC服务器已关闭");
         }
     }
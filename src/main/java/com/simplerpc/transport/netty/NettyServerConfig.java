@@ -0,0 +1,57 @@
+package com.simplerpc.transport.netty;
+
+import com.simplerpc.accesslog.AccessLog;
+import com.simplerpc.capture.TrafficCapture;
+import com.simplerpc.limit.Limit;
+import com.simplerpc.limit.impl.GradientLimit;
+import lombok.Data;
+
+import java.util.function.Supplier;
+
+/**
+ * Netty服务端配置
+ */
+@Data
+public class NettyServerConfig {
+    /**
+     * 读空闲多久后判定客户端已失效并关闭连接，单位毫秒，应大于客户端心跳间隔
+     */
+    private long readerIdleTimeoutMillis = 30000;
+
+    /**
+     * 业务线程数
+     */
+    private int businessThreads = Runtime.getRuntime().availableProcessors() * 2;
+
+    /**
+     * 每个服务方法的并发上限算法工厂，为null时不限制并发
+     */
+    private Supplier<Limit> limitFactory = GradientLimit::new;
+
+    /**
+     * 收到取消请求时是否中断正在执行的业务线程，默认只通过RpcContext通知业务代码，由业务代码自行检查并退出
+     * <p>
+     * 中断会让业务代码中的阻塞IO、锁等待和第三方客户端抛出异常或关闭连接，只在确认服务实现能正确处理中断时开启。
+     */
+    private boolean interruptOnCancel = false;
+
+    /**
+     * 单个连接上排队中和执行中的单向请求上限，达到后暂停读取该连接，回落到一半时恢复
+     */
+    private int maxPendingOnewayPerConnection = 1024;
+
+    /**
+     * 同时监听的Unix域套接字路径，为null时只监听TCP；仅在支持epoll的Linux上生效
+     */
+    private String domainSocketPath;
+
+    /**
+     * 访问日志，为null时不记录
+     */
+    private AccessLog accessLog;
+
+    /**
+     * 流量录制，为null时不录制
+     */
+    private TrafficCapture trafficCapture;
+}
@@ -0,0 +1,16 @@
+package com.simplerpc.transport.netty;
+
+/**
+ * 在途请求达到上限或连接不可写时的处理策略
+ */
+public enum OverloadPolicy {
+    /**
+     * 立即失败
+     */
+    FAIL_FAST,
+
+    /**
+     * 在限定时间内等待，超时后失败
+     */
+    BOUNDED_WAIT
+}
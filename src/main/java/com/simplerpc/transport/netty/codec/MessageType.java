@@ -0,0 +1,52 @@
+package com.simplerpc.transport.netty.codec;
+
+/**
+ * 消息类型，位于帧头长度字段之后，占1个字节
+ * <p>
+ * 帧格式：| 消息体长度(4字节) | 消息类型(1字节) | 消息体 |
+ */
+public final class MessageType {
+
+    /**
+     * RPC请求
+     */
+    public static final byte REQUEST = 1;
+
+    /**
+     * RPC响应
+     */
+    public static final byte RESPONSE = 2;
+
+    /**
+     * 心跳请求，无消息体
+     */
+    public static final byte HEARTBEAT_PING = 3;
+
+    /**
+     * 心跳响应，无消息体
+     */
+    public static final byte HEARTBEAT_PONG = 4;
+
+    /**
+     * 取消请求，消息体为UTF-8编码的请求ID
+     */
+    public static final byte CANCEL = 5;
+
+    /**
+     * 带数据段的请求，见 {@link Segments}
+     */
+    public static final byte REQUEST_SEGMENTED = 6;
+
+    /**
+     * 带数据段的响应，见 {@link Segments}
+     */
+    public static final byte RESPONSE_SEGMENTED = 7;
+
+    /**
+     * 单向调用标志，与REQUEST或REQUEST_SEGMENTED组合，服务端不返回响应
+     */
+    public static final byte FLAG_ONEWAY = 0x40;
+
+    private MessageType() {
+    }
+}
@@ -1,37 +1,79 @@
 package com.simplerpc.transport.netty.codec;
 
+import com.simplerpc.common.Blob;
+import com.simplerpc.common.Heartbeat;
+import com.simplerpc.common.RpcCancel;
+import com.simplerpc.common.RpcRequest;
+import com.simplerpc.common.RpcResponse;
+import com.simplerpc.jfr.RpcDecodeEvent;
+import com.simplerpc.metrics.RpcMetrics;
 import com.simplerpc.serialize.Serializer;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
 import lombok.extern.slf4j.Slf4j;
 
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * RPC解码器，用于将网络字节流解码为对象
+ * <p>
+ * 数据段中的ByteBuf和Blob是接收缓冲区的切片，不复制，由使用方释放；字节数组和ByteBuffer复制一次。
  */
 @Slf4j
 public class RpcDecoder extends ByteToMessageDecoder {
 
+    /**
+     * 帧头长度：4字节消息体长度 + 1字节消息类型
+     */
+    private static final int HEADER_LENGTH = 5;
+
+    /**
+     * 等待的帧不小于该长度时改为组合方式累积，避免累积缓冲区反复扩容复制
+     */
+    private static final int COMPOSITE_THRESHOLD = 256 * 1024;
+
     private final Serializer serializer;
     private final Class<?> clazz;
+    private final RpcMetrics metrics;
+    private final Function<String, Type> returnTypes;
+    private boolean compositeCumulation;
 
     /**
      * 构造函数
      *
      * @param serializer 序列化器
      * @param clazz 目标类型
+     * @param metrics 指标注册表，记录反序列化耗时和字节数
      */
-    public RpcDecoder(Serializer serializer, Class<?> clazz) {
+    public RpcDecoder(Serializer serializer, Class<?> clazz, RpcMetrics metrics) {
+        this(serializer, clazz, metrics, null);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param serializer 序列化器
+     * @param clazz 目标类型
+     * @param metrics 指标注册表，记录反序列化耗时和字节数
+     * @param returnTypes 请求ID -> 返回值的声明类型，客户端解码响应时按该类型绑定数据，可以为null
+     */
+    public RpcDecoder(Serializer serializer, Class<?> clazz, RpcMetrics metrics, Function<String, Type> returnTypes) {
         this.serializer = serializer;
         this.clazz = clazz;
+        this.metrics = metrics;
+        this.returnTypes = returnTypes;
     }
 
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
-        // 消息头：4字节整数表示消息体长度
-        if (in.readableBytes() < 4) {
+        // 消息头：4字节整数表示消息体长度，1字节表示消息类型
+        if (in.readableBytes() < HEADER_LENGTH) {
             return;
         }
 
@@ -47,11 +89,52 @@ public class RpcDecoder extends ByteToMessageDecoder {
             return;
         }
 
+        // 读取消息类型，单向调用标志单独取出
+        byte messageType = in.readByte();
+        boolean oneway = (messageType & MessageType.FLAG_ONEWAY) != 0;
+        messageType &= ~MessageType.FLAG_ONEWAY;
+
         // 如果消息体不完整，重置读取位置
         if (in.readableBytes() < length) {
+            if (length >= COMPOSITE_THRESHOLD && !compositeCumulation) {
+                setCumulator(COMPOSITE_CUMULATOR);
+                compositeCumulation = true;
+            }
             in.resetReaderIndex();
             return;
         }
+        if (compositeCumulation) {
+            setCumulator(MERGE_CUMULATOR);
+            compositeCumulation = false;
+        }
+
+        switch (messageType) {
+            case MessageType.HEARTBEAT_PING:
+                in.skipBytes(length);
+                out.add(Heartbeat.PING);
+                return;
+            case MessageType.HEARTBEAT_PONG:
+                in.skipBytes(length);
+                out.add(Heartbeat.PONG);
+                return;
+            case MessageType.CANCEL:
+                out.add(new RpcCancel(in.readCharSequence(length, StandardCharsets.UTF_8).toString()));
+                return;
+            case MessageType.REQUEST:
+            case MessageType.RESPONSE:
+                break;
+            case MessageType.REQUEST_SEGMENTED:
+            case MessageType.RESPONSE_SEGMENTED:
+                decodeSegmented(in, length, messageType, oneway, out);
+                return;
+            default:
+                log.error("未知的消息类型: {}", messageType);
+                ctx.close();
+                return;
+        }
+
+        RpcDecodeEvent event = new RpcDecodeEvent();
+        event.begin();
 
         // 读取消息体
         byte[] bytes = new byte[length];
@@ -59,11 +142,149 @@ public class RpcDecoder extends ByteToMessageDecoder {
 
         try {
             // 反序列化为对象
-            Object obj = serializer.deserialize(bytes, clazz);
+            long start = System.nanoTime();
+            Object obj = deserialize(bytes);
+            metrics.recordDeserialize(System.nanoTime() - start, length);
+            if (obj instanceof RpcRequest) {
+                ((RpcRequest) obj).wireSize(length);
+                ((RpcRequest) obj).oneway(oneway);
+            } else if (obj instanceof RpcResponse) {
+                ((RpcResponse) obj).wireSize(length);
+            }
+            out.add(obj);
+
+            if (event.shouldCommit()) {
+                event.requestId = obj instanceof RpcRequest
+                        ? ((RpcRequest) obj).getRequestId() : ((RpcResponse) obj).getRequestId();
+                event.messageType = messageType;
+                event.payloadSize = length;
+                event.commit();
+            }
+        } catch (Exception e) {
+            log.error("反序列化数据失败", e);
+            throw new RuntimeException("反序列化数据失败", e);
+        }
+    }
+
+    /**
+     * 解码包含数据段的消息，格式见 {@link Segments}
+     *
+     * @param in 输入缓冲区，读取位置在消息体开头
+     * @param length 帧中消息体的总长度
+     * @param messageType 消息类型
+     * @param oneway 是否为单向调用
+     * @param out 解码结果
+     */
+    private void decodeSegmented(ByteBuf in, int length, byte messageType, boolean oneway, List<Object> out) {
+        RpcDecodeEvent event = new RpcDecodeEvent();
+        event.begin();
+
+        int end = in.readerIndex() + length;
+        Object[] values = null;
+        try {
+            int envelopeLength = in.readInt();
+            if (envelopeLength < 0 || envelopeLength > length - 6) {
+                throw new CorruptedFrameException("消息体长度错误: " + envelopeLength);
+            }
+            byte[] bytes = new byte[envelopeLength];
+            in.readBytes(bytes);
+            int count = in.readUnsignedShort();
+            if (4 + envelopeLength + 2 + (long) count * 9 > length) {
+                throw new CorruptedFrameException("数据段数量错误: " + count);
+            }
+            int[] slots = new int[count];
+            byte[] kinds = new byte[count];
+            int[] lengths = new int[count];
+            for (int i = 0; i < count; i++) {
+                slots[i] = in.readInt();
+                kinds[i] = in.readByte();
+                lengths[i] = in.readInt();
+            }
+
+            long start = System.nanoTime();
+            Object obj = deserialize(bytes);
+            metrics.recordDeserialize(System.nanoTime() - start, length);
+
+            // 数据段直接引用接收缓冲区
+            values = new Object[count];
+            for (int i = 0; i < count; i++) {
+                if (lengths[i] < 0 || lengths[i] > end - in.readerIndex()) {
+                    throw new CorruptedFrameException("数据段长度错误: " + lengths[i]);
+                }
+                values[i] = readSegment(in, kinds[i], lengths[i]);
+            }
+            if (in.readerIndex() != end) {
+                throw new CorruptedFrameException("消息长度与数据段不符");
+            }
+
+            String requestId;
+            if (messageType == MessageType.REQUEST_SEGMENTED) {
+                RpcRequest request = (RpcRequest) obj;
+                Object[] parameters = request.getParameters();
+                for (int i = 0; i < count; i++) {
+                    if (parameters == null || slots[i] < 0 || slots[i] >= parameters.length) {
+                        throw new CorruptedFrameException("数据段位置错误: " + slots[i]);
+                    }
+                    parameters[slots[i]] = values[i];
+                }
+                request.wireSize(length);
+                request.oneway(oneway);
+                requestId = request.getRequestId();
+            } else {
+                RpcResponse response = (RpcResponse) obj;
+                if (count != 1 || slots[0] != Segments.SLOT_DATA) {
+                    throw new CorruptedFrameException("响应数据段错误");
+                }
+                response.setData(values[0]);
+                response.wireSize(length);
+                requestId = response.getRequestId();
+            }
             out.add(obj);
+
+            if (event.shouldCommit()) {
+                event.requestId = requestId;
+                event.messageType = messageType;
+                event.payloadSize = length;
+                event.commit();
+            }
         } catch (Exception e) {
+            if (values != null) {
+                for (Object value : values) {
+                    Blob.releaseValue(value);
+                }
+            }
+            in.readerIndex(end);
             log.error("反序列化数据失败", e);
             throw new RuntimeException("反序列化数据失败", e);
         }
     }
+
+    private Object deserialize(byte[] bytes) {
+        if (returnTypes != null && clazz == RpcResponse.class) {
+            return serializer.deserializeResponse(bytes, returnTypes);
+        }
+        return serializer.deserialize(bytes, clazz);
+    }
+
+    private static Object readSegment(ByteBuf in, byte kind, int length) {
+        switch (kind) {
+            case Segments.KIND_BYTES: {
+                byte[] bytes = new byte[length];
+                in.readBytes(bytes);
+                return bytes;
+            }
+            case Segments.KIND_BYTE_BUFFER: {
+                ByteBuffer buffer = ByteBuffer.allocate(length);
+                in.readBytes(buffer);
+                buffer.flip();
+                return buffer;
+            }
+            case Segments.KIND_BYTE_BUF:
+                return in.readRetainedSlice(length);
+            case Segments.KIND_BLOB:
+                return Blob.of(in.readRetainedSlice(length));
+            default:
+                throw new CorruptedFrameException("未知的数据段类型: " + kind);
+        }
+    }
 }
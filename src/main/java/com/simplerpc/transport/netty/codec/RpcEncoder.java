@@ -1,47 +1,262 @@
 package com.simplerpc.transport.netty.codec;
 
+import com.simplerpc.common.Blob;
+import com.simplerpc.common.Heartbeat;
+import com.simplerpc.common.RpcCancel;
+import com.simplerpc.common.RpcRequest;
+import com.simplerpc.common.RpcResponse;
+import com.simplerpc.jfr.RpcEncodeEvent;
+import com.simplerpc.metrics.RpcMetrics;
 import com.simplerpc.serialize.Serializer;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.FileRegion;
+import io.netty.handler.codec.EncoderException;
 import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.PromiseCombiner;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 /**
  * RPC编码器，用于将对象编码为网络字节流
+ * <p>
+ * 包含数据段的请求和响应见 {@link Segments}：只序列化消息体，数据段直接交给通道写出，不复制到编码缓冲区。
+ * 编码器只持有数据段自己的引用，不改变调用方传入的ByteBuf和Blob的引用计数。
  */
 @Slf4j
 public class RpcEncoder extends MessageToByteEncoder<Object> {
 
     private final Serializer serializer;
     private final Class<?> clazz;
+    private final RpcMetrics metrics;
 
     /**
      * 构造函数
      *
      * @param serializer 序列化器
      * @param clazz 目标类型
+     * @param metrics 指标注册表，记录序列化耗时和字节数
      */
-    public RpcEncoder(Serializer serializer, Class<?> clazz) {
+    public RpcEncoder(Serializer serializer, Class<?> clazz, RpcMetrics metrics) {
         this.serializer = serializer;
         this.clazz = clazz;
+        this.metrics = metrics;
     }
 
     @Override
     protected void encode(ChannelHandlerContext ctx, Object msg, ByteBuf out) {
+        // 心跳消息只有帧头，没有消息体
+        if (msg instanceof Heartbeat) {
+            out.writeInt(0);
+            out.writeByte(msg == Heartbeat.PING ? MessageType.HEARTBEAT_PING : MessageType.HEARTBEAT_PONG);
+            return;
+        }
+
+        // 取消消息只携带请求ID，不经过序列化器
+        if (msg instanceof RpcCancel) {
+            byte[] requestId = ((RpcCancel) msg).getRequestId().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(requestId.length);
+            out.writeByte(MessageType.CANCEL);
+            out.writeBytes(requestId);
+            return;
+        }
+
         // 检查消息类型
         if (clazz.isInstance(msg)) {
             try {
+                RpcEncodeEvent event = new RpcEncodeEvent();
+                event.begin();
+
                 // 序列化为字节数组
+                long start = System.nanoTime();
                 byte[] bytes = serializer.serialize(msg);
+                metrics.recordSerialize(System.nanoTime() - start, bytes.length);
+                if (msg instanceof RpcRequest) {
+                    ((RpcRequest) msg).wireSize(bytes.length);
+                } else if (msg instanceof RpcResponse) {
+                    ((RpcResponse) msg).wireSize(bytes.length);
+                }
 
                 // 写入消息长度
                 out.writeInt(bytes.length);
+                // 写入消息类型
+                byte messageType = msg instanceof RpcRequest ? requestType((RpcRequest) msg, MessageType.REQUEST)
+                        : MessageType.RESPONSE;
+                out.writeByte(messageType);
                 // 写入消息体
                 out.writeBytes(bytes);
+
+                if (event.shouldCommit()) {
+                    event.requestId = msg instanceof RpcRequest
+                            ? ((RpcRequest) msg).getRequestId() : ((RpcResponse) msg).getRequestId();
+                    event.messageType = messageType;
+                    event.payloadSize = bytes.length;
+                    event.commit();
+                }
             } catch (Exception e) {
                 log.error("序列化数据失败", e);
                 throw new RuntimeException("序列化数据失败", e);
             }
         }
     }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (clazz.isInstance(msg) && Segments.hasSegments(msg)) {
+            writeSegmented(ctx, msg, promise);
+        } else {
+            super.write(ctx, msg, promise);
+        }
+    }
+
+    /**
+     * 写出包含数据段的消息：帧头和消息体写入一个缓冲区，每个数据段单独写出
+     *
+     * @param ctx 通道上下文
+     * @param msg RpcRequest或RpcResponse
+     * @param promise 全部写出完成后通知
+     */
+    private void writeSegmented(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        // 在副本中把数据段的位置置为null后序列化，原消息保持不变，重试和对冲时可以再次发送
+        boolean isRequest = msg instanceof RpcRequest;
+        int[] slots;
+        Object[] values;
+        Object envelope;
+        if (isRequest) {
+            RpcRequest request = (RpcRequest) msg;
+            Object[] parameters = request.getParameters().clone();
+            int count = 0;
+            for (Object parameter : parameters) {
+                if (Segments.isSegment(parameter)) {
+                    count++;
+                }
+            }
+            slots = new int[count];
+            values = new Object[count];
+            for (int i = 0, j = 0; i < parameters.length; i++) {
+                if (Segments.isSegment(parameters[i])) {
+                    slots[j] = i;
+                    values[j++] = parameters[i];
+                    parameters[i] = null;
+                }
+            }
+            RpcRequest copy = new RpcRequest();
+            copy.setRequestId(request.getRequestId());
+            copy.setInterfaceName(request.getInterfaceName());
+            copy.setMethodName(request.getMethodName());
+            copy.setParameterTypes(request.getParameterTypes());
+            copy.setParameters(parameters);
+            copy.setVersion(request.getVersion());
+            copy.setTimeout(request.getTimeout());
+            copy.setAttachments(request.getAttachments());
+            copy.oneway(request.oneway());
+            envelope = copy;
+        } else {
+            RpcResponse response = (RpcResponse) msg;
+            slots = new int[]{Segments.SLOT_DATA};
+            values = new Object[]{response.getData()};
+            RpcResponse copy = new RpcResponse();
+            copy.setRequestId(response.getRequestId());
+            copy.setStatusCode(response.getStatusCode());
+            copy.setMessage(response.getMessage());
+            copy.dataType(response.dataType());
+            envelope = copy;
+        }
+
+        Object[] payloads = new Object[values.length + 1];
+        try {
+            RpcEncodeEvent event = new RpcEncodeEvent();
+            event.begin();
+
+            long start = System.nanoTime();
+            byte[] bytes = serializer.serialize(envelope);
+            metrics.recordSerialize(System.nanoTime() - start, bytes.length);
+
+            // 消息体长度 + 消息体 + 段数 + 每段的位置、类型和长度
+            int headLength = 4 + bytes.length + 2 + values.length * 9;
+            ByteBuf head = ctx.alloc().ioBuffer(5 + headLength);
+            payloads[0] = head;
+            byte messageType = isRequest ? requestType((RpcRequest) msg, MessageType.REQUEST_SEGMENTED)
+                    : MessageType.RESPONSE_SEGMENTED;
+            head.writeInt(0);
+            head.writeByte(messageType);
+            head.writeInt(bytes.length);
+            head.writeBytes(bytes);
+            head.writeShort(values.length);
+            long frameLength = headLength;
+            for (int i = 0; i < values.length; i++) {
+                Object payload = payload(values[i]);
+                payloads[i + 1] = payload;
+                long length = payload instanceof FileRegion
+                        ? ((FileRegion) payload).count() : ((ByteBuf) payload).readableBytes();
+                head.writeInt(slots[i]);
+                head.writeByte(Segments.kind(values[i]));
+                head.writeInt((int) Math.min(length, Integer.MAX_VALUE));
+                frameLength += length;
+            }
+            if (frameLength > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("消息长度超过上限: " + frameLength);
+            }
+            head.setInt(0, (int) frameLength);
+            if (isRequest) {
+                ((RpcRequest) msg).wireSize((int) frameLength);
+            } else {
+                ((RpcResponse) msg).wireSize((int) frameLength);
+            }
+
+            // 全部写出成功后才算完成，任一部分失败都会通知promise
+            PromiseCombiner combiner = new PromiseCombiner(ctx.executor());
+            for (int i = 0; i < payloads.length; i++) {
+                combiner.add(ctx.write(payloads[i]));
+                payloads[i] = null;
+            }
+            combiner.finish(promise);
+
+            if (event.shouldCommit()) {
+                event.requestId = isRequest
+                        ? ((RpcRequest) msg).getRequestId() : ((RpcResponse) msg).getRequestId();
+                event.messageType = messageType;
+                event.payloadSize = (int) frameLength;
+                event.commit();
+            }
+        } catch (Exception e) {
+            for (Object payload : payloads) {
+                ReferenceCountUtil.release(payload);
+            }
+            log.error("序列化数据失败", e);
+            promise.tryFailure(new EncoderException("序列化数据失败", e));
+        }
+    }
+
+    /**
+     * 请求的消息类型，单向调用加上 {@link MessageType#FLAG_ONEWAY}
+     */
+    private static byte requestType(RpcRequest request, byte type) {
+        return request.oneway() ? (byte) (type | MessageType.FLAG_ONEWAY) : type;
+    }
+
+    /**
+     * 将数据段转换为可以写出的对象，内存数据取得自己的引用，不复制
+     */
+    private static Object payload(Object value) {
+        if (value instanceof byte[]) {
+            return Unpooled.wrappedBuffer((byte[]) value);
+        }
+        if (value instanceof ByteBuffer) {
+            return Unpooled.wrappedBuffer(((ByteBuffer) value).duplicate());
+        }
+        if (value instanceof ByteBuf) {
+            return ((ByteBuf) value).retainedDuplicate();
+        }
+        Blob blob = (Blob) value;
+        return blob.isFile()
+                ? new DefaultFileRegion(blob.getFile(), blob.getPosition(), blob.length())
+                : blob.content().retainedDuplicate();
+    }
 }
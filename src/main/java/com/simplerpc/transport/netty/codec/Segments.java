@@ -0,0 +1,71 @@
+package com.simplerpc.transport.netty.codec;
+
+import com.simplerpc.common.Blob;
+import com.simplerpc.common.RpcRequest;
+import com.simplerpc.common.RpcResponse;
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 帧数据段
+ * <p>
+ * 请求参数或响应返回值中的 {@link ByteBuf}、{@link ByteBuffer}、{@link Blob} 以及不小于
+ * {@link #BYTES_THRESHOLD} 的字节数组不经过序列化器，在消息体之后作为独立的数据段发送：
+ * <pre>
+ * |int 消息体长度|消息体（对应位置为null）|short 段数|(int 位置|byte 类型|int 长度)*|段数据...|
+ * </pre>
+ * 位置为参数下标，{@link #SLOT_DATA} 表示响应的返回值。
+ */
+public final class Segments {
+
+    /**
+     * 字节数组不小于该长度时作为数据段发送
+     */
+    public static final int BYTES_THRESHOLD = 32 * 1024;
+
+    static final int SLOT_DATA = -1;
+    static final byte KIND_BYTES = 1;
+    static final byte KIND_BYTE_BUF = 2;
+    static final byte KIND_BYTE_BUFFER = 3;
+    static final byte KIND_BLOB = 4;
+
+    private Segments() {
+    }
+
+    /**
+     * 判断值是否作为数据段发送
+     */
+    static boolean isSegment(Object value) {
+        return value instanceof ByteBuf || value instanceof ByteBuffer || value instanceof Blob
+                || (value instanceof byte[] && ((byte[]) value).length >= BYTES_THRESHOLD);
+    }
+
+    /**
+     * 判断消息是否包含数据段
+     */
+    static boolean hasSegments(Object msg) {
+        if (msg instanceof RpcRequest) {
+            Object[] parameters = ((RpcRequest) msg).getParameters();
+            if (parameters != null) {
+                for (Object parameter : parameters) {
+                    if (isSegment(parameter)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        return msg instanceof RpcResponse && isSegment(((RpcResponse) msg).getData());
+    }
+
+    static byte kind(Object value) {
+        if (value instanceof byte[]) {
+            return KIND_BYTES;
+        }
+        if (value instanceof ByteBuf) {
+            return KIND_BYTE_BUF;
+        }
+        return value instanceof ByteBuffer ? KIND_BYTE_BUFFER : KIND_BLOB;
+    }
+}
@@ -0,0 +1,50 @@
+package com.simplerpc.transport.netty.handler;
+
+import com.simplerpc.common.Heartbeat;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 客户端心跳处理器，写空闲时发送PING；读空闲达到超时时间的一半时也发送PING探测，
+ * 之后又过了一半时间仍未收到任何数据（包括PONG）才判定连接失效并关闭
+ * <p>
+ * 只发送单向调用或持续写入而等待长耗时响应的连接不会写空闲，读空闲探测保证健康的连接能收到PONG，不会被误关闭。
+ */
+@Slf4j
+public class ClientHeartbeatHandler extends ChannelInboundHandlerAdapter {
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof IdleStateEvent) {
+            IdleState state = ((IdleStateEvent) evt).state();
+            if (state == IdleState.WRITER_IDLE) {
+                // 发送心跳，写失败说明连接已不可用
+                ctx.writeAndFlush(Heartbeat.PING).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+            } else if (state == IdleState.READER_IDLE) {
+                if (((IdleStateEvent) evt).isFirst()) {
+                    // 先探测一次，收到任何数据都会重新开始读空闲计时
+                    ctx.writeAndFlush(Heartbeat.PING).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+                } else {
+                    // 探测后仍未收到任何数据，连接可能已半开
+                    log.warn("连接{}读空闲超时，关闭连接", ctx.channel().remoteAddress());
+                    ctx.close();
+                }
+            }
+            return;
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        // PONG只用于刷新读空闲计时，无需继续传递
+        if (msg == Heartbeat.PONG) {
+            return;
+        }
+        super.channelRead(ctx, msg);
+    }
+}
@@ -1,12 +1,18 @@
 package com.simplerpc.transport.netty.handler;
 
+import com.simplerpc.common.Blob;
+import com.simplerpc.common.LogRateLimiter;
 import com.simplerpc.common.RpcResponse;
+import com.simplerpc.transport.netty.ChannelFlowControl;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.channels.ClosedChannelException;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * RPC客户端处理器，用于处理服务器返回的响应
@@ -15,6 +21,8 @@ import java.util.concurrent.CompletableFuture;
 public class RpcClientHandler extends SimpleChannelInboundHandler<RpcResponse> {
 
     private final Map<String, CompletableFuture<RpcResponse>> pendingRequests;
+    // 调用方超时、取消或对冲请求落败后到达的响应都找不到请求，服务端变慢时每个请求都可能发生，日志限流到每秒一条
+    private final LogRateLimiter unknownResponseLogLimiter = new LogRateLimiter(1, TimeUnit.SECONDS);
 
     /**
      * 构造函数
@@ -28,17 +36,50 @@ public class RpcClientHandler extends SimpleChannelInboundHandler<RpcResponse> {
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, RpcResponse response) {
         String requestId = response.getRequestId();
-        CompletableFuture<RpcResponse> future = pendingRequests.get(requestId);
+        ChannelFlowControl.get(ctx.channel()).getInflightRequests().remove(requestId);
+        CompletableFuture<RpcResponse> future = pendingRequests.remove(requestId);
 
         if (future != null) {
-            // 设置响应结果，唤醒等待线程
-            future.complete(response);
-            pendingRequests.remove(requestId);
+            // 设置响应结果，唤醒等待线程；调用方已放弃时释放返回值中的缓冲区
+            if (!future.complete(response)) {
+                Blob.releaseValue(response.getData());
+            }
         } else {
-            log.warn("收到未知请求ID的响应: {}", requestId);
+            if (unknownResponseLogLimiter.tryAcquire()) {
+                log.warn("收到未知请求ID的响应: {}，上次记录后省略{}条", requestId,
+                        unknownResponseLogLimiter.drainSuppressed());
+            }
+            Blob.releaseValue(response.getData());
         }
     }
 
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        // 连接断开后响应不会再到达，立即让等待中的请求失败，而不是等到超时
+        ChannelFlowControl flowControl = ChannelFlowControl.get(ctx.channel());
+        Set<String> inflight = flowControl.getInflightRequests();
+        if (!inflight.isEmpty()) {
+            ClosedChannelException cause = new ClosedChannelException();
+            for (String requestId : inflight) {
+                CompletableFuture<RpcResponse> future = pendingRequests.remove(requestId);
+                if (future != null) {
+                    future.completeExceptionally(cause);
+                }
+            }
+            log.warn("连接{}已断开，{}个在途请求快速失败", ctx.channel().remoteAddress(), inflight.size());
+            inflight.clear();
+        }
+        flowControl.signalWritabilityChanged();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        // 出站缓冲区回落到低水位后唤醒等待发送的线程
+        ChannelFlowControl.get(ctx.channel()).signalWritabilityChanged();
+        super.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         log.error("RPC客户端处理异常", cause);
@@ -1,101 +1,424 @@
 package com.simplerpc.transport.netty.handler;
 
+import com.simplerpc.accesslog.AccessLog;
+import com.simplerpc.common.Blob;
+import com.simplerpc.common.LogRateLimiter;
+import com.simplerpc.common.RpcCancel;
+import com.simplerpc.common.RpcContext;
 import com.simplerpc.common.RpcRequest;
 import com.simplerpc.common.RpcResponse;
+import com.simplerpc.common.RpcStatusCode;
+import com.simplerpc.jfr.RpcServerInvokeEvent;
+import com.simplerpc.jfr.RpcServerQueueEvent;
+import com.simplerpc.limit.ConcurrencyLimiter;
+import com.simplerpc.limit.Limit;
+import com.simplerpc.metrics.MethodMetrics;
+import com.simplerpc.metrics.RpcMetrics;
+import com.simplerpc.trace.Span;
+import com.simplerpc.trace.Tracer;
+import com.simplerpc.transport.netty.NettyServerConfig;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.AttributeKey;
 import lombok.extern.slf4j.Slf4j;
 
 import java.lang.reflect.Method;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * RPC服务器处理器，用于处理客户端发送的请求
+ * <p>
+ * 所有连接共享同一个处理器实例和业务线程池。
+ * <p>
+ * 请求参数中收到的ByteBuf和Blob在请求结束后释放，返回值中的ByteBuf和Blob在响应写出后释放，
+ * 服务实现需要继续持有时应自行retain或返回retainedDuplicate。
  */
 @Slf4j
+@ChannelHandler.Sharable
 public class RpcServerHandler extends SimpleChannelInboundHandler<RpcRequest> {
     private final Map<String, Object> serviceMap;
-    private final ExecutorService executor;
+    private final ThreadPoolExecutor executor;
+    private final Supplier<Limit> limitFactory;
+    private final boolean interruptOnCancel;
+    private final AccessLog accessLog;
+    private final int maxPendingOneway;
+    // 业务异常可能每个请求都发生，错误日志限流到每秒一条
+    private final LogRateLimiter errorLogLimiter = new LogRateLimiter(1, TimeUnit.SECONDS);
+
+    // 每个服务方法的并发限制器，key为服务名#方法名
+    private final Map<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    // 每个连接上排队中和执行中的请求，key为请求ID，用于处理取消
+    private static final AttributeKey<Map<String, RpcTask>> TASKS = AttributeKey.valueOf("rpcTasks");
+    // 每个连接上排队中和执行中的单向请求数
+    private static final AttributeKey<AtomicInteger> PENDING_ONEWAY = AttributeKey.valueOf("pendingOneway");
+    // 访问日志中未解析到服务或方法的请求统一记录的名称
+    private static final String UNRESOLVED = "?";
 
     /**
      * 构造函数
      *
      * @param serviceMap 服务实例映射
+     * @param executor   业务线程池
+     * @param config     服务端配置
      */
-    public RpcServerHandler(Map<String, Object> serviceMap) {
+    public RpcServerHandler(Map<String, Object> serviceMap, ThreadPoolExecutor executor, NettyServerConfig config) {
         this.serviceMap = serviceMap;
-        // 创建线程池，处理请求
-        this.executor = Executors.newFixedThreadPool(
-                Runtime.getRuntime().availableProcessors() * 2);
+        this.executor = executor;
+        this.limitFactory = config.getLimitFactory();
+        this.interruptOnCancel = config.isInterruptOnCancel();
+        this.accessLog = config.getAccessLog();
+        this.maxPendingOneway = config.getMaxPendingOnewayPerConnection();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof RpcCancel) {
+            Map<String, RpcTask> tasks = ctx.channel().attr(TASKS).get();
+            RpcTask task = tasks != null ? tasks.get(((RpcCancel) msg).getRequestId()) : null;
+            if (task != null) {
+                task.cancel();
+            }
+            return;
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        // 连接断开后响应无法送达，取消该连接上的所有请求
+        Map<String, RpcTask> tasks = ctx.channel().attr(TASKS).get();
+        if (tasks != null) {
+            for (RpcTask task : tasks.values()) {
+                task.cancel();
+            }
+        }
+        super.channelInactive(ctx);
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, RpcRequest request) {
-        executor.submit(() -> {
-            log.info("收到请求: {}", request.getRequestId());
+        // 构建服务名
+        String serviceName = request.getInterfaceName();
+        if (request.getVersion() != null && !request.getVersion().isEmpty()) {
+            serviceName += "-" + request.getVersion();
+        }
+
+        long startNanos = System.nanoTime();
+
+        // 查找服务实例
+        Object serviceBean = serviceMap.get(serviceName);
 
-            // 构建服务名
-            String serviceName = request.getInterfaceName();
-            if (request.getVersion() != null && !request.getVersion().isEmpty()) {
-                serviceName += "-" + request.getVersion();
+        if (serviceBean == null) {
+            sendResponse(ctx, request, startNanos, RpcResponse.fail(
+                    request.getRequestId(), RpcStatusCode.SERVICE_NOT_FOUND, "服务不存在: " + serviceName));
+            return;
+        }
+
+        // 先解析出方法再创建限流器和指标，避免客户端随意填写的方法名让这些表无限增长
+        Method method;
+        try {
+            method = findMethod(serviceBean, request);
+        } catch (NoSuchMethodException e) {
+            sendResponse(ctx, request, startNanos, RpcResponse.fail(request.getRequestId(),
+                    RpcStatusCode.SERVICE_NOT_FOUND, "方法不存在: " + serviceName + "#" + request.getMethodName()));
+            return;
+        }
+
+        // 超过并发上限时立即拒绝，不进入业务线程池排队；
+        // 单向请求被拒绝后调用方无从得知，改为暂停读取连接，通过TCP流控让客户端变为不可写
+        MethodMetrics methodMetrics = RpcMetrics.server().method(request.getInterfaceName(), request.getMethodName());
+        ConcurrencyLimiter limiter = request.oneway() ? null : getLimiter(serviceName, request.getMethodName());
+        if (limiter != null && !limiter.tryAcquire()) {
+            methodMetrics.onRejected();
+            sendResponse(ctx, request, startNanos, RpcResponse.fail(request.getRequestId(),
+                    RpcStatusCode.SERVER_OVERLOADED, "服务端并发已达上限: " + serviceName + "#" + request.getMethodName()));
+            return;
+        }
+
+        // 以收到请求的时间为起点计算截止时间
+        long deadlineNanos = request.getTimeout() > 0
+                ? startNanos + TimeUnit.MILLISECONDS.toNanos(request.getTimeout()) : 0;
+        Map<String, RpcTask> tasks = channelTasks(ctx.channel());
+        RpcTask task = new RpcTask(ctx, tasks, request, serviceBean, method, limiter, methodMetrics,
+                startNanos, deadlineNanos);
+        tasks.put(request.getRequestId(), task);
+        methodMetrics.onStart();
+        if (request.oneway()) {
+            onewayStarted(ctx.channel());
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            tasks.remove(request.getRequestId(), task);
+            task.finishOneway();
+            methodMetrics.onComplete(System.nanoTime() - startNanos, false);
+            if (limiter != null) {
+                limiter.release(startNanos, true);
             }
+            Tracer.markQueueExit(task.span);
+            Tracer.finishServerSpan(task.span, RpcStatusCode.SERVER_OVERLOADED);
+            sendResponse(ctx, request, startNanos, RpcResponse.fail(request.getRequestId(),
+                    RpcStatusCode.SERVER_OVERLOADED, "服务端业务线程池已关闭或已满"));
+        }
+    }
 
-            // 查找服务实例
-            Object serviceBean = serviceMap.get(serviceName);
+    /**
+     * 获取连接上排队中和执行中的请求
+     *
+     * @param channel 连接通道
+     * @return 请求ID -> 请求任务
+     */
+    private static Map<String, RpcTask> channelTasks(Channel channel) {
+        Map<String, RpcTask> tasks = channel.attr(TASKS).get();
+        if (tasks == null) {
+            channel.attr(TASKS).setIfAbsent(new ConcurrentHashMap<>());
+            tasks = channel.attr(TASKS).get();
+        }
+        return tasks;
+    }
 
-            if (serviceBean == null) {
-                sendResponse(ctx, RpcResponse.fail(
-                        request.getRequestId(), 404, "服务不存在: " + serviceName));
-                return;
+    /**
+     * 单向请求进入排队，连接上的单向请求达到上限时暂停读取
+     *
+     * @param channel 连接通道
+     */
+    private void onewayStarted(Channel channel) {
+        AtomicInteger pending = channel.attr(PENDING_ONEWAY).get();
+        if (pending == null) {
+            channel.attr(PENDING_ONEWAY).setIfAbsent(new AtomicInteger());
+            pending = channel.attr(PENDING_ONEWAY).get();
+        }
+        if (pending.incrementAndGet() == maxPendingOneway) {
+            channel.config().setAutoRead(false);
+        }
+    }
+
+    /**
+     * 单向请求结束，回落到上限的一半时恢复读取
+     *
+     * @param channel 连接通道
+     */
+    private void onewayFinished(Channel channel) {
+        if (channel.attr(PENDING_ONEWAY).get().decrementAndGet() == maxPendingOneway / 2) {
+            channel.config().setAutoRead(true);
+        }
+    }
+
+    /**
+     * 在业务线程中执行请求
+     *
+     * @param task 请求任务
+     */
+    private void handle(RpcTask task) {
+        RpcRequest request = task.request;
+        ConcurrencyLimiter limiter = task.limiter;
+        MethodMetrics methodMetrics = task.methodMetrics;
+        methodMetrics.recordQueueWait(System.nanoTime() - task.startNanos);
+        if (task.queueEvent.shouldCommit()) {
+            task.queueEvent.service = request.getInterfaceName();
+            task.queueEvent.method = request.getMethodName();
+            task.queueEvent.requestId = request.getRequestId();
+            task.queueEvent.commit();
+        }
+
+        // 调用方已经放弃的请求不再执行，也不返回响应
+        if (isExpired(task.deadlineNanos)) {
+            log.debug("请求{}在排队期间已超时，丢弃", request.getRequestId());
+            methodMetrics.onComplete(System.nanoTime() - task.startNanos, false);
+            if (limiter != null) {
+                limiter.release(task.startNanos, true);
             }
+            logAccess(request, task.startNanos, RpcStatusCode.DEADLINE_EXCEEDED, 0);
+            Tracer.markQueueExit(task.span);
+            Tracer.finishServerSpan(task.span, RpcStatusCode.DEADLINE_EXCEEDED);
+            releaseBuffers(request, null);
+            return;
+        }
 
-            try {
-                // 调用方法
-                Object result = invokeMethod(serviceBean, request);
+        boolean failed = false;
+        RpcServerInvokeEvent invokeEvent = new RpcServerInvokeEvent();
+        invokeEvent.begin();
+        Tracer.markQueueExit(task.span);
+        RpcContext context = RpcContext.getContext();
+        context.setDeadlineNanos(task.deadlineNanos);
+        context.setAttachments(request.getAttachments());
+        context.setSpan(task.span);
+        task.context = context;
+        if (task.cancelled) {
+            context.cancel();
+        }
+        try {
+            // 调用方法
+            Method method = task.method;
+            Object result = method.invoke(task.serviceBean, request.getParameters());
 
-                // 返回响应
-                sendResponse(ctx, RpcResponse.success(request.getRequestId(), result));
-            } catch (Exception e) {
-                log.error("处理请求失败", e);
-                sendResponse(ctx, RpcResponse.fail(
-                        request.getRequestId(), 500, "处理请求失败: " + e.getMessage()));
+            // 返回响应，调用方已超时或取消则省去序列化和发送
+            if (task.shouldRespond()) {
+                RpcResponse response = RpcResponse.success(request.getRequestId(), result);
+                // 声明类型供JSON等需要类型信息的序列化器使用
+                response.dataType(method.getGenericReturnType());
+                sendResponse(task.ctx, request, task.startNanos, response);
+            } else {
+                logAccess(request, task.startNanos, task.abandonedStatus(), 0);
+                releaseBuffers(request, result);
             }
-        });
+        } catch (Exception e) {
+            failed = true;
+            if (task.shouldRespond()) {
+                if (errorLogLimiter.tryAcquire()) {
+                    log.error("处理请求失败，上次记录后省略{}条", errorLogLimiter.drainSuppressed(), e);
+                }
+                sendResponse(task.ctx, request, task.startNanos, RpcResponse.fail(
+                        request.getRequestId(), RpcStatusCode.INTERNAL_ERROR, "处理请求失败: " + e.getMessage()));
+            } else {
+                logAccess(request, task.startNanos, task.abandonedStatus(), 0);
+                releaseBuffers(request, null);
+            }
+        } finally {
+            RpcContext.removeContext();
+            methodMetrics.onComplete(System.nanoTime() - task.startNanos, !failed);
+            Tracer.finishServerSpan(task.span, failed ? RpcStatusCode.INTERNAL_ERROR : RpcStatusCode.SUCCESS);
+            if (invokeEvent.shouldCommit()) {
+                invokeEvent.service = request.getInterfaceName();
+                invokeEvent.method = request.getMethodName();
+                invokeEvent.requestId = request.getRequestId();
+                invokeEvent.statusCode = failed ? RpcStatusCode.INTERNAL_ERROR : RpcStatusCode.SUCCESS;
+                invokeEvent.commit();
+            }
+            if (limiter != null) {
+                // 业务异常不是过载信号，只保留耗时样本；排队超时和拒绝在各自路径上记为丢弃
+                limiter.release(task.startNanos, false);
+            }
+        }
+    }
+
+    /**
+     * 判断截止时间是否已过
+     *
+     * @param deadlineNanos 截止时间，0表示没有截止时间
+     * @return 已过截止时间时返回true
+     */
+    private static boolean isExpired(long deadlineNanos) {
+        return deadlineNanos != 0 && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * 获取服务方法对应的并发限制器
+     *
+     * @param serviceName 服务名
+     * @param methodName  方法名
+     * @return 并发限制器，未开启并发限制时返回null
+     */
+    private ConcurrencyLimiter getLimiter(String serviceName, String methodName) {
+        if (limitFactory == null) {
+            return null;
+        }
+        return limiters.computeIfAbsent(serviceName + "#" + methodName,
+                key -> new ConcurrencyLimiter(limitFactory.get()));
     }
 
     /**
-     * 调用服务方法
+     * 查找服务方法
      *
      * @param serviceBean 服务实例
      * @param request RPC请求
-     * @return 调用结果
-     * @throws Exception 调用异常
+     * @return 服务方法
+     * @throws NoSuchMethodException 方法不存在
      */
-    private Object invokeMethod(Object serviceBean, RpcRequest request) throws Exception {
-        Class<?> serviceClass = serviceBean.getClass();
-        String methodName = request.getMethodName();
-        Class<?>[] parameterTypes = request.getParameterTypes();
-        Object[] parameters = request.getParameters();
-
-        // 获取方法
-        Method method = serviceClass.getMethod(methodName, parameterTypes);
+    private Method findMethod(Object serviceBean, RpcRequest request) throws NoSuchMethodException {
+        Method method = serviceBean.getClass().getMethod(request.getMethodName(), request.getParameterTypes());
         method.setAccessible(true);
-
-        // 调用方法
-        return method.invoke(serviceBean, parameters);
+        return method;
     }
 
     /**
-     * 发送响应
+     * 发送响应，写出完成后记录访问日志并释放请求和响应中的缓冲区；单向调用不发送响应，省去序列化
      *
      * @param ctx 通道上下文
+     * @param request RPC请求
+     * @param startNanos 收到请求的时间
      * @param response RPC响应
      */
-    private void sendResponse(ChannelHandlerContext ctx, RpcResponse response) {
-        ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+    private void sendResponse(ChannelHandlerContext ctx, RpcRequest request, long startNanos, RpcResponse response) {
+        if (request.oneway()) {
+            logAccess(request, startNanos, response.getStatusCode(), 0);
+            releaseBuffers(request, response.getData());
+            return;
+        }
+        ChannelFuture future = ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+        if (accessLog != null) {
+            future.addListener(f -> logAccess(request, startNanos, response.getStatusCode(), response.wireSize()));
+        }
+        if (holdsBuffers(request.getParameters()) || isBuffer(response.getData())) {
+            future.addListener(f -> releaseBuffers(request, response.getData()));
+        }
+    }
+
+    /**
+     * 释放请求参数和返回值中的ByteBuf和Blob，返回值就是某个参数时只释放一次
+     *
+     * @param request RPC请求
+     * @param result 返回值，没有时为null
+     */
+    private static void releaseBuffers(RpcRequest request, Object result) {
+        Object[] parameters = request.getParameters();
+        boolean resultReleased = result == null;
+        if (parameters != null) {
+            for (Object parameter : parameters) {
+                Blob.releaseValue(parameter);
+                resultReleased |= parameter == result;
+            }
+        }
+        if (!resultReleased) {
+            Blob.releaseValue(result);
+        }
+    }
+
+    private static boolean holdsBuffers(Object[] parameters) {
+        if (parameters != null) {
+            for (Object parameter : parameters) {
+                if (isBuffer(parameter)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBuffer(Object value) {
+        return value instanceof ByteBuf || value instanceof Blob;
+    }
+
+    /**
+     * 记录访问日志
+     *
+     * @param request RPC请求
+     * @param startNanos 收到请求的时间
+     * @param statusCode 状态码
+     * @param responseBytes 响应字节数，未发送响应时为0
+     */
+    private void logAccess(RpcRequest request, long startNanos, int statusCode, int responseBytes) {
+        if (accessLog != null) {
+            // 服务或方法不存在时名称来自客户端，归入同一个方法ID，避免方法表无限增长
+            int methodId = statusCode == RpcStatusCode.SERVICE_NOT_FOUND
+                    ? accessLog.methodId(UNRESOLVED, UNRESOLVED)
+                    : accessLog.methodId(request.getInterfaceName(), request.getMethodName());
+            accessLog.append(methodId,
+                    System.nanoTime() - startNanos, statusCode, request.wireSize(), responseBytes,
+                    AccessLog.SIDE_SERVER);
+        }
     }
 
     @Override
@@ -103,4 +426,125 @@ public class RpcServerHandler extends SimpleChannelInboundHandler<RpcRequest> {
         log.error("RPC服务器处理异常", cause);
         ctx.close();
     }
+
+    /**
+     * 请求任务，记录排队、执行和取消状态
+     */
+    private class RpcTask implements Runnable {
+        private static final int QUEUED = 0;
+        private static final int RUNNING = 1;
+        private static final int DONE = 2;
+        private static final int CANCELLED = 3;
+
+        private final ChannelHandlerContext ctx;
+        private final Map<String, RpcTask> tasks;
+        private final RpcRequest request;
+        private final Object serviceBean;
+        private final Method method;
+        private final ConcurrencyLimiter limiter;
+        private final MethodMetrics methodMetrics;
+        private final long startNanos;
+        private final long deadlineNanos;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private final RpcServerQueueEvent queueEvent = new RpcServerQueueEvent();
+        private final Span span;
+
+        private volatile boolean cancelled;
+        private volatile RpcContext context;
+        private Thread runner;
+
+        RpcTask(ChannelHandlerContext ctx, Map<String, RpcTask> tasks, RpcRequest request, Object serviceBean,
+                Method method, ConcurrencyLimiter limiter, MethodMetrics methodMetrics, long startNanos,
+                long deadlineNanos) {
+            this.ctx = ctx;
+            this.tasks = tasks;
+            this.request = request;
+            this.serviceBean = serviceBean;
+            this.method = method;
+            this.limiter = limiter;
+            this.methodMetrics = methodMetrics;
+            this.startNanos = startNanos;
+            this.deadlineNanos = deadlineNanos;
+            this.span = Tracer.startServerSpan(request);
+            queueEvent.begin();
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(QUEUED, RUNNING)) {
+                return;
+            }
+            synchronized (this) {
+                runner = Thread.currentThread();
+            }
+            try {
+                handle(this);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    state.set(DONE);
+                }
+                // 清除取消时可能留下的中断标记，避免影响线程池中的下一个任务
+                Thread.interrupted();
+                tasks.remove(request.getRequestId(), this);
+                finishOneway();
+            }
+        }
+
+        /**
+         * 单向请求结束时更新连接上的计数，每个任务只在运行结束、排队时取消或提交失败中的一处调用
+         */
+        void finishOneway() {
+            if (request.oneway()) {
+                onewayFinished(ctx.channel());
+            }
+        }
+
+        /**
+         * 取消请求：排队中的立即结束，之后轮到它时 {@link #run} 直接返回；执行中的通知业务代码并按配置中断线程
+         * <p>
+         * 在事件循环线程上调用。不从线程池队列中移除任务，LinkedBlockingQueue的移除需要加锁并线性查找，
+         * 过载时大量取消会拖慢IO线程和取任务的业务线程。
+         */
+        void cancel() {
+            cancelled = true;
+            if (state.compareAndSet(QUEUED, CANCELLED)) {
+                tasks.remove(request.getRequestId(), this);
+                methodMetrics.onComplete(System.nanoTime() - startNanos, false);
+                if (limiter != null) {
+                    // 调用方主动取消不是过载信号
+                    limiter.release(startNanos, false);
+                }
+                logAccess(request, startNanos, RpcStatusCode.CANCELLED, 0);
+                Tracer.markQueueExit(span);
+                Tracer.finishServerSpan(span, RpcStatusCode.CANCELLED);
+                releaseBuffers(request, null);
+                finishOneway();
+                log.debug("请求{}在排队期间被取消", request.getRequestId());
+                return;
+            }
+            RpcContext current = context;
+            if (current != null) {
+                current.cancel();
+            }
+            if (interruptOnCancel) {
+                synchronized (this) {
+                    if (runner != null && state.get() == RUNNING) {
+                        runner.interrupt();
+                    }
+                }
+            }
+        }
+
+        boolean shouldRespond() {
+            return !cancelled && !isExpired(deadlineNanos);
+        }
+
+        /**
+         * 不返回响应时记录的状态码
+         */
+        int abandonedStatus() {
+            return cancelled ? RpcStatusCode.CANCELLED : RpcStatusCode.DEADLINE_EXCEEDED;
+        }
+    }
 }
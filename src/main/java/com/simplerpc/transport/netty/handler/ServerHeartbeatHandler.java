@@ -0,0 +1,35 @@
+package com.simplerpc.transport.netty.handler;
+
+import com.simplerpc.common.Heartbeat;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 服务端心跳处理器，收到PING时返回PONG，读空闲时关闭失效连接
+ */
+@Slf4j
+public class ServerHeartbeatHandler extends ChannelInboundHandlerAdapter {
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof IdleStateEvent && ((IdleStateEvent) evt).state() == IdleState.READER_IDLE) {
+            log.warn("客户端{}读空闲超时，关闭连接", ctx.channel().remoteAddress());
+            ctx.close();
+            return;
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg == Heartbeat.PING) {
+            ctx.writeAndFlush(Heartbeat.PONG).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+            return;
+        }
+        super.channelRead(ctx, msg);
+    }
+}
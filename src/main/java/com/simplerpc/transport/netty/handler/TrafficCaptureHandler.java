@@ -0,0 +1,102 @@
+package com.simplerpc.transport.netty.handler;
+
+import com.simplerpc.capture.TrafficCapture;
+import com.simplerpc.transport.netty.codec.MessageType;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+/**
+ * 流量录制处理器，位于解码器之前，按采样率复制原始请求帧（包括分段请求和单向调用）的消息类型和消息体
+ * <p>
+ * 只读取数据不移动读索引，数据原样传给后续处理器。帧可能跨越多次读取，
+ * 因此每个连接使用独立的实例记录解析状态。
+ */
+public class TrafficCaptureHandler extends ChannelInboundHandlerAdapter {
+
+    private static final int HEADER_LENGTH = 5;
+
+    private final TrafficCapture capture;
+
+    // 当前帧头已读取的字节数和内容
+    private int headerRead;
+    private long header;
+    // 当前帧消息体剩余字节数
+    private int bodyRemaining;
+    // 被采样时保存消息类型和消息体，否则body为null
+    private byte bodyType;
+    private byte[] body;
+    private int bodyWritten;
+    private long arrivalNanos;
+
+    /**
+     * 构造函数
+     *
+     * @param capture 录制文件
+     */
+    public TrafficCaptureHandler(TrafficCapture capture) {
+        this.capture = capture;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof ByteBuf) {
+            scan((ByteBuf) msg);
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    private void scan(ByteBuf in) {
+        int index = in.readerIndex();
+        int end = in.writerIndex();
+        while (index < end) {
+            if (bodyRemaining == 0 && headerRead < HEADER_LENGTH) {
+                if (headerRead == 0) {
+                    arrivalNanos = System.nanoTime();
+                }
+                header = (header << 8) | in.getUnsignedByte(index++);
+                if (++headerRead == HEADER_LENGTH) {
+                    startBody();
+                }
+                continue;
+            }
+            int length = Math.min(bodyRemaining, end - index);
+            if (body != null) {
+                in.getBytes(index, body, bodyWritten, length);
+                bodyWritten += length;
+            }
+            index += length;
+            bodyRemaining -= length;
+            if (bodyRemaining == 0) {
+                finishFrame();
+            }
+        }
+    }
+
+    private void startBody() {
+        int length = (int) (header >>> 8);
+        byte messageType = (byte) header;
+        byte type = (byte) (messageType & ~MessageType.FLAG_ONEWAY);
+        bodyRemaining = length;
+        // 先检查单条上限和剩余空间再按帧头中的长度分配缓冲区，过大的帧只跳过不录制
+        if ((type == MessageType.REQUEST || type == MessageType.REQUEST_SEGMENTED)
+                && length > 0 && capture.shouldSample() && capture.accept(length)) {
+            bodyType = messageType;
+            body = new byte[length];
+            bodyWritten = 0;
+        }
+        if (length <= 0) {
+            finishFrame();
+        }
+    }
+
+    private void finishFrame() {
+        if (body != null) {
+            capture.append(arrivalNanos, bodyType, body);
+            body = null;
+        }
+        headerRead = 0;
+        header = 0;
+        bodyRemaining = 0;
+    }
+}
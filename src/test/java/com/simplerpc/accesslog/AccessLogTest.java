@@ -0,0 +1,30 @@
+package com.simplerpc.accesslog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AccessLogTest {
+
+    /**
+     * 重启后沿用已有字典中的方法ID，新方法从最大ID之后分配
+     */
+    @Test
+    void methodIdsSurviveRestart(@TempDir File directory) throws IOException {
+        int echo;
+        int ping;
+        try (AccessLog accessLog = new AccessLog(directory, "test", 16, 1024, 2)) {
+            echo = accessLog.methodId("EchoService", "echo");
+            ping = accessLog.methodId("EchoService", "ping");
+        }
+        try (AccessLog accessLog = new AccessLog(directory, "test", 16, 1024, 2)) {
+            assertEquals(ping, accessLog.methodId("EchoService", "ping"));
+            assertEquals(echo, accessLog.methodId("EchoService", "echo"));
+            assertEquals(Math.max(echo, ping) + 1, accessLog.methodId("OtherService", "echo"));
+        }
+    }
+}
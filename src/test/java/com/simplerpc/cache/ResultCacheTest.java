@@ -0,0 +1,90 @@
+package com.simplerpc.cache;
+
+import com.simplerpc.common.annotation.RpcCacheable;
+import com.simplerpc.metrics.MethodMetrics;
+import com.simplerpc.metrics.RpcMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResultCacheTest {
+
+    interface CachedService {
+        @RpcCacheable(maxSize = 2)
+        String small(String key);
+
+        @RpcCacheable(ttl = 50)
+        String shortLived(String key);
+
+        @RpcCacheable(ttl = 60000, refreshAhead = 60000)
+        String refreshed(String key);
+    }
+
+    /**
+     * 超过容量时淘汰最久未访问的条目
+     */
+    @Test
+    void evictsLeastRecentlyUsed() throws Exception {
+        MethodMetrics metrics = metrics("small");
+        ResultCache cache = new ResultCache(cacheable("small"), Runnable::run, metrics);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(new Object[]{"a"}, () -> "a" + loads.incrementAndGet());
+        cache.get(new Object[]{"b"}, () -> "b" + loads.incrementAndGet());
+        // 访问a，b成为最久未访问的条目
+        assertEquals("a1", cache.get(new Object[]{"a"}, () -> "a" + loads.incrementAndGet()));
+        cache.get(new Object[]{"c"}, () -> "c" + loads.incrementAndGet());
+
+        assertEquals(2, cache.size());
+        assertEquals(1, metrics.snapshot().getCacheEvictions());
+        assertEquals("a1", cache.get(new Object[]{"a"}, () -> "a" + loads.incrementAndGet()));
+        assertEquals("b4", cache.get(new Object[]{"b"}, () -> "b" + loads.incrementAndGet()));
+    }
+
+    /**
+     * 过期的条目重新加载
+     */
+    @Test
+    void reloadsAfterTtl() throws Exception {
+        ResultCache cache = new ResultCache(cacheable("shortLived"), Runnable::run, metrics("shortLived"));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(1, cache.get(new Object[]{"a"}, loads::incrementAndGet));
+        assertEquals(1, cache.get(new Object[]{"a"}, loads::incrementAndGet));
+        Thread.sleep(100);
+        assertEquals(2, cache.get(new Object[]{"a"}, loads::incrementAndGet));
+    }
+
+    /**
+     * 提前刷新每个条目只触发一次，刷新期间返回旧值
+     */
+    @Test
+    void refreshAheadFiresOncePerEntry() throws Exception {
+        List<Runnable> refreshes = new ArrayList<>();
+        ResultCache cache = new ResultCache(cacheable("refreshed"), refreshes::add, metrics("refreshed"));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(1, cache.get(new Object[]{"a"}, loads::incrementAndGet));
+        assertEquals(1, cache.get(new Object[]{"a"}, loads::incrementAndGet));
+        assertEquals(1, cache.get(new Object[]{"a"}, loads::incrementAndGet));
+        assertEquals(1, refreshes.size());
+
+        refreshes.remove(0).run();
+        // 刷新写入的新条目可以再次触发刷新
+        assertEquals(2, cache.get(new Object[]{"a"}, loads::incrementAndGet));
+        assertEquals(2, cache.get(new Object[]{"a"}, loads::incrementAndGet));
+        assertEquals(1, refreshes.size());
+    }
+
+    private static RpcCacheable cacheable(String method) throws NoSuchMethodException {
+        return CachedService.class.getMethod(method, String.class).getAnnotation(RpcCacheable.class);
+    }
+
+    private static MethodMetrics metrics(String method) {
+        return RpcMetrics.client().method(ResultCacheTest.class.getName(), method);
+    }
+}
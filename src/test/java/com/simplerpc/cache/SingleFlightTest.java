@@ -0,0 +1,141 @@
+package com.simplerpc.cache;
+
+import com.simplerpc.metrics.MethodMetrics;
+import com.simplerpc.metrics.RpcMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 参数相同的并发调用只发出一次请求，等待者得到同一个结果
+     */
+    @Test
+    void coalescesConcurrentIdenticalCalls() throws Exception {
+        MethodMetrics metrics = metrics("coalesce");
+        SingleFlight flight = new SingleFlight(metrics);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Object result = new Object();
+
+        Future<Object> leader = executor.submit(() -> flight.execute(new Object[]{"k"}, 0, () -> {
+            loads.incrementAndGet();
+            await(release);
+            return result;
+        }));
+        awaitLoads(loads, 1);
+        List<Future<Object>> followers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            followers.add(executor.submit(() -> flight.execute(new Object[]{"k"}, 5000, () -> {
+                loads.incrementAndGet();
+                return new Object();
+            })));
+        }
+        awaitCoalesced(metrics, 4);
+        release.countDown();
+
+        assertSame(result, leader.get(5, TimeUnit.SECONDS));
+        for (Future<Object> follower : followers) {
+            assertSame(result, follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+
+        // 请求结束后不缓存结果
+        assertEquals("again", flight.execute(new Object[]{"k"}, 0, () -> "again"));
+    }
+
+    /**
+     * 首个调用失败时等待者收到同样的原因，Error同样通知到等待者
+     */
+    @Test
+    void propagatesLeaderFailureToFollowers() throws Exception {
+        MethodMetrics metrics = metrics("failure");
+        SingleFlight flight = new SingleFlight(metrics);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        Future<Object> leader = executor.submit(() -> flight.execute(new Object[]{"k"}, 0, () -> {
+            loads.incrementAndGet();
+            await(release);
+            throw new StackOverflowError("boom");
+        }));
+        awaitLoads(loads, 1);
+        Future<Object> follower = executor.submit(() -> flight.execute(new Object[]{"k"}, 0, () -> null));
+        awaitCoalesced(metrics, 1);
+        release.countDown();
+
+        Exception leaderFailure = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertTrue(leaderFailure.getCause() instanceof StackOverflowError);
+        Exception followerFailure = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertTrue(followerFailure.getCause() instanceof RuntimeException);
+        assertTrue(followerFailure.getCause().getCause() instanceof StackOverflowError);
+    }
+
+    /**
+     * 等待者超时只影响自己，首个调用照常完成
+     */
+    @Test
+    void followerTimeoutDoesNotCancelSharedCall() throws Exception {
+        MethodMetrics metrics = metrics("timeout");
+        SingleFlight flight = new SingleFlight(metrics);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        Future<Object> leader = executor.submit(() -> flight.execute(new Object[]{"k"}, 0, () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "done";
+        }));
+        awaitLoads(loads, 1);
+        assertThrows(RuntimeException.class, () -> flight.execute(new Object[]{"k"}, 20, () -> "other"));
+        release.countDown();
+        assertEquals("done", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    private static MethodMetrics metrics(String method) {
+        return RpcMetrics.client().method(SingleFlightTest.class.getName(), method);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitLoads(AtomicInteger loads, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (loads.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void awaitCoalesced(MethodMetrics metrics, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (metrics.snapshot().getCoalesced() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
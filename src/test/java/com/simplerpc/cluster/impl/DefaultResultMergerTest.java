@@ -0,0 +1,100 @@
+package com.simplerpc.cluster.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DefaultResultMergerTest {
+
+    private final DefaultResultMerger merger = new DefaultResultMerger();
+
+    @Test
+    void concatenatesListsAndSkipsNulls() {
+        Object merged = merger.merge(List.class, Arrays.asList(Arrays.asList(1, 2), null, Collections.singletonList(2)));
+        assertEquals(Arrays.asList(1, 2, 2), merged);
+
+        merged = merger.merge(Collection.class, Arrays.asList(Collections.singletonList("a"), Collections.singletonList("b")));
+        assertEquals(Arrays.asList("a", "b"), merged);
+    }
+
+    @Test
+    void unionsSetsKeepingTheirOrdering() {
+        Object merged = merger.merge(Set.class, Arrays.asList(
+                new LinkedHashSet<>(Arrays.asList("b", "a")), new LinkedHashSet<>(Arrays.asList("a", "c"))));
+        assertInstanceOf(LinkedHashSet.class, merged);
+        assertEquals(Arrays.asList("b", "a", "c"), Arrays.asList(((Set<?>) merged).toArray()));
+
+        merged = merger.merge(SortedSet.class, Arrays.asList(new TreeSet<>(Arrays.asList(3, 1)),
+                new TreeSet<>(Collections.singletonList(2))));
+        assertInstanceOf(TreeSet.class, merged);
+        assertEquals(Arrays.asList(1, 2, 3), Arrays.asList(((Set<?>) merged).toArray()));
+    }
+
+    /**
+     * 后面的提供者覆盖相同的键
+     */
+    @Test
+    void mergesMapsWithLaterResultsWinning() {
+        Map<String, Integer> first = new LinkedHashMap<>();
+        first.put("a", 1);
+        first.put("b", 2);
+        Map<String, Integer> second = Collections.singletonMap("b", 3);
+        Object merged = merger.merge(Map.class, Arrays.asList(first, null, second));
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        expected.put("a", 1);
+        expected.put("b", 3);
+        assertEquals(expected, merged);
+
+        merged = merger.merge(SortedMap.class, Arrays.asList(Collections.singletonMap("z", 1),
+                Collections.singletonMap("y", 2)));
+        assertInstanceOf(TreeMap.class, merged);
+    }
+
+    @Test
+    void concatenatesArrays() {
+        Object merged = merger.merge(int[].class, Arrays.asList(new int[]{1, 2}, null, new int[]{3}));
+        assertArrayEquals(new int[]{1, 2, 3}, (int[]) merged);
+
+        merged = merger.merge(String[].class, Arrays.asList(new String[]{"a"}, new String[]{"b"}));
+        assertArrayEquals(new String[]{"a", "b"}, (String[]) merged);
+    }
+
+    @Test
+    void sumsNumbers() {
+        assertEquals(6, merger.merge(int.class, Arrays.asList(1, null, 5)));
+        assertEquals(7L, merger.merge(Long.class, Arrays.asList(3L, 4L)));
+        assertEquals(1.5, merger.merge(double.class, Arrays.asList(1.0, 0.5)));
+        assertThrows(ArithmeticException.class,
+                () -> merger.merge(int.class, Arrays.asList(Integer.MAX_VALUE, 1)));
+        assertNull(merger.merge(void.class, Arrays.asList(null, null)));
+    }
+
+    @Test
+    void rejectsUnsupportedTypes() {
+        assertTrue(DefaultResultMerger.supports(List.class));
+        assertFalse(DefaultResultMerger.supports(String.class));
+        assertFalse(DefaultResultMerger.supports(ConcurrentHashMap.class));
+        assertThrows(IllegalArgumentException.class,
+                () -> merger.merge(String.class, Arrays.asList("a", "b")));
+    }
+}
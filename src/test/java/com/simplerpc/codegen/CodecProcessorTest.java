@@ -0,0 +1,152 @@
+package com.simplerpc.codegen;
+
+import com.simplerpc.serialize.codec.DtoCodec;
+import com.simplerpc.serialize.impl.CodecSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.annotation.processing.Processor;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * simple-rpc-codegen 是独立模块，这里在测试中编译注解处理器，再用它编译数据类，检查生成的编解码器
+ */
+class CodecProcessorTest {
+
+    private static final Path PROCESSOR_SOURCE = Paths.get(System.getProperty("basedir", "."),
+            "simple-rpc-codegen/src/main/java/com/simplerpc/codegen/CodecProcessor.java");
+
+    private static final String PROCESSOR = "com.simplerpc.codegen.CodecProcessor";
+
+    private static final String SERVICE = "package demo;\n"
+            + "@com.simplerpc.common.annotation.RpcCodec\n"
+            + "public interface UserService {\n"
+            + "    User find(String name);\n"
+            + "}\n";
+
+    private static final String USER_V1 = "package demo;\n"
+            + "public class User {\n"
+            + "    private String name;\n"
+            + "    private int age;\n"
+            + "    private java.util.List<String> tags;\n"
+            + "    public String getName() { return name; }\n"
+            + "    public void setName(String name) { this.name = name; }\n"
+            + "    public int getAge() { return age; }\n"
+            + "    public void setAge(int age) { this.age = age; }\n"
+            + "    public java.util.List<String> getTags() { return tags; }\n"
+            + "    public void setTags(java.util.List<String> tags) { this.tags = tags; }\n"
+            + "}\n";
+
+    // 比V1多一个字段
+    private static final String USER_V2 = USER_V1.replace("    private int age;\n",
+            "    private int age;\n    public long version;\n");
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void generatedCodecRoundTrips() throws Exception {
+        ClassLoader loader = compileWithProcessor("v1", USER_V1);
+        CodecSerializer serializer = new CodecSerializer();
+        serializer.register(codec(loader));
+
+        Object user = newUser(loader, "alice", 30);
+        Object decoded = serializer.deserialize(serializer.serialize(user), Object.class);
+        assertEquals(user.getClass(), decoded.getClass());
+        assertEquals("alice", property(decoded, "getName"));
+        assertEquals(30, property(decoded, "getAge"));
+        assertEquals(Arrays.asList("a", "b"), property(decoded, "getTags"));
+    }
+
+    /**
+     * 两端数据类字段个数不同时，读取失败而不是把数据错位读进其他字段
+     */
+    @Test
+    void fieldCountMismatchFailsClearly() throws Exception {
+        ClassLoader v1 = compileWithProcessor("v1", USER_V1);
+        ClassLoader v2 = compileWithProcessor("v2", USER_V2);
+        CodecSerializer writer = new CodecSerializer();
+        writer.register(codec(v2));
+        CodecSerializer reader = new CodecSerializer();
+        reader.register(codec(v1));
+
+        byte[] bytes = writer.serialize(newUser(v2, "bob", 40));
+        RuntimeException e = assertThrows(RuntimeException.class, () -> reader.deserialize(bytes, Object.class));
+        assertNotNull(e.getCause());
+        assertTrue(e.getCause().getMessage().contains("字段定义与对端不一致"), e.getCause().getMessage());
+    }
+
+    private ClassLoader compileWithProcessor(String name, String userSource) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull(compiler, "需要在JDK上运行");
+        String classpath = System.getProperty("java.class.path");
+
+        // 编译注解处理器
+        Path processorOut = Files.createDirectories(temp.resolve(name + "-processor"));
+        compile(compiler, Collections.singletonList(PROCESSOR_SOURCE), processorOut, classpath, null);
+        ClassLoader processorLoader = new URLClassLoader(new URL[]{processorOut.toUri().toURL()},
+                getClass().getClassLoader());
+        Processor processor = (Processor) processorLoader.loadClass(PROCESSOR)
+                .getDeclaredConstructor().newInstance();
+
+        // 用处理器编译数据类
+        Path src = Files.createDirectories(temp.resolve(name + "-src/demo"));
+        Path out = Files.createDirectories(temp.resolve(name + "-classes"));
+        List<Path> sources = new ArrayList<>();
+        sources.add(Files.write(src.resolve("UserService.java"), SERVICE.getBytes(StandardCharsets.UTF_8)));
+        sources.add(Files.write(src.resolve("User.java"), userSource.getBytes(StandardCharsets.UTF_8)));
+        compile(compiler, sources, out, classpath, processor);
+        return new URLClassLoader(new URL[]{out.toUri().toURL()}, getClass().getClassLoader());
+    }
+
+    private static void compile(JavaCompiler compiler, List<Path> sources, Path out, String classpath,
+                                Processor processor) throws IOException {
+        StringWriter diagnostics = new StringWriter();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            List<String> options = Arrays.asList("-d", out.toString(), "-classpath", classpath,
+                    "-encoding", "UTF-8", processor == null ? "-proc:none" : "-Xlint:none");
+            JavaCompiler.CompilationTask task = compiler.getTask(diagnostics, files, null, options, null,
+                    files.getJavaFileObjectsFromPaths(sources));
+            if (processor != null) {
+                task.setProcessors(Collections.singletonList(processor));
+            }
+            assertTrue(task.call(), diagnostics.toString());
+        }
+    }
+
+    private static DtoCodec<?> codec(ClassLoader loader) throws Exception {
+        return (DtoCodec<?>) loader.loadClass("demo.User_RpcCodec").getDeclaredConstructor().newInstance();
+    }
+
+    private static Object newUser(ClassLoader loader, String name, int age) throws Exception {
+        Class<?> type = loader.loadClass("demo.User");
+        Object user = type.getDeclaredConstructor().newInstance();
+        type.getMethod("setName", String.class).invoke(user, name);
+        type.getMethod("setAge", int.class).invoke(user, age);
+        type.getMethod("setTags", List.class).invoke(user, Arrays.asList("a", "b"));
+        return user;
+    }
+
+    private static Object property(Object bean, String getter) throws Exception {
+        return bean.getClass().getMethod(getter).invoke(bean);
+    }
+}
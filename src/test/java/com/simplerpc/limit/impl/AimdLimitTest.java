@@ -0,0 +1,51 @@
+package com.simplerpc.limit.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AimdLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(200);
+
+    /**
+     * 并发被充分利用时上限加1，空闲时不增长
+     */
+    @Test
+    void growsOnlyWhenUtilized() {
+        AimdLimit limit = new AimdLimit(10, 1, 100, 0.5, 100);
+        limit.onSample(FAST, 5, false);
+        assertEquals(11, limit.getLimit());
+
+        limit.onSample(FAST, 1, false);
+        assertEquals(11, limit.getLimit());
+    }
+
+    /**
+     * 请求被丢弃或耗时超过阈值时按比例回退
+     */
+    @Test
+    void backsOffOnDropOrSlowCall() {
+        AimdLimit limit = new AimdLimit(40, 1, 100, 0.5, 100);
+        limit.onSample(FAST, 40, true);
+        assertEquals(20, limit.getLimit());
+
+        limit.onSample(SLOW, 20, false);
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    void staysWithinBounds() {
+        AimdLimit limit = new AimdLimit(3, 2, 4, 0.5, 100);
+        limit.onSample(FAST, 3, false);
+        limit.onSample(FAST, 4, false);
+        assertEquals(4, limit.getLimit());
+
+        limit.onSample(SLOW, 4, false);
+        limit.onSample(SLOW, 2, false);
+        assertEquals(2, limit.getLimit());
+    }
+}
@@ -0,0 +1,65 @@
+package com.simplerpc.limit.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GradientLimitTest {
+
+    private static final long BASELINE = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * 耗时平稳且并发被充分利用时，上限按排队余量增长
+     */
+    @Test
+    void growsWhileLatencyIsStable() {
+        GradientLimit limit = new GradientLimit(20, 1, 1000, 0.2, 1.5, 600, 10);
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(BASELINE, limit.getLimit(), false);
+        }
+        assertTrue(limit.getLimit() > 20, "limit=" + limit.getLimit());
+    }
+
+    /**
+     * 短周期耗时明显高于基线时，上限收缩
+     */
+    @Test
+    void shrinksWhenLatencyInflates() {
+        GradientLimit limit = new GradientLimit(100, 1, 1000, 0.2, 1.5, 600, 10);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(BASELINE, limit.getLimit(), false);
+        }
+        int before = limit.getLimit();
+        for (int i = 0; i < 30; i++) {
+            limit.onSample(BASELINE * 5, limit.getLimit(), false);
+        }
+        assertTrue(limit.getLimit() < before, before + " -> " + limit.getLimit());
+    }
+
+    @Test
+    void shrinksOnDropAndRespectsMinimum() {
+        GradientLimit limit = new GradientLimit(100, 5, 1000, 1.0, 1.5, 600, 10);
+        limit.onSample(BASELINE, 0, true);
+        // 丢弃时梯度为0.5：100 * 0.5 + sqrt(100)
+        assertEquals(60, limit.getLimit());
+
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(BASELINE, 0, true);
+        }
+        assertTrue(limit.getLimit() >= 5 && limit.getLimit() < 10, "limit=" + limit.getLimit());
+    }
+
+    /**
+     * 并发未被充分利用时不调整上限
+     */
+    @Test
+    void ignoresSamplesWhenUnderutilized() {
+        GradientLimit limit = new GradientLimit(100, 1, 1000, 0.2, 1.5, 600, 10);
+        limit.onSample(BASELINE, 10, false);
+        limit.onSample(BASELINE * 10, 10, false);
+        assertEquals(100, limit.getLimit());
+    }
+}
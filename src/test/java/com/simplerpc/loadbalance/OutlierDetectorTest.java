@@ -0,0 +1,126 @@
+package com.simplerpc.loadbalance;
+
+import com.simplerpc.common.RpcStatusCode;
+import com.simplerpc.common.URL;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutlierDetectorTest {
+
+    private static final String SERVICE = "EchoService";
+    private static final long LATENCY = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final URL a = new URL("10.0.0.1", 8080);
+    private final URL b = new URL("10.0.0.2", 8080);
+    private final URL c = new URL("10.0.0.3", 8080);
+
+    /**
+     * 连续的连接失败和超时摘除实例，业务异常和成功调用不计入
+     */
+    @Test
+    void ejectsAfterConsecutiveTransportFailures() {
+        OutlierDetectionConfig config = new OutlierDetectionConfig();
+        config.setConsecutiveFailures(3);
+        OutlierDetector detector = new OutlierDetector(config);
+        List<URL> urls = Arrays.asList(a, b, c);
+
+        detector.onResult(SERVICE, a, RpcStatusCode.UNAVAILABLE, LATENCY);
+        detector.onResult(SERVICE, a, RpcStatusCode.DEADLINE_EXCEEDED, LATENCY);
+        detector.onResult(SERVICE, a, RpcStatusCode.SUCCESS, LATENCY);
+        detector.onResult(SERVICE, a, RpcStatusCode.UNAVAILABLE, LATENCY);
+        detector.onResult(SERVICE, a, RpcStatusCode.UNAVAILABLE, LATENCY);
+        for (int i = 0; i < 10; i++) {
+            detector.onResult(SERVICE, b, RpcStatusCode.INTERNAL_ERROR, LATENCY);
+        }
+        assertEquals(urls, detector.filter(SERVICE, urls));
+
+        detector.onResult(SERVICE, a, RpcStatusCode.DEADLINE_EXCEEDED, LATENCY);
+        assertEquals(Collections.singletonList(a.getAddress()), detector.getEjected(SERVICE));
+        assertEquals(Arrays.asList(b, c), detector.filter(SERVICE, urls));
+    }
+
+    /**
+     * 摘除到期后实例重新参与选择，探测调用失败时立即再次摘除
+     */
+    @Test
+    void reEjectsOnFirstFailureAfterExpiry() throws InterruptedException {
+        OutlierDetectionConfig config = new OutlierDetectionConfig();
+        config.setConsecutiveFailures(2);
+        config.setBaseEjectionMillis(50);
+        OutlierDetector detector = new OutlierDetector(config);
+        List<URL> urls = Arrays.asList(a, b, c);
+
+        detector.onResult(SERVICE, a, RpcStatusCode.UNAVAILABLE, LATENCY);
+        detector.onResult(SERVICE, a, RpcStatusCode.UNAVAILABLE, LATENCY);
+        assertEquals(Arrays.asList(b, c), detector.filter(SERVICE, urls));
+
+        Thread.sleep(100);
+        assertEquals(urls, detector.filter(SERVICE, urls));
+        detector.onResult(SERVICE, a, RpcStatusCode.UNAVAILABLE, LATENCY);
+        assertEquals(Arrays.asList(b, c), detector.filter(SERVICE, urls));
+    }
+
+    /**
+     * 被摘除的实例不超过 maxEjectionPercent，超出时最早到期的实例回到候选列表
+     */
+    @Test
+    void capsEjectedProviders() {
+        OutlierDetectionConfig config = new OutlierDetectionConfig();
+        config.setConsecutiveFailures(1);
+        config.setMaxEjectionPercent(50);
+        OutlierDetector detector = new OutlierDetector(config);
+        List<URL> urls = Arrays.asList(a, b);
+
+        detector.onResult(SERVICE, a, RpcStatusCode.UNAVAILABLE, LATENCY);
+        detector.onResult(SERVICE, b, RpcStatusCode.UNAVAILABLE, LATENCY);
+        assertEquals(2, detector.getEjected(SERVICE).size());
+        assertEquals(Collections.singletonList(a), detector.filter(SERVICE, urls));
+    }
+
+    /**
+     * 统计周期内错误率超过阈值时摘除
+     */
+    @Test
+    void ejectsOnErrorRate() {
+        OutlierDetectionConfig config = new OutlierDetectionConfig();
+        config.setConsecutiveFailures(100);
+        config.setIntervalMillis(0);
+        config.setMinRequests(4);
+        OutlierDetector detector = new OutlierDetector(config);
+        List<URL> urls = Arrays.asList(a, b, c);
+
+        for (int i = 0; i < 4; i++) {
+            detector.onResult(SERVICE, a, i % 2 == 0 ? RpcStatusCode.UNAVAILABLE : RpcStatusCode.SUCCESS, LATENCY);
+            detector.onResult(SERVICE, b, RpcStatusCode.SUCCESS, LATENCY);
+        }
+        assertEquals(Arrays.asList(b, c), detector.filter(SERVICE, urls));
+    }
+
+    /**
+     * 平均耗时明显高于中位数的实例被摘除
+     */
+    @Test
+    void ejectsLatencyOutlier() {
+        OutlierDetectionConfig config = new OutlierDetectionConfig();
+        config.setIntervalMillis(0);
+        config.setMinRequests(1);
+        config.setLatencyFactor(3.0);
+        config.setMinOutlierLatencyMillis(50);
+        OutlierDetector detector = new OutlierDetector(config);
+        List<URL> urls = Arrays.asList(a, b, c);
+
+        detector.onResult(SERVICE, a, RpcStatusCode.SUCCESS, LATENCY);
+        detector.onResult(SERVICE, b, RpcStatusCode.SUCCESS, LATENCY);
+        detector.onResult(SERVICE, c, RpcStatusCode.SUCCESS, LATENCY * 10);
+        List<URL> healthy = detector.filter(SERVICE, urls);
+        assertEquals(Arrays.asList(a, b), healthy);
+        assertTrue(detector.getEjected(SERVICE).contains(c.getAddress()));
+    }
+}
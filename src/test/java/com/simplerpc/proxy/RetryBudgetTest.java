@@ -0,0 +1,47 @@
+package com.simplerpc.proxy;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryBudgetTest {
+
+    /**
+     * 重试次数不超过正常请求数乘以比例
+     */
+    @Test
+    void retriesAreBoundedByRatio() {
+        RetryBudget budget = new RetryBudget(0.5, 0);
+        assertFalse(budget.tryWithdraw());
+
+        for (int i = 0; i < 4; i++) {
+            budget.deposit();
+        }
+        assertTrue(budget.tryWithdraw());
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+        assertEquals(2, budget.getExhausted());
+    }
+
+    /**
+     * 没有流量时每秒补充固定额度，但空闲期不会攒下超过一秒补充量的额度
+     */
+    @Test
+    void refillsAtMinimumRateWithoutAccumulatingWhileIdle() throws InterruptedException {
+        RetryBudget budget = new RetryBudget(0.1, 5);
+        assertEquals(5, withdrawAll(budget));
+
+        Thread.sleep(1100);
+        assertEquals(5, withdrawAll(budget));
+    }
+
+    private static int withdrawAll(RetryBudget budget) {
+        int withdrawn = 0;
+        while (withdrawn < 100 && budget.tryWithdraw()) {
+            withdrawn++;
+        }
+        return withdrawn;
+    }
+}
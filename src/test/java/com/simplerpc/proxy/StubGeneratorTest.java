@@ -0,0 +1,218 @@
+package com.simplerpc.proxy;
+
+import com.simplerpc.loadbalance.OutlierDetector;
+import com.simplerpc.loadbalance.impl.RandomLoadBalancer;
+import com.simplerpc.transport.InJvmServices;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StubGeneratorTest {
+
+    private static final String VERSION = "stub-test";
+
+    public interface PrimitiveService {
+        long mix(int a, long b, double c, boolean d, char e);
+
+        double wide(double a, long b, float c);
+
+        int count();
+
+        boolean not(boolean value);
+
+        void record(long a, double b, String c);
+
+        int[] reverse(int[] values);
+    }
+
+    public interface Named {
+        String name();
+
+        int base(int value);
+    }
+
+    public interface Labeled {
+        String name();
+    }
+
+    public interface ChildService extends Named, Labeled {
+        String greet(String who);
+    }
+
+    // 非public接口对桩类不可见，退回到动态代理
+    interface HiddenService {
+        int twice(int value);
+    }
+
+    public static class PrimitiveServiceImpl implements PrimitiveService {
+        final List<Object> recorded = new ArrayList<>();
+
+        @Override
+        public long mix(int a, long b, double c, boolean d, char e) {
+            return a + b + (long) c + (d ? 1000 : 0) + e;
+        }
+
+        @Override
+        public double wide(double a, long b, float c) {
+            return a * b + c;
+        }
+
+        @Override
+        public int count() {
+            return 42;
+        }
+
+        @Override
+        public boolean not(boolean value) {
+            return !value;
+        }
+
+        @Override
+        public void record(long a, double b, String c) {
+            recorded.add(a);
+            recorded.add(b);
+            recorded.add(c);
+        }
+
+        @Override
+        public int[] reverse(int[] values) {
+            int[] reversed = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                reversed[i] = values[values.length - 1 - i];
+            }
+            return reversed;
+        }
+    }
+
+    public static class ChildServiceImpl implements ChildService {
+        @Override
+        public String name() {
+            return "child";
+        }
+
+        @Override
+        public int base(int value) {
+            return value + 1;
+        }
+
+        @Override
+        public String greet(String who) {
+            return "hi " + who;
+        }
+    }
+
+    static class HiddenServiceImpl implements HiddenService {
+        @Override
+        public int twice(int value) {
+            return value * 2;
+        }
+    }
+
+    private final List<String> exported = new ArrayList<>();
+    private final RpcProxyFactory factory = inJvmFactory();
+
+    @AfterEach
+    void unexport() {
+        for (String serviceName : exported) {
+            InJvmServices.unexport(serviceName, InJvmServices.get(serviceName));
+        }
+    }
+
+    /**
+     * 基本类型参数和返回值，long和double占两个局部变量槽位，参数位置不能错
+     */
+    @Test
+    void primitiveAndWideArguments() {
+        PrimitiveServiceImpl impl = new PrimitiveServiceImpl();
+        PrimitiveService stub = create(PrimitiveService.class, impl);
+
+        assertFalse(Proxy.isProxyClass(stub.getClass()));
+        assertEquals(1 + 20_000_000_000L + 3 + 1000 + 'a', stub.mix(1, 20_000_000_000L, 3.9, true, 'a'));
+        assertEquals(2.5 * 4 + 0.5, stub.wide(2.5, 4L, 0.5f));
+        assertEquals(42, stub.count());
+        assertTrue(stub.not(false));
+        assertArrayEquals(new int[]{3, 2, 1}, stub.reverse(new int[]{1, 2, 3}));
+    }
+
+    /**
+     * void方法丢弃返回值，参数照常传递
+     */
+    @Test
+    void voidReturn() {
+        PrimitiveServiceImpl impl = new PrimitiveServiceImpl();
+        PrimitiveService stub = create(PrimitiveService.class, impl);
+
+        stub.record(7L, 1.5, "x");
+
+        assertEquals(List.of(7L, 1.5, "x"), impl.recorded);
+    }
+
+    /**
+     * 继承的方法可以调用，多个父接口中的同签名方法只生成一次
+     */
+    @Test
+    void inheritedAndDuplicateMethods() {
+        ChildService stub = create(ChildService.class, new ChildServiceImpl());
+
+        assertFalse(Proxy.isProxyClass(stub.getClass()));
+        assertEquals("child", stub.name());
+        assertEquals("child", ((Labeled) stub).name());
+        assertEquals(6, stub.base(5));
+        assertEquals("hi bob", stub.greet("bob"));
+    }
+
+    /**
+     * 同一接口只生成一次桩类，每个代理是独立的实例
+     */
+    @Test
+    void stubClassIsReused() {
+        PrimitiveService first = create(PrimitiveService.class, new PrimitiveServiceImpl());
+        PrimitiveService second = factory.create(PrimitiveService.class, VERSION, 0);
+
+        assertSame(first.getClass(), second.getClass());
+        assertNotSame(first, second);
+        assertEquals(42, second.count());
+    }
+
+    /**
+     * 接口对桩类不可见时退回到动态代理，Object的方法仍在本地处理
+     */
+    @Test
+    void fallsBackToProxy() {
+        HiddenService proxy = create(HiddenService.class, new HiddenServiceImpl());
+
+        assertTrue(Proxy.isProxyClass(proxy.getClass()));
+        assertEquals(8, proxy.twice(4));
+        assertEquals(proxy, proxy);
+        assertEquals(System.identityHashCode(proxy), proxy.hashCode());
+        assertTrue(proxy.toString().startsWith(HiddenService.class.getName() + "@"));
+    }
+
+    private <T> T create(Class<T> interfaceClass, T impl) {
+        String serviceName = interfaceClass.getName() + "-" + VERSION;
+        InJvmServices.export(serviceName, impl);
+        exported.add(serviceName);
+        return factory.create(interfaceClass, VERSION, 0);
+    }
+
+    /**
+     * 进程内调用不经过网络，可以直接验证桩类的参数传递和返回值转换
+     */
+    private static RpcProxyFactory inJvmFactory() {
+        InJvmConfig config = new InJvmConfig();
+        config.setEnabled(true);
+        config.setCopyValues(false);
+        return new RpcProxyFactory(null, null, new RandomLoadBalancer(), new RetryBudget(),
+                new OutlierDetector(), config);
+    }
+}
@@ -0,0 +1,66 @@
+package com.simplerpc.serialize.impl;
+
+import com.simplerpc.common.RpcRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CodecSerializerTest {
+
+    private final CodecSerializer serializer = new CodecSerializer();
+
+    @Test
+    void roundTripsRequest() {
+        Map<String, String> attachments = new HashMap<>();
+        attachments.put("traceId", "t-1");
+        RpcRequest request = new RpcRequest();
+        request.setRequestId("req-1");
+        request.setInterfaceName("com.example.EchoService");
+        request.setMethodName("echo");
+        request.setParameterTypes(new Class<?>[]{List.class, Map.class});
+        request.setParameters(new Object[]{Arrays.asList("a", 1), Collections.singletonMap("k", 2L)});
+        request.setAttachments(attachments);
+
+        RpcRequest decoded = serializer.deserialize(serializer.serialize(request), RpcRequest.class);
+        assertEquals("echo", decoded.getMethodName());
+        assertEquals(Arrays.asList("a", 1), decoded.getParameters()[0]);
+        assertEquals(Collections.singletonMap("k", 2L), decoded.getParameters()[1]);
+        assertEquals(attachments, decoded.getAttachments());
+    }
+
+    /**
+     * 对端写出的集合长度超过剩余数据时直接失败，不按该长度预先分配
+     */
+    @Test
+    void rejectsForgedCollectionSizes() {
+        // KIND_OBJECT, TAG_LIST, 变长整数Integer.MAX_VALUE
+        byte[] list = {0, 9, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        assertThrows(RuntimeException.class, () -> serializer.deserialize(list, Object.class));
+        // KIND_OBJECT, TAG_MAP, 变长整数0x7FFFFFF0
+        byte[] map = {0, 10, (byte) 0xF0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        assertThrows(RuntimeException.class, () -> serializer.deserialize(map, Object.class));
+        // 负数长度
+        byte[] negative = {0, 9, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+        assertThrows(RuntimeException.class, () -> serializer.deserialize(negative, Object.class));
+
+        // 请求中附加信息的个数同样来自对端
+        RpcRequest request = new RpcRequest();
+        request.setRequestId("r");
+        byte[] bytes = serializer.serialize(request);
+        byte[] forged = Arrays.copyOf(bytes, bytes.length + 4);
+        int attachmentsAt = bytes.length - 1;
+        forged[attachmentsAt] = (byte) 0xFF;
+        forged[attachmentsAt + 1] = (byte) 0xFF;
+        forged[attachmentsAt + 2] = (byte) 0xFF;
+        forged[attachmentsAt + 3] = (byte) 0xFF;
+        forged[attachmentsAt + 4] = 0x07;
+        assertThrows(RuntimeException.class, () -> serializer.deserialize(forged, RpcRequest.class));
+    }
+}
@@ -0,0 +1,42 @@
+package com.simplerpc.serialize.impl;
+
+import com.simplerpc.common.RpcRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HessianSerializerTest {
+
+    private final HessianSerializer serializer = new HessianSerializer();
+
+    /**
+     * 同一线程上一条损坏的消息不能影响之后的反序列化
+     */
+    @Test
+    void corruptFrameDoesNotBreakFollowingDecodes() {
+        RpcRequest request = new RpcRequest();
+        request.setRequestId("req-1");
+        request.setInterfaceName("com.example.EchoService");
+        request.setMethodName("echo");
+        request.setParameterTypes(new Class<?>[]{String.class});
+        request.setParameters(new Object[]{"hello"});
+        request.setVersion("1.0.0");
+        byte[] bytes = serializer.serialize(request);
+
+        byte[] corrupt = Arrays.copyOf(bytes, bytes.length);
+        for (int i = bytes.length / 2; i < corrupt.length; i++) {
+            corrupt[i] = (byte) 0xFF;
+        }
+        assertThrows(RuntimeException.class, () -> serializer.deserialize(corrupt, RpcRequest.class));
+
+        for (int i = 0; i < 5; i++) {
+            RpcRequest decoded = serializer.deserialize(bytes, RpcRequest.class);
+            assertEquals("req-1", decoded.getRequestId());
+            assertEquals("echo", decoded.getMethodName());
+            assertEquals("hello", decoded.getParameters()[0]);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.simplerpc.serialize.impl;
+
+import com.simplerpc.common.RpcRequest;
+import com.simplerpc.common.RpcResponse;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonSerializerTest {
+
+    public interface ShapeService {
+        Shape shape();
+
+        List<Circle> circles();
+
+        Object anything();
+
+        void draw(Shape shape);
+    }
+
+    public abstract static class Shape {
+        public String name;
+    }
+
+    public static class Circle extends Shape {
+        public int radius;
+    }
+
+    public static class Unrelated {
+        public String name;
+    }
+
+    private final JsonSerializer serializer = new JsonSerializer();
+
+    @Test
+    void bindsResponseToDeclaredReturnType() {
+        Circle circle = circle();
+        RpcResponse response = roundTrip("circles", RpcResponse.success("req", Collections.singletonList(circle)),
+                List.class);
+        assertInstanceOf(Circle.class, ((List<?>) response.getData()).get(0));
+    }
+
+    @Test
+    void acceptsWireTypeOnlyWhenAssignableToDeclaredType() {
+        RpcResponse response = roundTrip("shape", RpcResponse.success("req", circle()), Shape.class);
+        assertInstanceOf(Circle.class, response.getData());
+
+        // dataType不是声明类型的子类时不采用，按抽象的声明类型绑定失败，不会创建对端指定的类
+        String json = "{\"requestId\":\"req\",\"statusCode\":200,\"dataType\":\"" + Unrelated.class.getName()
+                + "\",\"data\":{\"name\":\"x\"}}";
+        Type shape = returnType("shape");
+        assertThrows(RuntimeException.class,
+                () -> serializer.deserializeResponse(json.getBytes(StandardCharsets.UTF_8), id -> shape));
+    }
+
+    @Test
+    void bindsUntypedWhenDeclaredTypeIsObjectOrUnknown() {
+        RpcResponse response = roundTrip("anything", RpcResponse.success("req", circle()), Object.class);
+        assertInstanceOf(Map.class, response.getData());
+
+        // 客户端不知道返回值类型的响应（例如请求已超时）不按对端传来的类名绑定
+        byte[] bytes = serializer.serialize(withDataType(RpcResponse.success("other", circle()), Circle.class));
+        assertInstanceOf(Map.class, serializer.deserializeResponse(bytes, id -> null).getData());
+        assertInstanceOf(Map.class, serializer.deserialize(bytes, RpcResponse.class).getData());
+    }
+
+    @Test
+    void bindsParametersUntypedWhenMethodIsUnknown() {
+        String json = "{\"requestId\":\"req\",\"interfaceName\":\"com.example.Missing\",\"methodName\":\"draw\","
+                + "\"parameterTypes\":[\"" + Circle.class.getName() + "\"],\"parameters\":[{\"name\":\"c\",\"radius\":1}]}";
+        RpcRequest request = serializer.deserialize(json.getBytes(StandardCharsets.UTF_8), RpcRequest.class);
+        assertInstanceOf(Map.class, request.getParameters()[0]);
+    }
+
+    private RpcResponse roundTrip(String methodName, RpcResponse response, Class<?> declared) {
+        byte[] bytes = serializer.serialize(withDataType(response, declared));
+        Type returnType = returnType(methodName);
+        return serializer.deserializeResponse(bytes, id -> "req".equals(id) ? returnType : null);
+    }
+
+    private static Type returnType(String methodName) {
+        try {
+            return ShapeService.class.getMethod(methodName).getGenericReturnType();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static RpcResponse withDataType(RpcResponse response, Class<?> declared) {
+        response.dataType(declared);
+        return response;
+    }
+
+    private static Circle circle() {
+        Circle circle = new Circle();
+        circle.name = "c";
+        circle.radius = 1;
+        return circle;
+    }
+}
@@ -0,0 +1,172 @@
+package com.simplerpc.transport.netty.codec;
+
+import com.simplerpc.common.Blob;
+import com.simplerpc.common.RpcRequest;
+import com.simplerpc.common.RpcResponse;
+import com.simplerpc.metrics.RpcMetrics;
+import com.simplerpc.serialize.impl.HessianSerializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.FileRegion;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentsTest {
+
+    private final HessianSerializer serializer = new HessianSerializer();
+
+    /**
+     * 各类数据段经过编码和解码后回到原来的参数位置，原请求保持不变
+     */
+    @Test
+    void requestSegmentsRoundTrip(@TempDir Path directory) throws IOException {
+        byte[] large = bytes(Segments.BYTES_THRESHOLD, 1);
+        byte[] small = bytes(16, 2);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes(100, 3));
+        ByteBuf buf = Unpooled.wrappedBuffer(bytes(200, 4));
+        Blob blob = Blob.of(bytes(300, 5));
+        Path file = Files.write(directory.resolve("blob"), bytes(400, 6));
+        Blob fileBlob = Blob.of(file.toFile(), 100, 200);
+
+        RpcRequest request = request(new Object[]{"name", large, small, buffer, buf, blob, fileBlob});
+        Object[] original = request.getParameters().clone();
+        RpcRequest decoded = roundTrip(request, RpcRequest.class);
+
+        assertArrayEquals(original, request.getParameters());
+        assertEquals(1, buf.refCnt());
+        Object[] parameters = decoded.getParameters();
+        assertEquals("name", parameters[0]);
+        assertArrayEquals(large, (byte[]) parameters[1]);
+        assertArrayEquals(small, (byte[]) parameters[2]);
+        assertArrayEquals(buffer.array(), toArray((ByteBuffer) parameters[3]));
+        assertArrayEquals(ByteBufUtil.getBytes(buf), ByteBufUtil.getBytes((ByteBuf) parameters[4]));
+        assertArrayEquals(blob.toByteArray(), ((Blob) parameters[5]).toByteArray());
+        assertArrayEquals(Arrays.copyOfRange(bytes(400, 6), 100, 300), ((Blob) parameters[6]).toByteArray());
+        assertTrue(decoded.wireSize() > large.length);
+        assertFalse(decoded.oneway());
+
+        for (Object parameter : parameters) {
+            Blob.releaseValue(parameter);
+        }
+        buf.release();
+        blob.release();
+    }
+
+    /**
+     * 单向调用标志和响应返回值的数据段
+     */
+    @Test
+    void onewayFlagAndResponseDataRoundTrip() {
+        RpcRequest request = request(new Object[]{bytes(Segments.BYTES_THRESHOLD, 7)});
+        request.oneway(true);
+        assertTrue(roundTrip(request, RpcRequest.class).oneway());
+
+        byte[] data = bytes(Segments.BYTES_THRESHOLD * 2, 8);
+        RpcResponse response = RpcResponse.success("req", data);
+        RpcResponse decoded = roundTrip(response, RpcResponse.class);
+        assertEquals("req", decoded.getRequestId());
+        assertEquals(response.getStatusCode(), decoded.getStatusCode());
+        assertArrayEquals(data, (byte[]) decoded.getData());
+        assertSame(data, response.getData());
+    }
+
+    /**
+     * 不含数据段的消息按普通帧编码
+     */
+    @Test
+    void smallValuesAreNotSegmented() {
+        assertFalse(Segments.hasSegments(request(new Object[]{bytes(16, 9), null})));
+        assertFalse(Segments.hasSegments(RpcResponse.success("req", null)));
+        RpcResponse decoded = roundTrip(RpcResponse.success("req", null), RpcResponse.class);
+        assertNull(decoded.getData());
+    }
+
+    /**
+     * 编码后把所有输出拼成字节流，按小块送入解码器，覆盖帧被拆分到达的情况
+     */
+    private <T> T roundTrip(Object msg, Class<T> type) {
+        EmbeddedChannel encoder = new EmbeddedChannel(new RpcEncoder(serializer, type, RpcMetrics.client()));
+        assertTrue(encoder.writeOutbound(msg));
+        CompositeByteBuf wire = Unpooled.compositeBuffer();
+        Object out;
+        while ((out = encoder.readOutbound()) != null) {
+            if (out instanceof FileRegion) {
+                wire.addComponent(true, Unpooled.wrappedBuffer(transfer((FileRegion) out)));
+            } else {
+                wire.addComponent(true, (ByteBuf) out);
+            }
+        }
+        encoder.finishAndReleaseAll();
+
+        EmbeddedChannel decoder = new EmbeddedChannel(new RpcDecoder(serializer, type, RpcMetrics.server()));
+        while (wire.isReadable()) {
+            decoder.writeInbound(wire.readRetainedSlice(Math.min(4096, wire.readableBytes())));
+        }
+        wire.release();
+        T decoded = type.cast(decoder.readInbound());
+        assertNull(decoder.readInbound());
+        decoder.finishAndReleaseAll();
+        return decoded;
+    }
+
+    private static byte[] transfer(FileRegion region) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (WritableByteChannel channel = Channels.newChannel(bos)) {
+            while (region.transferred() < region.count()) {
+                region.transferTo(channel, region.transferred());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            region.release();
+        }
+        return bos.toByteArray();
+    }
+
+    private static RpcRequest request(Object[] parameters) {
+        RpcRequest request = new RpcRequest();
+        request.setRequestId("req");
+        request.setInterfaceName("EchoService");
+        request.setMethodName("echo");
+        Class<?>[] types = new Class<?>[parameters.length];
+        Arrays.fill(types, Object.class);
+        request.setParameterTypes(types);
+        request.setParameters(parameters);
+        request.setVersion("");
+        return request;
+    }
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31 + seed);
+        }
+        return bytes;
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,215 @@
+package com.simplerpc.transport.netty.handler;
+
+import com.simplerpc.common.RpcCancel;
+import com.simplerpc.common.RpcContext;
+import com.simplerpc.common.RpcRequest;
+import com.simplerpc.common.RpcResponse;
+import com.simplerpc.common.RpcStatusCode;
+import com.simplerpc.transport.netty.NettyServerConfig;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RpcServerHandlerTest {
+
+    public interface TaskService {
+        String hold();
+
+        int count();
+
+        boolean interrupted();
+    }
+
+    public static class TaskServiceImpl implements TaskService {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger counted = new AtomicInteger();
+        volatile boolean cancelSeen;
+        volatile boolean interruptSeen;
+
+        /**
+         * 阻塞到被放行或被取消；看到取消后再等一会，确认之后没有迟到的中断
+         */
+        @Override
+        public String hold() {
+            started.countDown();
+            try {
+                while (!release.await(10, TimeUnit.MILLISECONDS)) {
+                    if (RpcContext.getContext().isCancelled()) {
+                        cancelSeen = true;
+                        Thread.sleep(50);
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                interruptSeen = true;
+                // 模拟业务代码恢复中断标记后返回
+                Thread.currentThread().interrupt();
+            }
+            return "held";
+        }
+
+        @Override
+        public int count() {
+            return counted.incrementAndGet();
+        }
+
+        @Override
+        public boolean interrupted() {
+            return Thread.currentThread().isInterrupted();
+        }
+    }
+
+    // 单线程业务线程池，后提交的请求在前一个请求结束前一直排队
+    private final ThreadPoolExecutor executor =
+            new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    private final TaskServiceImpl service = new TaskServiceImpl();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 默认不中断业务线程
+     */
+    @Test
+    void interruptIsOptIn() {
+        assertFalse(new NettyServerConfig().isInterruptOnCancel());
+    }
+
+    /**
+     * 排队中的请求被取消后不再执行，也不返回响应
+     */
+    @Test
+    void cancelWhileQueuedNeverRuns() throws Exception {
+        EmbeddedChannel channel = channel(new NettyServerConfig());
+        channel.writeInbound(request("1", "hold"));
+        assertTrue(service.started.await(5, TimeUnit.SECONDS));
+        channel.writeInbound(request("2", "count"));
+        channel.writeInbound(new RpcCancel("2"));
+        service.release.countDown();
+        drain();
+
+        assertEquals(0, service.counted.get());
+        RpcResponse response = channel.readOutbound();
+        assertEquals("1", response.getRequestId());
+        assertNull(channel.readOutbound());
+    }
+
+    /**
+     * 执行中的请求被取消时只通过RpcContext通知业务代码，不中断线程，也不返回响应
+     */
+    @Test
+    void cancelWhileRunningIsCooperative() throws Exception {
+        EmbeddedChannel channel = channel(new NettyServerConfig());
+        channel.writeInbound(request("1", "hold"));
+        assertTrue(service.started.await(5, TimeUnit.SECONDS));
+        channel.writeInbound(new RpcCancel("1"));
+        drain();
+
+        assertTrue(service.cancelSeen);
+        assertFalse(service.interruptSeen);
+        assertNull(channel.readOutbound());
+    }
+
+    /**
+     * 开启中断后执行中的请求被中断，中断标记不会留给同一线程上的下一个请求
+     */
+    @Test
+    void interruptIsClearedBeforeNextTask() throws Exception {
+        NettyServerConfig config = new NettyServerConfig();
+        config.setInterruptOnCancel(true);
+        EmbeddedChannel channel = channel(config);
+        channel.writeInbound(request("1", "hold"));
+        assertTrue(service.started.await(5, TimeUnit.SECONDS));
+        channel.writeInbound(request("2", "interrupted"));
+        channel.writeInbound(new RpcCancel("1"));
+        drain();
+
+        assertTrue(service.interruptSeen);
+        RpcResponse response = channel.readOutbound();
+        assertEquals("2", response.getRequestId());
+        assertEquals(RpcStatusCode.SUCCESS, response.getStatusCode());
+        assertEquals(false, response.getData());
+        assertNull(channel.readOutbound());
+    }
+
+    /**
+     * 执行完成后收到的取消请求不产生任何影响
+     */
+    @Test
+    void cancelAfterDoneIsIgnored() throws Exception {
+        EmbeddedChannel channel = channel(new NettyServerConfig());
+        channel.writeInbound(request("1", "count"));
+        drain();
+        channel.writeInbound(new RpcCancel("1"));
+
+        assertEquals(1, service.counted.get());
+        RpcResponse response = channel.readOutbound();
+        assertEquals(RpcStatusCode.SUCCESS, response.getStatusCode());
+        assertEquals(1, response.getData());
+        assertNull(channel.readOutbound());
+    }
+
+    /**
+     * 连接断开时取消该连接上执行中和排队中的请求，不影响其他连接
+     */
+    @Test
+    void channelInactiveCancelsOnlyItsOwnTasks() throws Exception {
+        RpcServerHandler handler = handler(new NettyServerConfig());
+        EmbeddedChannel closed = new EmbeddedChannel(handler);
+        EmbeddedChannel other = new EmbeddedChannel(handler);
+        closed.writeInbound(request("1", "hold"));
+        assertTrue(service.started.await(5, TimeUnit.SECONDS));
+        closed.writeInbound(request("2", "count"));
+        // 另一连接上的相同请求ID不受影响
+        other.writeInbound(request("2", "count"));
+        closed.close();
+        drain();
+
+        assertTrue(service.cancelSeen);
+        assertEquals(1, service.counted.get());
+        RpcResponse response = other.readOutbound();
+        assertEquals(1, response.getData());
+    }
+
+    private RpcServerHandler handler(NettyServerConfig config) {
+        return new RpcServerHandler(
+                Collections.singletonMap(TaskService.class.getName(), service), executor, config);
+    }
+
+    private EmbeddedChannel channel(NettyServerConfig config) {
+        return new EmbeddedChannel(handler(config));
+    }
+
+    /**
+     * 等待已提交的请求全部结束，之后才能在测试线程上读取出站消息
+     */
+    private void drain() throws InterruptedException {
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    private static RpcRequest request(String requestId, String methodName) {
+        RpcRequest request = new RpcRequest();
+        request.setRequestId(requestId);
+        request.setInterfaceName(TaskService.class.getName());
+        request.setMethodName(methodName);
+        request.setParameterTypes(new Class<?>[0]);
+        request.setParameters(new Object[0]);
+        return request;
+    }
+}
@@ -0,0 +1,94 @@
+package com.simplerpc.transport.netty.handler;
+
+import com.simplerpc.capture.CapturedRequest;
+import com.simplerpc.capture.TrafficCapture;
+import com.simplerpc.capture.TrafficReplayer;
+import com.simplerpc.transport.netty.codec.MessageType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrafficCaptureHandlerTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * 超过单条上限的帧跳过，之后的请求继续录制
+     */
+    @Test
+    void skipsFramesOverMaxBodySize() throws Exception {
+        File file = dir.resolve("capture.bin").toFile();
+        TrafficCapture capture = new TrafficCapture(file, 4096, 1, 16);
+        EmbeddedChannel channel = new EmbeddedChannel(new TrafficCaptureHandler(capture));
+
+        channel.writeInbound(frame(MessageType.REQUEST, new byte[32]));
+        channel.writeInbound(frame(MessageType.REQUEST, new byte[]{1, 2, 3}));
+        releaseInbound(channel);
+        capture.close();
+
+        assertEquals(1, capture.getCaptured());
+        assertEquals(1, capture.getDropped());
+        List<CapturedRequest> requests = TrafficReplayer.read(file);
+        assertEquals(1, requests.size());
+        assertArrayEquals(new byte[]{1, 2, 3}, requests.get(0).getBody());
+    }
+
+    /**
+     * 剩余空间放不下的帧跳过但不结束录制，更小的请求仍写入剩余空间
+     */
+    @Test
+    void skipsFramesThatDoNotFit() throws Exception {
+        File file = dir.resolve("capture.bin").toFile();
+        int capacity = TrafficCapture.HEADER_SIZE + TrafficCapture.RECORD_HEADER_SIZE + 10;
+        TrafficCapture capture = new TrafficCapture(file, capacity, 1);
+        EmbeddedChannel channel = new EmbeddedChannel(new TrafficCaptureHandler(capture));
+
+        channel.writeInbound(frame(MessageType.REQUEST, new byte[11]));
+        channel.writeInbound(frame((byte) (MessageType.REQUEST | MessageType.FLAG_ONEWAY), new byte[10]));
+        releaseInbound(channel);
+
+        assertEquals(1, capture.getCaptured());
+        assertEquals(1, capture.getDropped());
+        List<CapturedRequest> requests = TrafficReplayer.read(file);
+        assertEquals(1, requests.size());
+        assertEquals(10, requests.get(0).getBody().length);
+        assertEquals((byte) (MessageType.REQUEST | MessageType.FLAG_ONEWAY), requests.get(0).getMessageType());
+    }
+
+    /**
+     * 帧头中的超大长度在分配缓冲区之前被拒绝
+     */
+    @Test
+    void rejectsHugeLengthBeforeAllocating() throws Exception {
+        TrafficCapture capture = new TrafficCapture(dir.resolve("capture.bin").toFile(), 4096, 1);
+        EmbeddedChannel channel = new EmbeddedChannel(new TrafficCaptureHandler(capture));
+
+        ByteBuf header = Unpooled.buffer().writeInt(Integer.MAX_VALUE).writeByte(MessageType.REQUEST);
+        channel.writeInbound(header.writeBytes(new byte[64]));
+        releaseInbound(channel);
+
+        assertEquals(0, capture.getCaptured());
+        assertEquals(1, capture.getDropped());
+    }
+
+    private static ByteBuf frame(byte messageType, byte[] body) {
+        return Unpooled.buffer().writeInt(body.length).writeByte(messageType).writeBytes(body);
+    }
+
+    private static void releaseInbound(EmbeddedChannel channel) {
+        ByteBuf buf;
+        while ((buf = channel.readInbound()) != null) {
+            buf.release();
+        }
+    }
+}